@@ -0,0 +1,242 @@
+package io.inkstand.halite.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates a {@code io.inkstand.halite.json.ResourceSerializer} for every type annotated
+ * with {@code io.inkstand.halite.json.HalResource}. The generated serializers are listed in the
+ * <code>META-INF/services/io.inkstand.halite.json.ResourceSerializer</code> index which is written once all types of
+ * the compilation have been processed, so that the JsonHalWriter can find them without scanning the classpath. The
+ * index is written in UTF-8. The serializers listed in an existing index of the class output are kept as long as their
+ * annotated type still exists, so that an incremental compilation of only some of the annotated types does not drop
+ * the serializers of the other types from the index, while the serializers of removed types are dropped. <br>
+ * The annotated type must be a top-level or static nested class that extends the {@code io.inkstand.halite.Resource},
+ * otherwise it is reported as error. The generated serializer reads each field of the type and its supertypes
+ * directly, private constants are inlined. If a field is not readable from the package of the type, no serializer is
+ * generated and a warning is reported, the type is then written by the runtime serializer engine.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class HalResourceProcessor extends AbstractProcessor {
+
+    static final String HAL_RESOURCE = "io.inkstand.halite.json.HalResource";
+
+    static final String RESOURCE_SERIALIZER = "io.inkstand.halite.json.ResourceSerializer";
+
+    static final String INDEX = "META-INF/services/" + RESOURCE_SERIALIZER;
+
+    /**
+     * The qualified names of the serializers generated in this compilation
+     */
+    private final Set<String> serializers = new LinkedHashSet<>();
+
+    /**
+     * The qualified names of the serializers that were not generated in this compilation because the fields of their
+     * type are not readable
+     */
+    private final Set<String> skipped = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(HAL_RESOURCE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(HAL_RESOURCE);
+        if (annotation == null) {
+            return false;
+        }
+        for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (isValidType(element)) {
+                generateSerializer((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidType(final Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@HalResource is only applicable to classes");
+            return false;
+        }
+        final TypeElement type = (TypeElement) element;
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL
+                && (type.getNestingKind() != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+            error(element, "@HalResource is only applicable to top-level or static nested classes");
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(element, "@HalResource is not applicable to private classes");
+            return false;
+        }
+        if (!new SerializerModel(processingEnv, type).isResource()) {
+            error(element, "@HalResource is only applicable to subclasses of " + SerializerModel.RESOURCE);
+            return false;
+        }
+        return true;
+    }
+
+    private void generateSerializer(final TypeElement type) {
+        final SerializerModel model = new SerializerModel(processingEnv, type);
+        final List<SerializerModel.FieldModel> fields = new ArrayList<>();
+        if (!model.collectFields(fields)) {
+            skipped.add(model.getSerializerName());
+            return;
+        }
+        try {
+            final JavaFileObject source = processingEnv.getFiler().createSourceFile(model.getSerializerName(), type);
+            try (PrintWriter out = new PrintWriter(source.openWriter())) {
+                model.write(out, fields);
+            }
+            serializers.add(model.getSerializerName());
+        } catch (final IOException e) {
+            error(type, "Could not write serializer " + model.getSerializerName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the index of the serializers generated in this compilation, merged with the serializers of the index
+     * written by a previous compilation whose types still exist
+     */
+    private void writeIndex() {
+        if (serializers.isEmpty() && skipped.isEmpty()) {
+            return;
+        }
+        final Set<String> entries = new LinkedHashSet<>();
+        for (final String entry : readIndex()) {
+            if (!skipped.contains(entry) && isCurrent(entry)) {
+                entries.add(entry);
+            }
+        }
+        entries.addAll(serializers);
+        try {
+            final FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer out = new OutputStreamWriter(index.openOutputStream(), "UTF-8")) {
+                for (final String serializer : entries) {
+                    out.write(serializer);
+                    out.write('\n');
+                }
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write serializer index " + INDEX + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the serializers listed in the index of the class output. Comments and blank lines are skipped.
+     *
+     * @return the serializers of the existing index, which is empty if there is no index
+     */
+    private Set<String> readIndex() {
+        final Set<String> entries = new LinkedHashSet<>();
+        try {
+            final FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(index.openInputStream(), "UTF-8"))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    final int comment = line.indexOf('#');
+                    final String entry = (comment < 0 ? line : line.substring(0, comment)).trim();
+                    if (!entry.isEmpty()) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } catch (final IOException e) { // NOSONAR
+            // there is no index from a previous compilation
+        }
+        return entries;
+    }
+
+    /**
+     * Checks if the serializer of an existing index entry still belongs to a type annotated with HalResource. As the
+     * serializer name maps both <code>$</code> and <code>_</code> of the type name to <code>_</code>, every
+     * combination of nested type names is tried.
+     *
+     * @param serializer
+     *            the qualified name of the serializer
+     * @return <code>true</code> if the annotated type of the serializer exists
+     */
+    private boolean isCurrent(final String serializer) {
+        if (!serializer.endsWith(SerializerModel.SERIALIZER_SUFFIX)) {
+            return false;
+        }
+        final String typeName = serializer.substring(0,
+                serializer.length() - SerializerModel.SERIALIZER_SUFFIX.length());
+        final int separator = typeName.lastIndexOf('.') + 1;
+        for (final String simpleName : nestedNames(typeName.substring(separator))) {
+            final TypeElement type = processingEnv.getElementUtils()
+                    .getTypeElement(typeName.substring(0, separator) + simpleName);
+            if (type != null && isAnnotated(type)
+                    && new SerializerModel(processingEnv, type).getSerializerName().equals(serializer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines all canonical names a simple serializer name may originate from, that is the name with every
+     * combination of <code>_</code> replaced by <code>.</code>
+     */
+    private List<String> nestedNames(final String name) {
+        final List<String> names = new ArrayList<>();
+        names.add(name);
+        for (int i = name.indexOf('_', 1); i > 0 && i < name.length() - 1; i = name.indexOf('_', i + 1)) {
+            for (final String nested : nestedNames(name.substring(i + 1))) {
+                names.add(name.substring(0, i) + '.' + nested);
+            }
+        }
+        return names;
+    }
+
+    private boolean isAnnotated(final TypeElement type) {
+        for (final AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(HAL_RESOURCE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,260 @@
+package io.inkstand.halite.apt;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Model of the serializer generated for a single annotated resource type. The model collects the fields in the same
+ * order as the reflective serialization of the JsonHalWriter, that is the fields of the type itself followed by the
+ * fields of its supertypes up to, but not including, the Resource, and determines how each field is read and written.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+class SerializerModel {
+
+    static final String RESOURCE = "io.inkstand.halite.Resource";
+
+    static final String SERIALIZER_SUFFIX = "_HalSerializer";
+
+    /**
+     * A single field to be written by the serializer
+     */
+    static final class FieldModel {
+
+        final String name;
+        final String readExpression;
+        final String writeStatement;
+
+        FieldModel(final String name, final String readExpression, final String writeStatement) {
+            this.name = name;
+            this.readExpression = readExpression;
+            this.writeStatement = writeStatement;
+        }
+    }
+
+    private final Elements elements;
+    private final Types types;
+    private final ProcessingEnvironment env;
+    private final TypeElement type;
+    private final PackageElement pkg;
+
+    SerializerModel(final ProcessingEnvironment env, final TypeElement type) {
+        this.env = env;
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.type = type;
+        this.pkg = elements.getPackageOf(type);
+    }
+
+    /**
+     * @return <code>true</code> if the type is a subclass of the Resource
+     */
+    boolean isResource() {
+        final TypeElement resource = elements.getTypeElement(RESOURCE);
+        return resource != null && types.isSubtype(types.erasure(type.asType()), types.erasure(resource.asType()));
+    }
+
+    /**
+     * @return the qualified name of the serializer class
+     */
+    String getSerializerName() {
+        final String packageName = pkg.getQualifiedName().toString();
+        final String binaryName = elements.getBinaryName(type).toString();
+        final String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        final String serializerName = simpleName.replace('$', '_') + SERIALIZER_SUFFIX;
+        return packageName.isEmpty() ? serializerName : packageName + '.' + serializerName;
+    }
+
+    /**
+     * Collects the fields of the type and its supertypes. The generated serializer reads every field directly, as
+     * the reflective serialization does, because a getter may compute or lazily initialize the value. If a field can
+     * not be read from the generated serializer, a warning is reported and no serializer should be generated, so that
+     * the type is written by the runtime serializer engine instead.
+     *
+     * @param fields
+     *            the list to add the fields to
+     * @return <code>true</code> if all fields could be collected and a serializer can be generated
+     */
+    boolean collectFields(final List<FieldModel> fields) {
+        boolean valid = true;
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals(RESOURCE)) {
+            for (final VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                final String read = readExpression(current, field);
+                if (read == null) {
+                    env.getMessager().printMessage(Diagnostic.Kind.WARNING, "Field " + field.getSimpleName() + " of "
+                            + current.getQualifiedName() + " is not readable from package " + pkg.getQualifiedName()
+                            + ", no serializer is generated for " + type.getQualifiedName()
+                            + " and it is written by the runtime serializer engine", type);
+                    valid = false;
+                } else {
+                    fields.add(new FieldModel(field.getSimpleName().toString(), read, writeStatement(field)));
+                }
+            }
+            final TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+        return valid;
+    }
+
+    /**
+     * Writes the source of the serializer.
+     *
+     * @param out
+     *            the writer for the source file
+     * @param fields
+     *            the fields to write
+     */
+    void write(final PrintWriter out, final List<FieldModel> fields) {
+        final String serializerName = getSerializerName();
+        final String simpleName = serializerName.substring(serializerName.lastIndexOf('.') + 1);
+        final String typeName = typeName(type);
+        if (!pkg.isUnnamed()) {
+            out.println("package " + pkg.getQualifiedName() + ";");
+            out.println();
+        }
+        out.println("/**");
+        out.println(" * Serializer for {@link " + typeName + "}, generated by " + HalResourceProcessor.class.getName()
+                + ". Do not edit.");
+        out.println(" */");
+        out.println("@SuppressWarnings(\"rawtypes\")");
+        out.println("public final class " + simpleName + " implements " + HalResourceProcessor.RESOURCE_SERIALIZER
+                + " {");
+        out.println();
+        for (int i = 0; i < fields.size(); i++) {
+            out.println("    private static final com.fasterxml.jackson.core.SerializableString F" + i
+                    + " = new com.fasterxml.jackson.core.io.SerializedString(\"" + fields.get(i).name + "\");");
+        }
+        out.println();
+        out.println("    @Override");
+        out.println("    public Class<?> getType() {");
+        out.println("        return " + typeName + ".class;");
+        out.println("    }");
+        out.println();
+        out.println("    @Override");
+        out.println("    public void writeFields(final Object object, final io.inkstand.halite.json.FieldOutput out)");
+        out.println("            throws java.io.IOException {");
+        out.println("        final " + typeName + " resource = (" + typeName + ") object;");
+        for (int i = 0; i < fields.size(); i++) {
+            final FieldModel field = fields.get(i);
+            out.println("        " + String.format(field.writeStatement, "F" + i, field.readExpression));
+        }
+        out.println("    }");
+        out.println("}");
+    }
+
+    /**
+     * Determines the expression to read the field
+     *
+     * @param declaringType
+     *            the type declaring the field
+     * @param field
+     *            the field to read
+     * @return the expression or <code>null</code> if the field is not readable
+     */
+    private String readExpression(final TypeElement declaringType, final VariableElement field) {
+        final boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+        final String target;
+        if (isStatic) {
+            target = typeName(declaringType);
+        } else if (declaringType.equals(type)) {
+            target = "resource";
+        } else {
+            // the cast prevents that fields of a subclass hide the field
+            target = "((" + typeName(declaringType) + ") resource)";
+        }
+        if (isAccessible(field) && isAccessible(declaringType)) {
+            return target + '.' + field.getSimpleName();
+        }
+        if (isStatic && field.getConstantValue() != null) {
+            return elements.getConstantExpression(field.getConstantValue());
+        }
+        return null;
+    }
+
+    /**
+     * Determines the statement to write the field. The statement is a format string with the name constant as first
+     * and the read expression as second argument.
+     *
+     * @param field
+     *            the field to write
+     * @return the format of the statement
+     */
+    private String writeStatement(final VariableElement field) {
+        final TypeMirror fieldType = types.erasure(field.asType());
+        switch (fieldType.getKind()) {
+        case INT:
+        case SHORT:
+        case BYTE:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+        case BOOLEAN:
+        case CHAR:
+            return "out.writeField(%s, %s);";
+        case DECLARED:
+            if (types.isSameType(fieldType, elementType("java.lang.String"))) {
+                return "out.writeField(%s, %s);";
+            } else if (isAssignable(fieldType, "java.util.Collection")) {
+                return "out.writeCollectionField(%s, %s);";
+            } else if (isAssignable(fieldType, RESOURCE)) {
+                final TypeElement declaredType = (TypeElement) ((DeclaredType) fieldType).asElement();
+                return "out.writeResourceField(%s, %s, " + typeName(declaredType) + ".class);";
+            }
+            return "out.writeObjectField(%s, %s);";
+        default:
+            return "out.writeObjectField(%s, %s);";
+        }
+    }
+
+    private boolean isAssignable(final TypeMirror type, final String qualifiedName) {
+        final TypeMirror target = elementType(qualifiedName);
+        return target != null && types.isAssignable(type, target);
+    }
+
+    private TypeMirror elementType(final String qualifiedName) {
+        final TypeElement element = elements.getTypeElement(qualifiedName);
+        return element == null ? null : types.erasure(element.asType());
+    }
+
+    /**
+     * Checks if the element and all its enclosing types are accessible from the package of the serializer.
+     *
+     * @param element
+     *            the element to check
+     * @return <code>true</code> if the element is accessible
+     */
+    private boolean isAccessible(final Element element) {
+        Element current = element;
+        while (current != null && current.getKind() != ElementKind.PACKAGE) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!current.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(current).equals(pkg)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private String typeName(final TypeElement element) {
+        return element.getQualifiedName().toString();
+    }
+}
@@ -0,0 +1,53 @@
+package io.inkstand.halite.apt;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import io.inkstand.halite.Resource;
+import io.inkstand.halite.json.HalResource;
+
+@HalResource
+public class AnnotatedTestResource extends BaseTestResource {
+
+    private static final long serialVersionUID = 42L;
+
+    byte aByte = 1;
+    short aShort = 2;
+    int anInt = 3;
+    long aLong = 4;
+    float aFloat = 5.5f;
+    double aDouble = 6.25;
+    boolean aBoolean = true;
+    char aChar = 'c';
+    String text = "text";
+    Integer boxed = 7;
+    List<String> list = Arrays.asList("a", "b");
+    Resource child = new Resource("child");
+    Date date = new Date(0);
+    static final String CONSTANT = "constant";
+
+    public AnnotatedTestResource() {
+        super("annotated");
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(final String text) {
+        this.text = text;
+    }
+
+    /**
+     * Nested annotated resource
+     */
+    @HalResource
+    static class Nested extends Resource {
+        String value = "nested";
+
+        Nested() {
+            super("nested");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.inkstand.halite.apt;
+
+import io.inkstand.halite.Resource;
+
+/**
+ * Supertype of the annotated test resource whose fields are read from the package of the annotated resource
+ */
+public class BaseTestResource extends Resource {
+
+    String inherited = "inherited";
+    boolean active = true;
+
+    public BaseTestResource(final String uri) {
+        super(uri);
+    }
+
+    public String getInherited() {
+        return inherited;
+    }
+
+    public void setInherited(final String inherited) {
+        this.inherited = inherited;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,282 @@
+package io.inkstand.halite.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import io.inkstand.halite.Resource;
+import io.inkstand.halite.json.HalResource;
+import io.inkstand.halite.json.JsonHalWriter;
+import io.inkstand.halite.json.ResourceSerializers;
+
+import com.fasterxml.jackson.core.SerializableString;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HalResourceProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The warnings of the last compilation
+     */
+    private final List<Diagnostic<? extends JavaFileObject>> warnings = new ArrayList<>();
+
+    @Test
+    public void testGeneratedSerializer_indexed() throws Exception {
+        assertTrue(ResourceSerializers.get(AnnotatedTestResource.class) instanceof AnnotatedTestResource_HalSerializer);
+        assertTrue(ResourceSerializers
+                .get(AnnotatedTestResource.Nested.class) instanceof AnnotatedTestResource_Nested_HalSerializer);
+        assertNull(ResourceSerializers.get(BaseTestResource.class));
+    }
+
+    @Test
+    public void testGeneratedSerializer_sameOutputAsReflection() throws Exception {
+        final AnnotatedTestResource resource = new AnnotatedTestResource();
+        resource.embed("nested", new AnnotatedTestResource.Nested());
+
+        assertEquals(write(resource, JsonHalWriter.SerializerEngine.REFLECTION, false),
+                write(resource, JsonHalWriter.SerializerEngine.GENERATED, false));
+    }
+
+    @Test
+    public void testGeneratedSerializer_writeNulls_sameOutputAsReflection() throws Exception {
+        final AnnotatedTestResource resource = new AnnotatedTestResource();
+        resource.setText(null);
+        resource.setInherited(null);
+        resource.child = null;
+        resource.list = null;
+        resource.boxed = null;
+
+        assertEquals(write(resource, JsonHalWriter.SerializerEngine.REFLECTION, true),
+                write(resource, JsonHalWriter.SerializerEngine.GENERATED, true));
+    }
+
+    @Test
+    public void testGeneratedSerializer_output() throws Exception {
+        final String actual = write(new AnnotatedTestResource(), JsonHalWriter.SerializerEngine.GENERATED, false);
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"annotated\"}},\"serialVersionUID\":42,"
+                + "\"aByte\":1,\"aShort\":2,\"anInt\":3,\"aLong\":4,\"aFloat\":5.5,\"aDouble\":6.25,"
+                + "\"aBoolean\":true,\"aChar\":\"c\",\"text\":\"text\",\"boxed\":7,\"list\":[\"a\",\"b\"],"
+                + "\"child\":{\"_links\":{\"self\":{\"href\":\"child\"}}},\"date\":0,\"CONSTANT\":\"constant\","
+                + "\"inherited\":\"inherited\",\"active\":true}", actual);
+    }
+
+    @Test
+    public void testProcess_inaccessibleField_noSerializer() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.Invalid", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Invalid extends io.inkstand.halite.Resource {\n"
+                + "    private String hidden;\n"
+                + "}\n");
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).getMessage(null).contains("Field hidden of test.Invalid is not readable"));
+        assertFalse(new File(folder.getRoot(), "test/Invalid_HalSerializer.class").exists());
+    }
+
+    @Test
+    public void testProcess_privateFieldWithLazyGetter_noSerializer() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.Lazy", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Lazy extends io.inkstand.halite.Resource {\n"
+                + "    private java.util.List<String> items;\n"
+                + "    public java.util.List<String> getItems() {\n"
+                + "        if (items == null) { items = new java.util.ArrayList<>(); }\n"
+                + "        return items;\n"
+                + "    }\n"
+                + "}\n");
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertFalse(new File(folder.getRoot(), "test/Lazy_HalSerializer.class").exists());
+    }
+
+    @Test
+    public void testProcess_noResource_error() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.NoResource", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class NoResource {\n"
+                + "}\n");
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(null).contains("only applicable to subclasses of"));
+    }
+
+    @Test
+    public void testProcess_validResource_serializerAndIndexGenerated() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.Valid", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Valid extends io.inkstand.halite.Resource {\n"
+                + "    private static final int PRIVATE_CONSTANT = 1;\n"
+                + "    String name;\n"
+                + "}\n");
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(new File(folder.getRoot(), "test/Valid_HalSerializer.class").exists());
+        final File index = new File(folder.getRoot(), HalResourceProcessor.INDEX);
+        assertTrue(index.exists());
+        assertEquals("test.Valid_HalSerializer", new String(Files.readAllBytes(index.toPath()), "UTF-8").trim());
+    }
+
+    @Test
+    public void testProcess_incrementalCompilation_indexMerged() throws Exception {
+        compile("test.First", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class First extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.Second", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Second extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        final File index = new File(folder.getRoot(), HalResourceProcessor.INDEX);
+        assertEquals(Arrays.asList("test.First_HalSerializer", "test.Second_HalSerializer"),
+                Files.readAllLines(index.toPath(), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testProcess_incrementalCompilation_nestedTypeKept() throws Exception {
+        compile("test.First", "package test;\n"
+                + "public class First {\n"
+                + "    @io.inkstand.halite.json.HalResource\n"
+                + "    public static class Nested_Type extends io.inkstand.halite.Resource {\n"
+                + "    }\n"
+                + "}\n");
+
+        compile("test.Second", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Second extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+
+        final File index = new File(folder.getRoot(), HalResourceProcessor.INDEX);
+        assertEquals(Arrays.asList("test.First_Nested_Type_HalSerializer", "test.Second_HalSerializer"),
+                Files.readAllLines(index.toPath(), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testProcess_incrementalCompilation_removedTypeDropped() throws Exception {
+        compile("test.First", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class First extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+        assertTrue(new File(folder.getRoot(), "test/First.class").delete());
+        assertTrue(new File(folder.getRoot(), "test/First_HalSerializer.class").delete());
+
+        compile("test.Second", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class Second extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+
+        final File index = new File(folder.getRoot(), HalResourceProcessor.INDEX);
+        assertEquals(Arrays.asList("test.Second_HalSerializer"),
+                Files.readAllLines(index.toPath(), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testProcess_incrementalCompilation_unreadableTypeDropped() throws Exception {
+        compile("test.First", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class First extends io.inkstand.halite.Resource {\n"
+                + "}\n");
+
+        compile("test.First", "package test;\n"
+                + "@io.inkstand.halite.json.HalResource\n"
+                + "public class First extends io.inkstand.halite.Resource {\n"
+                + "    private String hidden;\n"
+                + "}\n");
+
+        final File index = new File(folder.getRoot(), HalResourceProcessor.INDEX);
+        assertTrue(Files.readAllLines(index.toPath(), Charset.forName("UTF-8")).isEmpty());
+    }
+
+    @Test
+    public void testProcess_noAnnotatedTypes_noIndex() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> errors = compile("test.Plain", "package test;\n"
+                + "public class Plain {\n"
+                + "}\n");
+
+        assertTrue(errors.isEmpty());
+        assertFalse(new File(folder.getRoot(), HalResourceProcessor.INDEX).exists());
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(final String className, final String source)
+            throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("no system java compiler", compiler);
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final String classpath = location(Resource.class) + File.pathSeparator + location(HalResource.class)
+                + File.pathSeparator + location(SerializableString.class) + File.pathSeparator
+                + folder.getRoot().getAbsolutePath();
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-classpath", classpath, "-d", folder.getRoot().getAbsolutePath()),
+                null, Arrays.asList(new SourceFile(className, source)));
+        task.setProcessors(Arrays.asList(new HalResourceProcessor()));
+        task.call();
+        final List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        warnings.clear();
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            } else if (diagnostic.getKind() == Diagnostic.Kind.WARNING) {
+                warnings.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+
+    private String location(final Class<?> type) {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().getPath()).getAbsolutePath();
+    }
+
+    private String write(final Resource resource, final JsonHalWriter.SerializerEngine engine,
+            final boolean writeNulls) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(out);
+        writer.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+        writer.setOption(JsonHalWriter.Option.SERIALIZER_ENGINE, engine);
+        writer.setOption(JsonHalWriter.Option.WRITE_NULLS, writeNulls);
+        writer.write(resource);
+        return out.toString("UTF-8");
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(final String className, final String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
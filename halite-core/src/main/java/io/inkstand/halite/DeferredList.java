@@ -0,0 +1,169 @@
+package io.inkstand.halite;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * List of embedded resources of a relation of which some are deferred, that is, they are created by a
+ * {@link Callable} when they are retrieved for the first time or they are the result of a {@link Future} that is
+ * awaited when they are retrieved for the first time. The size of the list is known without resolving any
+ * resource, so that a writer can decide how to write the relation before it retrieves the resources. A resolved
+ * resource is kept by the deferred entry, which is shared by copies of the list, so that a {@link Callable} is
+ * called at most once. The entries are resolved under their own lock, as copies of the list that share an entry may
+ * be read by different threads.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class DeferredList extends RelMap.LazyValues<Resource> {
+
+    /**
+     * A resource that is created or awaited on first access
+     */
+    private static final class Deferred {
+
+        /**
+         * The source of the resource, either a {@link Callable} or a {@link Future}
+         */
+        private final Object source;
+
+        private Resource resolved;
+
+        Deferred(final Object source) {
+            this.source = source;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized Resource resolve(final String rel) {
+            if (resolved == null) {
+                final Resource resource;
+                try {
+                    if (source instanceof Future) {
+                        resource = ((Future<? extends Resource>) source).get();
+                    } else {
+                        resource = ((Callable<? extends Resource>) source).call();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while resolving embedded resource of relation " + rel,
+                            e);
+                } catch (final ExecutionException e) {
+                    throw new IllegalStateException("Could not resolve embedded resource of relation " + rel,
+                            e.getCause());
+                } catch (final Exception e) { // NOSONAR
+                    throw new IllegalStateException("Could not resolve embedded resource of relation " + rel, e);
+                }
+                setResolved(rel, resource);
+            }
+            return resolved;
+        }
+
+        /**
+         * Waits for the result of a future until the deadline. Entries that are created by a {@link Callable} are not
+         * resolved.
+         */
+        @SuppressWarnings("unchecked")
+        synchronized Resource await(final String rel, final long deadline) throws InterruptedException,
+                ExecutionException, TimeoutException {
+            if (resolved == null && source instanceof Future) {
+                final Future<? extends Resource> future = (Future<? extends Resource>) source;
+                setResolved(rel, future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return resolved;
+        }
+
+        private void setResolved(final String rel, final Resource resource) {
+            if (resource == null) {
+                throw new IllegalStateException("Deferred embedded resource of relation " + rel + " is null");
+            }
+            resolved = resource.withRel(rel);
+        }
+    }
+
+    private final String rel;
+
+    /**
+     * The entries of the list, each is either a {@link Resource} or a {@link Deferred}
+     */
+    private Object[] entries;
+
+    private int size;
+
+    DeferredList(final String rel) {
+        this(rel, new Object[2], 0);
+    }
+
+    private DeferredList(final String rel, final Object[] entries, final int size) {
+        this.rel = rel;
+        this.entries = entries;
+        this.size = size;
+    }
+
+    @Override
+    public Resource get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        final Object entry = entries[index];
+        if (entry instanceof Deferred) {
+            return ((Deferred) entry).resolve(rel);
+        }
+        return (Resource) entry;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Waits until all resources that are the result of a future are available and waits for the resources embedded in
+     * them and in the other resolved resources of this list.
+     * 
+     * @param deadline
+     *            the deadline as {@link System#nanoTime()}
+     * @throws InterruptedException
+     * @throws ExecutionException
+     *             if a future failed
+     * @throws TimeoutException
+     *             if the deadline passed before all futures completed
+     */
+    void await(final long deadline) throws InterruptedException, ExecutionException, TimeoutException {
+        for (int i = 0; i < size; i++) {
+            final Object entry = entries[i];
+            final Resource resource = entry instanceof Deferred ? ((Deferred) entry).await(rel, deadline)
+                    : (Resource) entry;
+            if (resource != null) {
+                resource.awaitEmbedded(deadline);
+            }
+        }
+    }
+
+    @Override
+    void addEntry(final Object entry) {
+        if (entry instanceof Iterable) {
+            // a streamed source added to a relation with deferred resources is read immediately
+            for (final Object resource : (Iterable<?>) entry) {
+                addEntry(((Resource) resource).withRel(rel));
+            }
+            return;
+        }
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        if (entry instanceof Callable || entry instanceof Future) {
+            entries[size++] = new Deferred(entry);
+        } else {
+            entries[size++] = entry;
+        }
+    }
+
+    @Override
+    DeferredList copy() {
+        return new DeferredList(rel, Arrays.copyOf(entries, Math.max(size, 2)), size);
+    }
+}
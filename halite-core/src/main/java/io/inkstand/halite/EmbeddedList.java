@@ -0,0 +1,73 @@
+package io.inkstand.halite;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only view on a list of resources that backs an embedded relation of a {@link Resource}. The view assigns the
+ * relation to each resource when it is retrieved, so that the backing list may create its resources on access. As a
+ * frozen resource is not modified but replaced by a snapshot with the relation, the snapshot is kept and returned as
+ * long as the backing list holds the frozen resource at the same index.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+class EmbeddedList extends AbstractList<Resource> {
+
+    private final String rel;
+
+    private final List<? extends Resource> resources;
+
+    /**
+     * The snapshots with the relation of the frozen resources per index, created on access
+     */
+    private Bound[] bound;
+
+    /**
+     * A frozen resource of the backing list and its snapshot with the relation. The fields are final, so that a bound
+     * resource published by one thread is never seen partially by another.
+     */
+    private static final class Bound {
+
+        final Resource source;
+        final Resource resource;
+
+        Bound(final Resource source, final Resource resource) {
+            this.source = source;
+            this.resource = resource;
+        }
+    }
+
+    EmbeddedList(final String rel, final List<? extends Resource> resources) {
+        this.rel = rel;
+        this.resources = resources;
+    }
+
+    @Override
+    public Resource get(final int index) {
+        final Resource source = resources.get(index);
+        if (!source.isFrozen()) {
+            return source.withRel(rel);
+        }
+        Bound[] current = bound;
+        if (current == null || current.length <= index) {
+            current = new Bound[Math.max(index + 1, resources.size())];
+            if (bound != null) {
+                System.arraycopy(bound, 0, current, 0, bound.length);
+            }
+            bound = current;
+        }
+        final Bound cached = current[index];
+        if (cached != null && cached.source == source) {
+            return cached.resource;
+        }
+        final Resource resource = source.withRel(rel);
+        current[index] = new Bound(source, resource);
+        return resource;
+    }
+
+    @Override
+    public int size() {
+        return resources.size();
+    }
+}
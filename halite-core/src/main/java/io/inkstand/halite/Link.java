@@ -1,5 +1,7 @@
 package io.inkstand.halite;
 
+import java.util.Map;
+
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -63,6 +65,11 @@ public class Link {
     @XmlAttribute(name = "title")
     private String title;
 
+    /**
+     * Flag to indicate the link may not be modified anymore
+     */
+    private transient boolean frozen;
+
     /**
      * package private constructor for JAXB
      */
@@ -84,6 +91,34 @@ public class Link {
         this.href = href;
     }
 
+    /**
+     * Creates a link whose href is the expansion of the template with the values of the variables.
+     * 
+     * @param rel
+     *            the relation of the link
+     * @param template
+     *            the compiled template of the href
+     * @param variables
+     *            the values of the variables of the template
+     * @return the new link
+     */
+    public static Link fromTemplate(final String rel, final UriTemplate template, final Map<String, ?> variables) {
+        return new Link(rel, template.expand(variables));
+    }
+
+    /**
+     * Creates a templated link whose href is the template itself, to be expanded by the client.
+     * 
+     * @param rel
+     *            the relation of the link
+     * @param template
+     *            the compiled template of the href
+     * @return the new link, which is marked as templated
+     */
+    public static Link templated(final String rel, final UriTemplate template) {
+        return new Link(rel, template.getTemplate()).templated(Boolean.TRUE);
+    }
+
     /**
      * Gets the value of the rel property.
      * 
@@ -182,6 +217,7 @@ public class Link {
      * @return this link
      */
     Link rel(final String value) {
+        checkNotFrozen();
         this.rel = value;
         return this;
     }
@@ -194,6 +230,7 @@ public class Link {
      * @return this link
      */
     Link href(final String value) {
+        checkNotFrozen();
         this.href = value;
         return this;
     }
@@ -206,6 +243,7 @@ public class Link {
      * @return this link
      */
     public Link hreflang(final String value) {
+        checkNotFrozen();
         this.hreflang = value;
         return this;
     }
@@ -218,6 +256,7 @@ public class Link {
      * @return this link
      */
     public Link profile(final String value) {
+        checkNotFrozen();
         this.profile = value;
         return this;
     }
@@ -230,6 +269,7 @@ public class Link {
      * @return this link
      */
     public Link deprecation(final String value) {
+        checkNotFrozen();
         this.deprecation = value;
         return this;
     }
@@ -242,6 +282,7 @@ public class Link {
      * @return this link
      */
     public Link name(final String value) {
+        checkNotFrozen();
         this.name = value;
         return this;
     }
@@ -254,6 +295,7 @@ public class Link {
      * @return this link
      */
     public Link templated(final Boolean value) {
+        checkNotFrozen();
         this.templated = value;
         return this;
     }
@@ -266,6 +308,7 @@ public class Link {
      * @return this link
      */
     public Link type(final String value) {
+        checkNotFrozen();
         this.type = value;
         return this;
     }
@@ -278,6 +321,7 @@ public class Link {
      * @return this link
      */
     public Link title(final String value) {
+        checkNotFrozen();
         this.title = value;
         return this;
     }
@@ -296,4 +340,39 @@ public class Link {
         return this;
     }
 
+    /**
+     * Creates an immutable copy of the link. Any attempt to modify the copy fails with an
+     * {@link UnsupportedOperationException}.
+     * 
+     * @return the immutable copy or this link if it is immutable already
+     */
+    public Link freeze() {
+        if (frozen) {
+            return this;
+        }
+        final Link copy = new Link(rel, href);
+        copy.hreflang = hreflang;
+        copy.profile = profile;
+        copy.deprecation = deprecation;
+        copy.name = name;
+        copy.templated = templated;
+        copy.type = type;
+        copy.title = title;
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * @return <code>true</code> if the link may not be modified
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Link " + rel + " is frozen");
+        }
+    }
+
 }
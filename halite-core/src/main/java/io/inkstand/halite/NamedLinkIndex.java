@@ -0,0 +1,80 @@
+package io.inkstand.halite;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the named links of a single relation. The index is updated on lookup with the links that have been added
+ * to the relation since the last lookup, so that links are indexed by the name they have after they have been built,
+ * and adding a link costs nothing. If a link has been renamed after it was indexed and the index finds a link whose
+ * name does not match anymore, the index is rebuilt. A link that has been renamed after it was indexed is however not
+ * found by its new name unless the index is rebuilt. <br>
+ * As for a linear search, the first link with a name is found if there are several links with the same name. The
+ * index is not thread-safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class NamedLinkIndex {
+
+    /**
+     * The number of links of a relation from which on named links are looked up using an index
+     */
+    static final int THRESHOLD = 16;
+
+    private final Map<String, Link> byName = new HashMap<>();
+
+    /**
+     * The number of links of the relation that have been indexed
+     */
+    private int indexed;
+
+    /**
+     * Finds the link with the specified name
+     *
+     * @param relLinks
+     *            all links of the relation
+     * @param name
+     *            the name of the link
+     * @return the link or <code>null</code> if no link with that name was found
+     */
+    Link get(final List<Link> relLinks, final String name) {
+        if (relLinks.size() != indexed) {
+            update(relLinks);
+        }
+        final Link link = byName.get(name);
+        if (link != null && !name.equals(link.getName())) {
+            rebuild(relLinks);
+            return byName.get(name);
+        }
+        return link;
+    }
+
+    /**
+     * Indexes the links that have been added since the last update.
+     *
+     * @param relLinks
+     *            all links of the relation
+     */
+    void update(final List<Link> relLinks) {
+        if (relLinks.size() < indexed) {
+            rebuild(relLinks);
+            return;
+        }
+        for (int i = indexed, size = relLinks.size(); i < size; i++) {
+            final Link link = relLinks.get(i);
+            final String name = link.getName();
+            if (name != null && !byName.containsKey(name)) {
+                byName.put(name, link);
+            }
+        }
+        indexed = relLinks.size();
+    }
+
+    private void rebuild(final List<Link> relLinks) {
+        byName.clear();
+        indexed = 0;
+        update(relLinks);
+    }
+}
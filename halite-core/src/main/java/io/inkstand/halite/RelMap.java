@@ -0,0 +1,457 @@
+package io.inkstand.halite;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact map of relations to the values associated with them. Most resources have only a few relations with a single
+ * value each, so the map keeps the relations and values in two parallel arrays and stores a single value of a relation
+ * directly instead of in a list. Only relations with more than one value get a list. The relations are looked up by a
+ * linear scan as long as the map is small and by a hash index once it grows past a threshold. Relations registered in
+ * the {@link RelRegistry} are stored as the registered instance, so that a lookup by id compares them by identity.
+ * Adding a relation does not register it. The relations are kept in the order they were added. <br>
+ * The values must not be lists themselves. The map is not thread-safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ * @param <V>
+ *            the type of the values
+ */
+final class RelMap<V> {
+
+    /**
+     * A list backing a relation that creates its values on access. Values are appended to the list itself, so that
+     * adding a value to the relation does not create the values of the list. Entries of the list are either values or
+     * sources from which the list creates a value.
+     *
+     * @param <V>
+     *            the type of the values
+     */
+    abstract static class LazyValues<V> extends AbstractList<V> {
+
+        /**
+         * Appends an entry to the list
+         *
+         * @param entry
+         *            a value or a source of a value
+         */
+        abstract void addEntry(Object entry);
+
+        /**
+         * @return a copy of the list that can be modified independently of this list
+         */
+        abstract LazyValues<V> copy();
+    }
+
+    /**
+     * The number of relations from which on the relations are looked up using a hash index
+     */
+    static final int INDEX_THRESHOLD = 8;
+
+    private static final String[] NO_RELS = new String[0];
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    /**
+     * The relations in the order they were added
+     */
+    private String[] rels = NO_RELS;
+
+    /**
+     * The value of the relation at the same position. The value is either a single value or a list of values.
+     */
+    private Object[] values = NO_VALUES;
+
+    private int size;
+
+    /**
+     * The position of each relation, only created once the map has more than {@link #INDEX_THRESHOLD} relations.
+     */
+    private Map<String, Integer> index;
+
+    /**
+     * @return the number of relations
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param rel
+     *            the relation to check
+     * @return <code>true</code> if there are values associated with the relation
+     */
+    boolean containsKey(final String rel) {
+        return indexOf(rel) >= 0;
+    }
+
+    /**
+     * Provides the values associated with the relation
+     *
+     * @param rel
+     *            the relation
+     * @return an unmodifiable list of the values, which is empty if no value is associated with the relation
+     */
+    List<V> get(final String rel) {
+        final int pos = indexOf(rel);
+        if (pos < 0) {
+            return Collections.emptyList();
+        }
+        return valuesAt(pos);
+    }
+
+    /**
+     * Provides the values associated with the relation of the specified id
+     *
+     * @param id
+     *            the id of the relation as assigned by the {@link RelRegistry}
+     * @return an unmodifiable list of the values, which is empty if no value is associated with the relation
+     */
+    List<V> get(final int id) {
+        final int pos = id == RelRegistry.NO_ID ? -1 : indexOf(id);
+        if (pos < 0) {
+            return Collections.emptyList();
+        }
+        return valuesAt(pos);
+    }
+
+    /**
+     * Provides the values of the relation at the specified position
+     *
+     * @param pos
+     *            the position of the relation, in the order the relations were added
+     * @return an unmodifiable list of the values
+     */
+    @SuppressWarnings("unchecked")
+    List<V> valuesAt(final int pos) {
+        final Object value = values[pos];
+        if (value instanceof List) {
+            return Collections.unmodifiableList((List<V>) value);
+        }
+        return Collections.singletonList((V) value);
+    }
+
+    /**
+     * Provides the number of values of the relation at the specified position
+     *
+     * @param pos
+     *            the position of the relation, in the order the relations were added
+     * @return the number of values
+     */
+    int sizeAt(final int pos) {
+        final Object value = values[pos];
+        if (value instanceof List) {
+            return ((List<?>) value).size();
+        }
+        return 1;
+    }
+
+    /**
+     * Provides a single value of the relation at the specified position
+     *
+     * @param pos
+     *            the position of the relation, in the order the relations were added
+     * @param index
+     *            the index of the value within the values of the relation
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    V valueAt(final int pos, final int index) {
+        final Object value = values[pos];
+        if (value instanceof List) {
+            return ((List<V>) value).get(index);
+        }
+        if (index != 0) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+        }
+        return (V) value;
+    }
+
+    /**
+     * Provides the value of the relation as it is stored by the map
+     *
+     * @param rel
+     *            the relation
+     * @return either the single value of the relation, the list of its values or <code>null</code> if the relation
+     *         has no values
+     */
+    Object stored(final String rel) {
+        final int pos = indexOf(rel);
+        return pos < 0 ? null : values[pos];
+    }
+
+    /**
+     * Provides the value of the relation at the specified position as it is stored by the map
+     *
+     * @param pos
+     *            the position of the relation, in the order the relations were added
+     * @return either the single value of the relation or the list of its values
+     */
+    Object storedAt(final int pos) {
+        return values[pos];
+    }
+
+    /**
+     * Provides the relation at the specified position
+     *
+     * @param pos
+     *            the position of the relation, in the order the relations were added
+     * @return the relation
+     */
+    String relAt(final int pos) {
+        return rels[pos];
+    }
+
+    /**
+     * Associates a value with the relation. A list that backs the relation is copied before the value is added.
+     *
+     * @param rel
+     *            the relation
+     * @param value
+     *            the value to add
+     */
+    @SuppressWarnings("unchecked")
+    void add(final String rel, final V value) {
+        final int pos = indexOf(rel);
+        if (pos < 0) {
+            append(rel, value);
+            return;
+        }
+        final Object current = values[pos];
+        final List<V> list;
+        if (current instanceof LazyValues) {
+            ((LazyValues<V>) current).addEntry(value);
+            return;
+        } else if (current instanceof ArrayList) {
+            list = (List<V>) current;
+        } else if (current instanceof List) {
+            list = new ArrayList<>((List<V>) current);
+            list.add(value);
+            values[pos] = list;
+            return;
+        } else {
+            list = new ArrayList<>(2);
+            list.add((V) current);
+            values[pos] = list;
+        }
+        list.add(value);
+    }
+
+    /**
+     * Associates the source of a value with the relation. The relation is backed by the lazy list, unless it is backed
+     * by a lazy list already, in which case the source is appended to that list. Values the relation has already are
+     * added to the lazy list before the source.
+     *
+     * @param rel
+     *            the relation
+     * @param source
+     *            the source of the value
+     * @param lazyValues
+     *            an empty lazy list that creates the values from the source
+     */
+    @SuppressWarnings("unchecked")
+    void addLazy(final String rel, final Object source, final LazyValues<V> lazyValues) {
+        final int pos = indexOf(rel);
+        if (pos < 0) {
+            lazyValues.addEntry(source);
+            append(rel, lazyValues);
+            return;
+        }
+        final Object current = values[pos];
+        if (current instanceof LazyValues) {
+            ((LazyValues<V>) current).addEntry(source);
+            return;
+        }
+        for (int i = 0, size = sizeAt(pos); i < size; i++) {
+            lazyValues.addEntry(valueAt(pos, i));
+        }
+        lazyValues.addEntry(source);
+        values[pos] = lazyValues;
+    }
+
+    /**
+     * Associates a list with a relation that has no values yet. The list is not copied but backs the relation.
+     *
+     * @param rel
+     *            the relation
+     * @param list
+     *            the list of values
+     * @throws IllegalStateException
+     *             if the relation has values already
+     */
+    void putList(final String rel, final List<? extends V> list) {
+        if (containsKey(rel)) {
+            throw new IllegalStateException("Relation " + rel + " has values already");
+        }
+        append(rel, list);
+    }
+
+    /**
+     * Removes all relations and values
+     */
+    void clear() {
+        rels = NO_RELS;
+        values = NO_VALUES;
+        size = 0;
+        index = null;
+    }
+
+    /**
+     * Creates a compact copy of the map with arrays that are no larger than the number of relations. Lists that were
+     * created by {@link #add(String, Object)} are copied into fixed-size lists, lazy lists are copied and all other
+     * lists are shared. As
+     * {@link #add(String, Object)} copies such lists before it modifies them, the copy and this map can be modified
+     * independently.
+     *
+     * @return the copy
+     */
+    RelMap<V> copy() {
+        final RelMap<V> copy = new RelMap<>();
+        if (size == 0) {
+            return copy;
+        }
+        copy.rels = Arrays.copyOf(rels, size);
+        copy.values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            final Object value = values[i];
+            if (value instanceof ArrayList) {
+                copy.values[i] = Arrays.asList(((List<?>) value).toArray());
+            } else if (value instanceof LazyValues) {
+                copy.values[i] = ((LazyValues<?>) value).copy();
+            } else {
+                copy.values[i] = value;
+            }
+        }
+        copy.size = size;
+        if (index != null) {
+            copy.index = new HashMap<>(index);
+        }
+        return copy;
+    }
+
+    /**
+     * @return an unmodifiable view on the relations in the order they were added
+     */
+    Set<String> keySet() {
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        return rels[next++];
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(final Object o) {
+                return o instanceof String && containsKey((String) o);
+            }
+        };
+    }
+
+    private void append(final String rel, final Object value) {
+        if (size == rels.length) {
+            final int capacity = size == 0 ? 2 : size * 2;
+            rels = Arrays.copyOf(rels, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        // the registered instance is stored so that lookups by id match by identity, unknown relations are not
+        // registered
+        final int id = RelRegistry.lookup(rel);
+        rels[size] = id == RelRegistry.NO_ID ? rel : RelRegistry.nameOf(id);
+        values[size] = value;
+        if (index != null) {
+            index.put(rel, size);
+        } else if (size == INDEX_THRESHOLD) {
+            index = new HashMap<>();
+            for (int i = 0; i <= size; i++) {
+                index.put(rels[i], i);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Determines the position of a relation
+     *
+     * @param rel
+     *            the relation
+     * @return the position or -1 if the map does not contain the relation
+     */
+    private int indexOf(final String rel) {
+        if (index != null) {
+            final Integer pos = index.get(rel);
+            return pos == null ? -1 : pos;
+        }
+        for (int i = 0; i < size; i++) {
+            final String current = rels[i];
+            if (current == rel || current != null && current.equals(rel)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines the position of a relation by its id. The registered instance of the relation is compared by
+     * identity, so that the relation is neither hashed nor compared character by character as long as it had been
+     * registered before it was added. Relations that were registered after they had been added are found by a second,
+     * comparing scan.
+     *
+     * @param id
+     *            the id of the relation
+     * @return the position or -1 if the map does not contain the relation
+     */
+    private int indexOf(final int id) {
+        final String key = RelRegistry.nameOf(id);
+        if (index != null) {
+            // the registered instance caches its hash code
+            final Integer pos = index.get(key);
+            return pos == null ? -1 : pos;
+        }
+        for (int i = 0; i < size; i++) {
+            if (rels[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (key.equals(rels[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,87 @@
+package io.inkstand.halite;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only list view on all values of a {@link RelMap}, concatenated in the order of the relations. The view does not
+ * copy the values, it reads them from the map on access, so it reflects all later changes of the map and creating or
+ * iterating it allocates nothing proportional to the number of values.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ * @param <V>
+ *            the type of the values
+ */
+abstract class RelMapView<V> extends AbstractList<V> {
+
+    /**
+     * @return the map to read the values from, may be <code>null</code> if the map has not been created yet
+     */
+    abstract RelMap<V> map();
+
+    @Override
+    public V get(final int index) {
+        final RelMap<V> map = map();
+        if (map != null && index >= 0) {
+            int remaining = index;
+            for (int pos = 0; pos < map.size(); pos++) {
+                final int size = map.sizeAt(pos);
+                if (remaining < size) {
+                    return map.valueAt(pos, remaining);
+                }
+                remaining -= size;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+
+    @Override
+    public int size() {
+        final RelMap<V> map = map();
+        if (map == null) {
+            return 0;
+        }
+        int size = 0;
+        for (int pos = 0; pos < map.size(); pos++) {
+            size += map.sizeAt(pos);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+
+            private final RelMap<V> map = map();
+            private int pos;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                if (map == null) {
+                    return false;
+                }
+                while (pos < map.size() && index >= map.sizeAt(pos)) {
+                    pos++;
+                    index = 0;
+                }
+                return pos < map.size();
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return map.valueAt(pos, index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
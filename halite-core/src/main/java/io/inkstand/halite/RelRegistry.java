@@ -0,0 +1,112 @@
+package io.inkstand.halite;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of link relations that assigns a small integer id to each relation. Resources store the id along with the
+ * relation so that relations are compared by id instead of by string, and writers may keep pre-encoded names per id.
+ * The relations defined in {@link HAL} are registered in advance, other relations only get an id if they are
+ * registered explicitly, typically by the application on startup. Resources only look relations up, so relations read
+ * from untrusted input never enter the registry. The registry never forgets a relation, therefore it is limited to
+ * {@link #MAX_SIZE} relations; relations registered beyond that limit get no id and are compared by string. <br>
+ * The registry is thread-safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public final class RelRegistry {
+
+    /**
+     * The maximum number of relations the registry assigns an id to
+     */
+    public static final int MAX_SIZE = 4096;
+
+    /**
+     * The id returned for relations that have no id
+     */
+    public static final int NO_ID = -1;
+
+    private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    /**
+     * The relations by id. The array is replaced when it grows and only modified while holding the lock of the
+     * registry. An id is published after the relation has been stored, so reading the relation of a known id needs no
+     * lock.
+     */
+    private static volatile String[] names = new String[16];
+
+    private static int size;
+
+    public static final int SELF = register(HAL.SELF);
+    public static final int NEXT = register(HAL.NEXT);
+    public static final int PREV = register(HAL.PREV);
+    public static final int FIRST = register(HAL.FIRST);
+    public static final int LAST = register(HAL.LAST);
+
+    private RelRegistry() {
+    }
+
+    /**
+     * Provides the id of the relation, registering the relation if it has not been registered yet.
+     *
+     * @param rel
+     *            the relation
+     * @return the id of the relation or {@link #NO_ID} if the relation is <code>null</code> or the registry is full
+     */
+    public static int register(final String rel) {
+        final int id = lookup(rel);
+        if (id != NO_ID || rel == null) {
+            return id;
+        }
+        synchronized (RelRegistry.class) {
+            final Integer existing = IDS.get(rel);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == MAX_SIZE) {
+                return NO_ID;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            final int newId = size++;
+            names[newId] = rel;
+            IDS.put(rel, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Provides the id of the relation without registering it.
+     *
+     * @param rel
+     *            the relation
+     * @return the id of the relation or {@link #NO_ID} if the relation is not registered
+     */
+    public static int lookup(final String rel) {
+        if (rel == null) {
+            return NO_ID;
+        }
+        final Integer id = IDS.get(rel);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Provides the relation of the id. The same string instance is returned for all calls with the same id.
+     *
+     * @param id
+     *            the id of a registered relation
+     * @return the relation
+     * @throws IllegalArgumentException
+     *             if no relation is registered with the id
+     */
+    public static String nameOf(final int id) {
+        final String[] current = names;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("No relation registered with id " + id);
+        }
+        return current[id];
+    }
+}
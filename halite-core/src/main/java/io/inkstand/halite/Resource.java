@@ -1,13 +1,24 @@
 package io.inkstand.halite;
 
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -49,9 +60,21 @@ import javax.xml.bind.annotation.XmlType;
         propOrder = { "embedded", "links" })
 public class Resource {
 
-    private final Map<String, List<Resource>> embedded;
+    /**
+     * The embedded resources per relation. Created on first use, as most resources do not embed other resources.
+     */
+    private RelMap<Resource> embedded;
+
+    /**
+     * The links per relation
+     */
+    private RelMap<Link> links;
 
-    private final Map<String, List<Link>> links;
+    /**
+     * The index of the named links per relation. Only relations with many links are indexed, the index of a relation
+     * is created when a named link of the relation is looked up.
+     */
+    private Map<String, NamedLinkIndex> namedLinks;
 
     /**
      * This property is used to assign a resource to a specific relation. It is used only for unmarshalling from XML to
@@ -60,21 +83,49 @@ public class Resource {
     private String rel;
 
     /**
-     * The uri of the resource
+     * The uri of the resource, parsed from the self link when it is first requested
      */
     private URI uri;
 
+    /**
+     * Flag to indicate the resource is an immutable snapshot
+     */
+    private boolean frozen;
+
     /**
      * The factory to create objects (i.e. links)
      */
     private static final ObjectFactory FACTORY = new ObjectFactory();
 
+    /**
+     * The instance fields declared by the subclasses of the Resource, which are copied by the default {@link #copy()}
+     */
+    private static final ClassValue<Field[]> DECLARED_FIELDS = new ClassValue<Field[]>() {
+
+        @Override
+        protected Field[] computeValue(final Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != Resource.class; current = current.getSuperclass()) {
+                for (final Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+            final Field[] result = fields.toArray(new Field[fields.size()]);
+            AccessibleObject.setAccessible(result, true);
+            return result;
+        }
+    };
+
     /**
      * Public constructor with URI of the resource itself. A self-relation link is automatically created for the
-     * resource
+     * resource. The uri is validated when the resource is constructed.
      * 
      * @param uri
      *            the unique identifier of the resource
+     * @throws RuntimeException
+     *             if the uri is no valid URI
      */
     public Resource(final String uri) {
         this();
@@ -86,8 +137,23 @@ public class Resource {
      * Private constructor for XML Binding
      */
     protected Resource() {
-        this.links = new HashMap<String, List<Link>>();
-        this.embedded = new HashMap<String, List<Resource>>();
+        this.links = new RelMap<>();
+    }
+
+    /**
+     * Copy constructor for {@link #copy()}. The copy shares the links, embedded resources and indexes with the source,
+     * which are replaced by the callers of {@link #copy()} as needed.
+     * 
+     * @param source
+     *            the resource to copy
+     */
+    protected Resource(final Resource source) {
+        this.links = source.links;
+        this.embedded = source.embedded;
+        this.namedLinks = source.namedLinks;
+        this.rel = source.rel;
+        this.uri = source.uri;
+        this.frozen = source.frozen;
     }
 
     // TODO add representation (json, html) support
@@ -113,20 +179,46 @@ public class Resource {
      *            the rel to set
      */
     void setRel(final String rel) {
+        if (frozen && !sameRel(this.rel, rel)) {
+            throw new UnsupportedOperationException("Resource is frozen");
+        }
         this.rel = rel;
     }
 
     /**
+     * Assigns the relation to the resource. A frozen resource is not modified but a snapshot with the relation is
+     * created instead, which shares links and embedded resources with the frozen resource.
+     * 
+     * @param rel
+     *            the relation to assign
+     * @return this resource or the snapshot with the relation
+     */
+    Resource withRel(final String rel) {
+        if (frozen) {
+            return freeze(rel);
+        }
+        this.rel = rel;
+        return this;
+    }
+
+    /**
+     * Provides the uri of the resource, which is the href of the self link. The uri of a resource that was not
+     * constructed with its uri, i.e. by a reader, is parsed from the href on the first call and the result is kept for
+     * later calls.
+     * 
      * @return the uri
      */
     public URI getURI() {
         if (uri == null) {
-            final Link self = getLink("self");
-            if (self != null) {
-                uri = toUri(self.getHref());
-            } else {
+            final Link self = getLink(RelRegistry.SELF);
+            if (self == null) {
                 throw new IllegalStateException("The resource has no self-related link set");
             }
+            final URI selfUri = toUri(self.getHref());
+            if (!frozen) {
+                uri = selfUri;
+            }
+            return selfUri;
         }
         return uri;
     }
@@ -147,17 +239,34 @@ public class Resource {
     }
 
     /**
-     * Gets the list of all embedded resources
+     * Gets the list of all embedded resources. The list is a read-only view on the embedded resources of all relations
+     * that reflects later changes of the resource. The only modifications supported are adding a resource, which embeds
+     * it under its rel, and clearing the list, which removes all embedded resources. Both are used by JAXB when
+     * unmarshalling a resource.
      * 
-     * @return
+     * @return a view on all embedded resources
      */
     @XmlElement(name = "embedded")
     public List<Resource> getEmbedded() {
-        final List<Resource> result = new ArrayList<>();
-        for (final List<Resource> resources : this.embedded.values()) {
-            result.addAll(resources);
-        }
-        return result;
+        return new RelMapView<Resource>() {
+
+            @Override
+            RelMap<Resource> map() {
+                return embedded;
+            }
+
+            @Override
+            public boolean add(final Resource resource) {
+                embed(resource);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                checkNotFrozen();
+                embedded = null;
+            }
+        };
     }
 
     /**
@@ -166,6 +275,9 @@ public class Resource {
      * @return a set of all embedded rels
      */
     public Set<String> getEmbeddedRels() {
+        if (embedded == null) {
+            return Collections.emptySet();
+        }
         return embedded.keySet();
     }
 
@@ -177,10 +289,43 @@ public class Resource {
      * @return a list of all resources that are associated with the relation
      */
     public List<Resource> getEmbedded(final String rel) {
-        if (embedded.containsKey(rel)) {
-            return Collections.unmodifiableList(embedded.get(rel));
+        if (embedded == null) {
+            return Collections.emptyList();
+        }
+        return embedded.get(rel);
+    }
+
+    /**
+     * Retrieves the embedded resource of the relation with the specified id.
+     * 
+     * @param relId
+     *            the id of the relation as assigned by the {@link RelRegistry}
+     * @return a list of all resources that are associated with the relation
+     */
+    public List<Resource> getEmbedded(final int relId) {
+        if (embedded == null) {
+            return Collections.emptyList();
+        }
+        return embedded.get(relId);
+    }
+
+    /**
+     * Iterates over the embedded resources of the specified relation. Unlike {@link #getEmbedded(String)}, the
+     * resources of a streamed relation are taken directly from their source and are not kept by the resource, see
+     * {@link #embedStream(String, Iterable)}. Writers should use this method to write large relations.
+     * 
+     * @param rel
+     *            the relation associated with the resources
+     * @return an iterator over the resources of the relation
+     * @throws IllegalStateException
+     *             if the relation is streamed from an iterator that has been consumed already
+     */
+    public Iterator<Resource> iterateEmbedded(final String rel) {
+        final Object stored = embedded == null ? null : embedded.stored(rel);
+        if (stored instanceof StreamedList) {
+            return ((StreamedList) stored).resources();
         }
-        return Collections.emptyList();
+        return getEmbedded(rel).iterator();
     }
 
     /**
@@ -190,8 +335,11 @@ public class Resource {
      *            the new links to be set
      */
     void setEmbedded(final List<Resource> newResources) {
-        this.embedded.clear();
-        embed(newResources.toArray(new Resource[] {}));
+        // the new resources may be a view on the current resources
+        final Resource[] resources = newResources.toArray(new Resource[] {});
+        checkNotFrozen();
+        this.embedded = null;
+        embed(resources);
     }
 
     /**
@@ -199,23 +347,201 @@ public class Resource {
      * @param rel
      *            the relation that all to be added resources will be associated to. If any of the resources has
      * @param resource
-     *            the resource(s) to be embedded under the given relation to this resource
+     *            the resource(s) to be embedded under the given relation to this resource. A frozen resource that is
+     *            associated with a different relation is embedded as snapshot with the given relation.
      * @return this resource
      */
     public Resource embed(final String rel, final Resource... resource) {
         // TODO check if non-resource should be embeddable as well
-
-        if (!this.embedded.containsKey(rel)) {
-            this.embedded.put(rel, new ArrayList<Resource>());
-        }
-        final List<Resource> relRes = this.embedded.get(rel);
+        checkNotFrozen();
         for (final Resource res : resource) {
-            res.setRel(rel);
-            relRes.add(res);
+            embedded().add(rel, res.withRel(rel));
         }
         return this;
     }
 
+    /**
+     * Embeds the resources of the list under the given relation. Unlike {@link #embed(String, Resource...)}, the list
+     * is not copied but backs the relation, so that a list that creates its resources on access is only accessed when
+     * the embedded resources are retrieved. The relation is assigned to each resource when it is retrieved. If the
+     * relation already contains resources, the resources of the list are added to them.
+     * 
+     * @param rel
+     *            the relation that all resources of the list will be associated to
+     * @param resources
+     *            the resources to be embedded. The list must not be modified afterwards.
+     * @return this resource
+     */
+    public Resource embedList(final String rel, final List<? extends Resource> resources) {
+        checkNotFrozen();
+        final RelMap<Resource> relMap = embedded();
+        if (relMap.containsKey(rel)) {
+            for (final Resource res : new EmbeddedList(rel, resources)) {
+                relMap.add(rel, res);
+            }
+        } else {
+            relMap.putList(rel, new EmbeddedList(rel, resources));
+        }
+        return this;
+    }
+
+    /**
+     * Embeds a resource under the given relation that is created when it is retrieved for the first time. The writers
+     * retrieve the embedded resources of a relation only when they write the relation, so a deferred resource of a
+     * relation that is not written is never created. The number of embedded resources of the relation is known without
+     * creating them. The source is called at most once, the created resource is kept. Freezing the resource creates
+     * all deferred resources.
+     * 
+     * @param rel
+     *            the relation the resource is associated to
+     * @param resource
+     *            the source of the resource. If it fails or returns <code>null</code>, retrieving the resource fails
+     *            with an {@link IllegalStateException}
+     * @return this resource
+     */
+    public Resource embedLazy(final String rel, final Callable<? extends Resource> resource) {
+        checkNotFrozen();
+        embedded().addLazy(rel, resource, new DeferredList(rel));
+        return this;
+    }
+
+    /**
+     * Embeds the resources of the iterable under the given relation without retrieving them. The resources are
+     * retrieved from the iterable each time the relation is iterated by {@link #iterateEmbedded(String)}, which the
+     * writers do when they write the relation, and are not kept by the resource. This way a relation of any size can be
+     * written without holding all of its resources in memory. Retrieving the resources as list, i.e. by
+     * {@link #getEmbedded(String)}, collects all of them into a list however. Resources embedded under the same
+     * relation afterwards follow the streamed resources.
+     * 
+     * @param rel
+     *            the relation that all resources of the iterable will be associated to
+     * @param resources
+     *            the source of the resources
+     * @return this resource
+     */
+    public Resource embedStream(final String rel, final Iterable<? extends Resource> resources) {
+        checkNotFrozen();
+        embedded().addLazy(rel, resources, new StreamedList(rel));
+        return this;
+    }
+
+    /**
+     * Embeds the resources of the iterator under the given relation without retrieving them. As the iterator can be
+     * consumed only once, the relation can be iterated only once, unless it is retrieved as list before it is
+     * iterated.
+     * 
+     * @param rel
+     *            the relation that all resources of the iterator will be associated to
+     * @param resources
+     *            the source of the resources
+     * @return this resource
+     * @see #embedStream(String, Iterable)
+     */
+    public Resource embedStream(final String rel, final Iterator<? extends Resource> resources) {
+        return embedStream(rel, new StreamedList.OnceIterable(rel, resources));
+    }
+
+    /**
+     * Embeds the result of a future under the given relation. The resource takes the position in the relation at which
+     * it was embedded, regardless of when the future completes. Retrieving the resource waits for the future to
+     * complete, so when the futures of several embedded resources run in parallel, writing the resource takes as long
+     * as the slowest future. Use {@link #awaitEmbedded(long, TimeUnit)} to wait for all futures of the resource tree
+     * with a common timeout.
+     * 
+     * @param rel
+     *            the relation the resource is associated to
+     * @param resource
+     *            the future result of the resource. If the future fails or its result is <code>null</code>, retrieving
+     *            the resource fails with an {@link IllegalStateException}
+     * @return this resource
+     */
+    public Resource embedAsync(final String rel, final Future<? extends Resource> resource) {
+        checkNotFrozen();
+        embedded().addLazy(rel, resource, new DeferredList(rel));
+        return this;
+    }
+
+    /**
+     * Embeds a resource under the given relation that is created asynchronously by the executor. Any
+     * {@link ExecutorService} may be used, such as an executor that runs each task in a thread of its own, which
+     * allows to assemble resources from many blocking backend calls in parallel.
+     * 
+     * @param rel
+     *            the relation the resource is associated to
+     * @param resource
+     *            the task that creates the resource
+     * @param executor
+     *            the executor to run the task
+     * @return this resource
+     * @see #embedAsync(String, Future)
+     */
+    public Resource embedAsync(final String rel, final Callable<? extends Resource> resource,
+            final ExecutorService executor) {
+        checkNotFrozen();
+        return embedAsync(rel, executor.submit(resource));
+    }
+
+    /**
+     * Waits until the results of all futures embedded in the resource tree are available, including the futures
+     * embedded in the results of other futures. All futures share the same timeout, so when they run in parallel, the
+     * method waits as long as the slowest of them. Deferred resources created on access are not created by this
+     * method. The resources of lists that back relations and of streamed relations are not inspected.
+     * 
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return this resource
+     * @throws InterruptedException
+     *             if the current thread was interrupted while waiting
+     * @throws ExecutionException
+     *             if one of the futures failed
+     * @throws TimeoutException
+     *             if not all futures completed before the timeout elapsed
+     */
+    public Resource awaitEmbedded(final long timeout, final TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        awaitEmbedded(System.nanoTime() + unit.toNanos(timeout));
+        return this;
+    }
+
+    /**
+     * Waits until the results of all futures embedded in the resource tree are available
+     * 
+     * @param deadline
+     *            the deadline as {@link System#nanoTime()}
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @throws TimeoutException
+     */
+    void awaitEmbedded(final long deadline) throws InterruptedException, ExecutionException, TimeoutException {
+        if (embedded == null) {
+            return;
+        }
+        for (int pos = 0; pos < embedded.size(); pos++) {
+            final Object stored = embedded.storedAt(pos);
+            if (stored instanceof DeferredList) {
+                ((DeferredList) stored).await(deadline);
+            } else if (stored instanceof Resource) {
+                ((Resource) stored).awaitEmbedded(deadline);
+            } else if (!(stored instanceof EmbeddedList) && !(stored instanceof StreamedList)) {
+                for (final Object resource : (List<?>) stored) {
+                    ((Resource) resource).awaitEmbedded(deadline);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the map of embedded resources, which is created if it does not exist yet
+     */
+    private RelMap<Resource> embedded() {
+        if (this.embedded == null) {
+            this.embedded = new RelMap<>();
+        }
+        return this.embedded;
+    }
+
     /**
      * Embedds one or more resources to this resource.
      * 
@@ -224,32 +550,47 @@ public class Resource {
      * @return this resource
      */
     private Resource embed(final Resource... resource) {
+        checkNotFrozen();
         for (final Resource res : resource) {
             if (res.getRel() == null) {
                 continue;
             }
-            final String relation = res.getRel();
-            if (!this.embedded.containsKey(relation)) {
-                this.embedded.put(relation, new ArrayList<Resource>());
-            }
-            this.embedded.get(relation).add(res);
+            embedded().add(res.getRel(), res);
         }
 
         return this;
     }
 
     /**
-     * Returns all the links of the resource in a list.
+     * Returns all the links of the resource in a list. The list is a read-only view on the links of all relations that
+     * reflects later changes of the resource. The only modifications supported are adding a link and clearing the list,
+     * which removes all links. Both are used by JAXB when unmarshalling a resource.
      * 
-     * @return the list of links
+     * @return a view on all links
      */
     @XmlElement(name = "link")
     public List<Link> getLinks() {
-        final List<Link> result = new ArrayList<>();
-        for (final List<Link> relLinks : this.links.values()) {
-            result.addAll(relLinks);
-        }
-        return result;
+        return new RelMapView<Link>() {
+
+            @Override
+            RelMap<Link> map() {
+                return links;
+            }
+
+            @Override
+            public boolean add(final Link link) {
+                addLink(link);
+                return true;
+            }
+
+            @Override
+            public void clear() {
+                checkNotFrozen();
+                links.clear();
+                namedLinks = null;
+                uri = null;
+            }
+        };
     }
 
     /**
@@ -268,8 +609,13 @@ public class Resource {
      *            the new links to be set
      */
     void setLinks(final List<Link> newLinks) {
+        // the new links may be a view on the current links
+        final Link[] copy = newLinks.toArray(new Link[] {});
+        checkNotFrozen();
         this.links.clear();
-        addLink(newLinks.toArray(new Link[] {}));
+        this.namedLinks = null;
+        this.uri = null;
+        addLink(copy);
     }
 
     /**
@@ -281,14 +627,24 @@ public class Resource {
      */
     public List<Link> getLinks(final String rel) {
 
-        if (links.containsKey(rel)) {
-            return Collections.unmodifiableList(links.get(rel));
-        }
-        return Collections.emptyList();
+        return links.get(rel);
+    }
+
+    /**
+     * Retrieves all links of the relation with the specified id from the resource
+     * 
+     * @param relId
+     *            the id of the relation as assigned by the {@link RelRegistry}
+     * @return a list of all links with the same relation
+     */
+    public List<Link> getLinks(final int relId) {
+        return links.get(relId);
     }
 
     /**
-     * Retrieves a link of a specific relation and a specific name, the secondary identifier
+     * Retrieves a link of a specific relation and a specific name, the secondary identifier. If the relation has many
+     * links, the link is looked up using an index of the link names that is created on the first lookup. The index
+     * picks up links added later, but links should not be renamed after they have been looked up.
      * 
      * @param rel
      *            the relation of the link
@@ -297,11 +653,14 @@ public class Resource {
      * @return the link or <code>null</code> if no link was found
      */
     public Link getLink(final String rel, final String name) {
-
-        if (!links.containsKey(rel)) {
-            return null;
+        final List<Link> relLinks = links.get(rel);
+        if (relLinks.size() >= NamedLinkIndex.THRESHOLD) {
+            final NamedLinkIndex index = namedLinkIndex(rel);
+            if (index != null) {
+                return index.get(relLinks, name);
+            }
         }
-        for (final Link link : links.get(rel)) {
+        for (final Link link : relLinks) {
             if (name.equals(link.getName())) {
                 return link;
             }
@@ -319,11 +678,46 @@ public class Resource {
      * @return the link or <code>null</code> if no link was found, or no link with the rel and no name was found.
      */
     public Link getLink(final String rel) {
+        return unnamed(links.get(rel));
+    }
 
-        if (!links.containsKey(rel)) {
-            return null;
+    /**
+     * Retrieves the link of the relation with the specified id that has no name. If there are more than one link with
+     * this rel and no name the first match is returned.
+     * 
+     * @param relId
+     *            the id of the relation as assigned by the {@link RelRegistry}
+     * @return the link or <code>null</code> if no link with the rel and no name was found.
+     */
+    public Link getLink(final int relId) {
+        return unnamed(links.get(relId));
+    }
+
+    /**
+     * Provides the index of the named links of the relation. A frozen resource is not modified, its indexes are created
+     * when it is frozen.
+     * 
+     * @param rel
+     *            the relation
+     * @return the index or <code>null</code> if the resource is frozen and has no index for the relation
+     */
+    private NamedLinkIndex namedLinkIndex(final String rel) {
+        if (frozen) {
+            return namedLinks == null ? null : namedLinks.get(rel);
+        }
+        if (namedLinks == null) {
+            namedLinks = new HashMap<>();
         }
-        for (final Link link : links.get(rel)) {
+        NamedLinkIndex index = namedLinks.get(rel);
+        if (index == null) {
+            index = new NamedLinkIndex();
+            namedLinks.put(rel, index);
+        }
+        return index;
+    }
+
+    private static Link unnamed(final List<Link> relLinks) {
+        for (final Link link : relLinks) {
             if (link.getName() == null) {
                 return link;
             }
@@ -339,12 +733,9 @@ public class Resource {
      * @return this resource
      */
     public Resource addLink(final Link... newLink) {
+        checkNotFrozen();
         for (final Link link : newLink) {
-            final String relation = link.getRel();
-            if (!this.links.containsKey(relation)) {
-                this.links.put(relation, new ArrayList<Link>());
-            }
-            this.links.get(relation).add(link);
+            this.links.add(link.getRel(), link);
         }
 
         return this;
@@ -362,9 +753,199 @@ public class Resource {
      * 
      */
     public Link addLink(final String rel, final String href) {
+        checkNotFrozen();
         final Link link = FACTORY.createLink(rel, href);
         addLink(link);
         return link;
     }
 
+    /**
+     * Creates an immutable snapshot of the resource. The links and embedded resources are copied recursively into
+     * frozen links and resources which are stored compactly. Any attempt to modify the snapshot, its links or its
+     * embedded resources fails with an {@link UnsupportedOperationException}. As the snapshot is not modified after it
+     * has been created, neither by its methods nor by the writers, it can be read by any number of threads without
+     * locking once it has been published safely, i.e. through a final or volatile field or a concurrent collection.
+     * <br>
+     * The snapshot is created by {@link #copy()}, which copies the fields declared by subclasses shallowly unless it is
+     * overridden.
+     * 
+     * @return the immutable snapshot or this resource if it is frozen already
+     * @throws UnsupportedOperationException
+     *             if the resource is of a subclass that neither overrides {@link #copy()} nor declares a no-arg
+     *             constructor
+     */
+    public Resource freeze() {
+        return freeze(rel);
+    }
+
+    /**
+     * @return <code>true</code> if the resource is an immutable snapshot
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Creates a modifiable copy of the resource that can be used to derive a new resource from a frozen one. The copy
+     * is cheap, as it shares the lists of links and embedded resources with this resource until a relation is modified.
+     * The links and embedded resources of a frozen resource remain frozen in the copy. To modify one of them, it has to
+     * be replaced with a modified copy of its own. The copy is created by {@link #copy()}.
+     * 
+     * @return the modifiable copy
+     * @throws UnsupportedOperationException
+     *             if the resource is of a subclass that neither overrides {@link #copy()} nor declares a no-arg
+     *             constructor
+     */
+    public Resource toBuilder() {
+        final Resource builder = copy();
+        builder.links = links.copy();
+        builder.embedded = embedded == null ? null : embedded.copy();
+        builder.namedLinks = null;
+        builder.frozen = false;
+        return builder;
+    }
+
+    /**
+     * Creates a frozen snapshot of the resource with the specified relation
+     * 
+     * @param rel
+     *            the relation of the snapshot
+     * @return the snapshot or this resource if it is frozen already and has the relation
+     */
+    private Resource freeze(final String rel) {
+        if (frozen && sameRel(this.rel, rel)) {
+            return this;
+        }
+        final Resource snapshot = copy();
+        if (!frozen) {
+            snapshot.links = freezeLinks();
+            snapshot.namedLinks = snapshot.indexNamedLinks();
+            snapshot.embedded = freezeEmbedded();
+            if (snapshot.uri == null) {
+                snapshot.uri = selfUri();
+            }
+        }
+        snapshot.rel = rel;
+        snapshot.frozen = true;
+        return snapshot;
+    }
+
+    private RelMap<Link> freezeLinks() {
+        final RelMap<Link> frozenLinks = new RelMap<>();
+        for (int pos = 0; pos < links.size(); pos++) {
+            for (int i = 0, size = links.sizeAt(pos); i < size; i++) {
+                frozenLinks.add(links.relAt(pos), links.valueAt(pos, i).freeze());
+            }
+        }
+        return frozenLinks.copy();
+    }
+
+    /**
+     * @return the complete indexes of the named links of all relations with many links or <code>null</code> if there
+     *         is no such relation
+     */
+    private Map<String, NamedLinkIndex> indexNamedLinks() {
+        Map<String, NamedLinkIndex> indexes = null;
+        for (int pos = 0; pos < links.size(); pos++) {
+            if (links.sizeAt(pos) >= NamedLinkIndex.THRESHOLD) {
+                if (indexes == null) {
+                    indexes = new HashMap<>();
+                }
+                final NamedLinkIndex index = new NamedLinkIndex();
+                index.update(links.valuesAt(pos));
+                indexes.put(links.relAt(pos), index);
+            }
+        }
+        return indexes;
+    }
+
+    private RelMap<Resource> freezeEmbedded() {
+        if (embedded == null || embedded.size() == 0) {
+            return null;
+        }
+        final RelMap<Resource> frozenEmbedded = new RelMap<>();
+        for (int pos = 0; pos < embedded.size(); pos++) {
+            final String embeddedRel = embedded.relAt(pos);
+            for (int i = 0, size = embedded.sizeAt(pos); i < size; i++) {
+                frozenEmbedded.add(embeddedRel, embedded.valueAt(pos, i).freeze(embeddedRel));
+            }
+        }
+        return frozenEmbedded.copy();
+    }
+
+    /**
+     * @return the uri of the unnamed self link or <code>null</code> if there is no such link or its href is no valid
+     *         URI
+     */
+    private URI selfUri() {
+        final Link self = getLink(RelRegistry.SELF);
+        if (self == null) {
+            return null;
+        }
+        try {
+            return new URI(self.getHref());
+        } catch (final URISyntaxException e) { // NOSONAR
+            return null;
+        }
+    }
+
+    /**
+     * Creates a copy of the resource for {@link #freeze()} and {@link #toBuilder()}. The links and embedded resources
+     * are handled by the callers, the copy only has to carry them over using the copy constructor
+     * {@link #Resource(Resource)}. <br>
+     * By default, the copy of a subclass is created with its no-arg constructor, regardless of its visibility, as it
+     * is declared by JAXB models, and the fields declared by the subclass and its supertypes are copied shallowly.
+     * Subclasses that hold mutable values, such as collections or beans, should override the method to create an
+     * instance of their own type using their copy constructor and copy these values deeply, as they would be shared by
+     * the resource and its snapshot otherwise.
+     * 
+     * @return the copy of the resource
+     * @throws UnsupportedOperationException
+     *             if the resource is of a subclass that does not override the method and has no no-arg constructor
+     */
+    protected Resource copy() {
+        if (getClass() == Resource.class) {
+            return new Resource(this);
+        }
+        final Resource copy = newInstance(getClass());
+        for (final Field field : DECLARED_FIELDS.get(getClass())) {
+            try {
+                field.set(copy, field.get(this));
+            } catch (final IllegalAccessException e) {
+                throw new UnsupportedOperationException("Could not copy field " + field.getName() + " of "
+                        + getClass().getName() + ", override copy()", e);
+            }
+        }
+        copy.links = links;
+        copy.embedded = embedded;
+        copy.namedLinks = namedLinks;
+        copy.rel = rel;
+        copy.uri = uri;
+        copy.frozen = frozen;
+        return copy;
+    }
+
+    private static Resource newInstance(final Class<? extends Resource> type) {
+        try {
+            final Constructor<? extends Resource> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (final NoSuchMethodException e) {
+            throw new UnsupportedOperationException(type.getName()
+                    + " does not support copies, declare a no-arg constructor or override copy()", e);
+        } catch (final ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Could not create a copy of " + type.getName(), e);
+        }
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Resource is frozen");
+        }
+    }
+
+    private static boolean sameRel(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
 }
@@ -0,0 +1,192 @@
+package io.inkstand.halite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * List of embedded resources of a relation that are taken from one or more sources when the relation is written. The
+ * resources of a source are not kept by the list when they are streamed using {@link #resources()}, so that a writer
+ * can write any number of resources without holding them in memory. Only when the list is accessed as {@link List}, for
+ * example by JAXB, the resources are collected into a buffer. <br>
+ * A source is either an {@link Iterable}, a single {@link Resource} or a deferred resource.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class StreamedList extends RelMap.LazyValues<Resource> {
+
+    /**
+     * An iterable that provides its iterator only once
+     */
+    static final class OnceIterable implements Iterable<Resource> {
+
+        private final String rel;
+
+        private Iterator<? extends Resource> iterator;
+
+        OnceIterable(final String rel, final Iterator<? extends Resource> iterator) {
+            this.rel = rel;
+            this.iterator = iterator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterator<Resource> iterator() {
+            if (iterator == null) {
+                throw new IllegalStateException("The embedded resources of relation " + rel
+                        + " have been streamed already");
+            }
+            final Iterator<? extends Resource> result = iterator;
+            iterator = null;
+            return (Iterator<Resource>) result;
+        }
+    }
+
+    private final String rel;
+
+    /**
+     * The sources of the resources, each is either an {@link Iterable} or a {@link Resource}
+     */
+    private Object[] sources;
+
+    private int count;
+
+    /**
+     * The resources of all sources, only collected if the list is accessed as list
+     */
+    private List<Resource> buffer;
+
+    StreamedList(final String rel) {
+        this(rel, new Object[2], 0);
+    }
+
+    private StreamedList(final String rel, final Object[] sources, final int count) {
+        this.rel = rel;
+        this.sources = sources;
+        this.count = count;
+    }
+
+    /**
+     * Provides an iterator over the resources of all sources. Unless the resources have been collected already, the
+     * iterator takes them directly from the sources without keeping them.
+     *
+     * @return the iterator
+     */
+    Iterator<Resource> resources() {
+        if (buffer != null) {
+            return buffer.iterator();
+        }
+        return new Iterator<Resource>() {
+
+            private int next;
+
+            private Iterator<? extends Resource> current = Collections.emptyIterator();
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (next == count) {
+                        return false;
+                    }
+                    final Object source = sources[next++];
+                    if (source instanceof Resource) {
+                        current = Collections.singletonList((Resource) source).iterator();
+                    } else {
+                        current = ((Iterable<? extends Resource>) source).iterator();
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Resource next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next().withRel(rel);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Resource get(final int index) {
+        return collect().get(index);
+    }
+
+    @Override
+    public int size() {
+        return collect().size();
+    }
+
+    @Override
+    public Iterator<Resource> iterator() {
+        return Collections.unmodifiableList(collect()).iterator();
+    }
+
+    @Override
+    void addEntry(final Object entry) {
+        if (buffer != null) {
+            // the sources have been consumed already
+            final Iterator<Resource> resources = sourceOf(entry).iterator();
+            while (resources.hasNext()) {
+                buffer.add(resources.next().withRel(rel));
+            }
+            return;
+        }
+        if (count == sources.length) {
+            sources = Arrays.copyOf(sources, count * 2);
+        }
+        sources[count++] = entry instanceof Resource ? entry : sourceOf(entry);
+    }
+
+    @Override
+    StreamedList copy() {
+        final StreamedList copy = new StreamedList(rel, Arrays.copyOf(sources, Math.max(count, 2)), count);
+        if (buffer != null) {
+            copy.buffer = new ArrayList<>(buffer);
+        }
+        return copy;
+    }
+
+    /**
+     * @param entry
+     *            an entry of the list
+     * @return the iterable providing the resource(s) of the entry
+     */
+    @SuppressWarnings("unchecked")
+    private Iterable<Resource> sourceOf(final Object entry) {
+        if (entry instanceof Iterable) {
+            return (Iterable<Resource>) entry;
+        }
+        if (entry instanceof Callable || entry instanceof Future) {
+            final DeferredList deferred = new DeferredList(rel);
+            deferred.addEntry(entry);
+            return deferred;
+        }
+        return Collections.singletonList((Resource) entry);
+    }
+
+    private List<Resource> collect() {
+        if (buffer == null) {
+            final List<Resource> resources = new ArrayList<>();
+            final Iterator<Resource> it = resources();
+            while (it.hasNext()) {
+                resources.add(it.next());
+            }
+            buffer = resources;
+        }
+        return buffer;
+    }
+}
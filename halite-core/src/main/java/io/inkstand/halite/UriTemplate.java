@@ -0,0 +1,527 @@
+package io.inkstand.halite;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A URI Template as defined by <a href="https://tools.ietf.org/html/rfc6570">RFC 6570</a>, supporting all four levels
+ * of the specification. The template is parsed once into an immutable compiled form of literals and expressions that
+ * can be expanded any number of times, concurrently by several threads. The expansion writes directly to a
+ * {@link StringBuilder} and does not create intermediate strings for the values, apart from calling
+ * {@link Object#toString()} on values that are no strings. <br>
+ * The values of the variables may be
+ * <ul>
+ * <li>any object, which is expanded using its string representation</li>
+ * <li>a {@link Collection}, which is expanded as list</li>
+ * <li>a {@link Map}, which is expanded as associative array</li>
+ * </ul>
+ * A variable whose value is <code>null</code>, an empty collection or an empty map is undefined. Characters that are
+ * not allowed in a literal of the template are percent-encoded on expansion.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public final class UriTemplate {
+
+    /**
+     * The maximum length of a prefix modifier
+     */
+    private static final int MAX_PREFIX = 9999;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    private static final boolean[] RESERVED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+            UNRESERVED[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (final char c : "-._~".toCharArray()) {
+            UNRESERVED[c] = true;
+        }
+        for (final char c : ":/?#[]@!$&'()*+,;=".toCharArray()) {
+            RESERVED[c] = true;
+        }
+    }
+
+    /**
+     * The operators of the expressions with the expansion behavior as specified in Appendix A of RFC 6570
+     */
+    private enum Operator {
+        SIMPLE("", ",", false, "", false),
+        RESERVED("", ",", false, "", true),
+        FRAGMENT("#", ",", false, "", true),
+        LABEL(".", ".", false, "", false),
+        PATH("/", "/", false, "", false),
+        PATH_PARAMETER(";", ";", true, "", false),
+        QUERY("?", "&", true, "=", false),
+        QUERY_CONTINUATION("&", "&", true, "=", false);
+
+        final String first;
+        final String separator;
+        final boolean named;
+        final String ifEmpty;
+        final boolean allowReserved;
+
+        Operator(final String first, final String separator, final boolean named, final String ifEmpty,
+                final boolean allowReserved) {
+            this.first = first;
+            this.separator = separator;
+            this.named = named;
+            this.ifEmpty = ifEmpty;
+            this.allowReserved = allowReserved;
+        }
+
+        static Operator of(final char c) {
+            switch (c) {
+            case '+':
+                return RESERVED;
+            case '#':
+                return FRAGMENT;
+            case '.':
+                return LABEL;
+            case '/':
+                return PATH;
+            case ';':
+                return PATH_PARAMETER;
+            case '?':
+                return QUERY;
+            case '&':
+                return QUERY_CONTINUATION;
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A variable of an expression with its modifiers
+     */
+    private static final class VarSpec {
+
+        final String name;
+        /**
+         * The maximum number of characters of the value, 0 if there is no prefix modifier
+         */
+        final int prefix;
+        final boolean explode;
+
+        VarSpec(final String name, final int prefix, final boolean explode) {
+            this.name = name;
+            this.prefix = prefix;
+            this.explode = explode;
+        }
+    }
+
+    /**
+     * An expression of the template
+     */
+    private static final class Expression {
+
+        final Operator operator;
+        final VarSpec[] vars;
+
+        Expression(final Operator operator, final VarSpec[] vars) {
+            this.operator = operator;
+            this.vars = vars;
+        }
+
+        void expand(final Map<String, ?> variables, final StringBuilder out) {
+            boolean first = true;
+            for (final VarSpec var : vars) {
+                final Object value = variables.get(var.name);
+                if (isUndefined(value)) {
+                    continue;
+                }
+                out.append(first ? operator.first : operator.separator);
+                first = false;
+                if (value instanceof Collection) {
+                    expandList(var, (Collection<?>) value, out);
+                } else if (value instanceof Map) {
+                    expandMap(var, (Map<?, ?>) value, out);
+                } else {
+                    final String string = value.toString();
+                    if (operator.named) {
+                        appendName(var.name, string.isEmpty(), out);
+                    }
+                    final int end = var.prefix == 0 ? string.length() : prefixEnd(string, var.prefix);
+                    encode(string, end, operator.allowReserved, out);
+                }
+            }
+        }
+
+        private void expandList(final VarSpec var, final Collection<?> list, final StringBuilder out) {
+            if (var.explode) {
+                boolean first = true;
+                for (final Object item : list) {
+                    if (!first) {
+                        out.append(operator.separator);
+                    }
+                    first = false;
+                    final String string = String.valueOf(item);
+                    if (operator.named) {
+                        appendName(var.name, string.isEmpty(), out);
+                    }
+                    encode(string, string.length(), operator.allowReserved, out);
+                }
+            } else {
+                if (operator.named) {
+                    appendName(var.name, false, out);
+                }
+                boolean first = true;
+                for (final Object item : list) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    final String string = String.valueOf(item);
+                    encode(string, string.length(), operator.allowReserved, out);
+                }
+            }
+        }
+
+        private void expandMap(final VarSpec var, final Map<?, ?> map, final StringBuilder out) {
+            if (var.explode) {
+                boolean first = true;
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!first) {
+                        out.append(operator.separator);
+                    }
+                    first = false;
+                    final String key = String.valueOf(entry.getKey());
+                    final String value = String.valueOf(entry.getValue());
+                    encode(key, key.length(), operator.allowReserved, out);
+                    if (operator.named && value.isEmpty()) {
+                        out.append(operator.ifEmpty);
+                    } else {
+                        out.append('=');
+                    }
+                    encode(value, value.length(), operator.allowReserved, out);
+                }
+            } else {
+                if (operator.named) {
+                    appendName(var.name, false, out);
+                }
+                boolean first = true;
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    final String key = String.valueOf(entry.getKey());
+                    final String value = String.valueOf(entry.getValue());
+                    encode(key, key.length(), operator.allowReserved, out);
+                    out.append(',');
+                    encode(value, value.length(), operator.allowReserved, out);
+                }
+            }
+        }
+
+        private void appendName(final String name, final boolean emptyValue, final StringBuilder out) {
+            out.append(name);
+            out.append(emptyValue ? operator.ifEmpty : "=");
+        }
+    }
+
+    private final String template;
+
+    /**
+     * The parts of the template, each part is either a literal string, which is encoded already, or an expression
+     */
+    private final Object[] parts;
+
+    private final List<String> variableNames;
+
+    /**
+     * The estimated length of an expanded template, used to size the buffer
+     */
+    private final int expectedLength;
+
+    private UriTemplate(final String template, final Object[] parts, final List<String> variableNames) {
+        this.template = template;
+        this.parts = parts;
+        this.variableNames = variableNames;
+        this.expectedLength = template.length() + 16;
+    }
+
+    /**
+     * Parses the template into its compiled form.
+     *
+     * @param template
+     *            the template to parse
+     * @return the compiled template
+     * @throws IllegalArgumentException
+     *             if the template is not valid
+     */
+    public static UriTemplate compile(final String template) {
+        final List<Object> parts = new ArrayList<>();
+        final Set<String> names = new LinkedHashSet<>();
+        final StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < template.length()) {
+            final char c = template.charAt(pos);
+            if (c == '{') {
+                final int end = template.indexOf('}', pos);
+                if (end < 0) {
+                    throw invalid(template, pos, "unclosed expression");
+                }
+                if (literal.length() > 0) {
+                    parts.add(literal.toString());
+                    literal.setLength(0);
+                }
+                parts.add(parseExpression(template, pos + 1, end, names));
+                pos = end + 1;
+            } else if (c == '}') {
+                throw invalid(template, pos, "unopened expression");
+            } else {
+                final int next = template.indexOf('{', pos);
+                final int end = next < 0 ? template.length() : next;
+                final int close = template.indexOf('}', pos);
+                if (close >= 0 && close < end) {
+                    throw invalid(template, close, "unopened expression");
+                }
+                encode(template, pos, end, true, literal);
+                pos = end;
+            }
+        }
+        if (literal.length() > 0) {
+            parts.add(literal.toString());
+        }
+        return new UriTemplate(template, parts.toArray(), Collections.unmodifiableList(new ArrayList<>(names)));
+    }
+
+    /**
+     * Expands the template using the values of the variables.
+     *
+     * @param variables
+     *            the values of the variables, the values of variables that are not contained are undefined
+     * @return the expanded template
+     */
+    public String expand(final Map<String, ?> variables) {
+        final StringBuilder out = new StringBuilder(expectedLength);
+        expand(variables, out);
+        return out.toString();
+    }
+
+    /**
+     * Expands the template using the values of the variables and appends the result to the builder.
+     *
+     * @param variables
+     *            the values of the variables, the values of variables that are not contained are undefined
+     * @param out
+     *            the builder to append the expanded template to
+     * @return the builder
+     */
+    public StringBuilder expand(final Map<String, ?> variables, final StringBuilder out) {
+        for (final Object part : parts) {
+            if (part instanceof String) {
+                out.append((String) part);
+            } else {
+                ((Expression) part).expand(variables, out);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return the names of all variables of the template in the order of their first occurrence
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * @return the template string
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static Expression parseExpression(final String template, final int start, final int end,
+            final Set<String> names) {
+        if (start == end) {
+            throw invalid(template, start, "empty expression");
+        }
+        final Operator operator = Operator.of(template.charAt(start));
+        int pos = operator == null ? start : start + 1;
+        if (operator == null && "=,!@|".indexOf(template.charAt(start)) >= 0) {
+            throw invalid(template, start, "reserved operator " + template.charAt(start));
+        }
+        final List<VarSpec> vars = new ArrayList<>();
+        while (pos <= end) {
+            final int next = indexOf(template, ',', pos, end);
+            vars.add(parseVarSpec(template, pos, next));
+            names.add(vars.get(vars.size() - 1).name);
+            pos = next + 1;
+        }
+        return new Expression(operator == null ? Operator.SIMPLE : operator, vars.toArray(new VarSpec[vars.size()]));
+    }
+
+    private static VarSpec parseVarSpec(final String template, final int start, final int end) {
+        int nameEnd = end;
+        int prefix = 0;
+        boolean explode = false;
+        if (end > start && template.charAt(end - 1) == '*') {
+            explode = true;
+            nameEnd = end - 1;
+        } else {
+            final int colon = indexOf(template, ':', start, end);
+            if (colon < end) {
+                nameEnd = colon;
+                prefix = parsePrefix(template, colon + 1, end);
+            }
+        }
+        if (nameEnd == start) {
+            throw invalid(template, start, "missing variable name");
+        }
+        for (int i = start; i < nameEnd; i++) {
+            final char c = template.charAt(i);
+            final boolean valid = c < 128 && (Character.isLetterOrDigit(c) || c == '_')
+                    || c == '.' && i > start && i < nameEnd - 1 && template.charAt(i - 1) != '.'
+                    || c == '%' && i + 2 < nameEnd && isHex(template.charAt(i + 1)) && isHex(template.charAt(i + 2));
+            if (!valid) {
+                throw invalid(template, i, "invalid character in variable name");
+            }
+            if (c == '%') {
+                i += 2;
+            }
+        }
+        return new VarSpec(template.substring(start, nameEnd), prefix, explode);
+    }
+
+    private static int parsePrefix(final String template, final int start, final int end) {
+        if (start == end || end - start > 4) {
+            throw invalid(template, start, "invalid prefix length");
+        }
+        int prefix = 0;
+        for (int i = start; i < end; i++) {
+            final char c = template.charAt(i);
+            if (c < '0' || c > '9' || i == start && c == '0') {
+                throw invalid(template, i, "invalid prefix length");
+            }
+            prefix = prefix * 10 + c - '0';
+        }
+        return Math.min(prefix, MAX_PREFIX);
+    }
+
+    private static int indexOf(final String template, final char c, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (template.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static IllegalArgumentException invalid(final String template, final int pos, final String message) {
+        return new IllegalArgumentException("Invalid uri template " + template + " at position " + pos + ": "
+                + message);
+    }
+
+    private static boolean isUndefined(final Object value) {
+        return value == null || value instanceof Collection && ((Collection<?>) value).isEmpty()
+                || value instanceof Map && ((Map<?, ?>) value).isEmpty();
+    }
+
+    /**
+     * Determines the end of the prefix of a string with the specified number of characters
+     *
+     * @param value
+     *            the value
+     * @param prefix
+     *            the number of characters (code points) of the prefix
+     * @return the end index of the prefix
+     */
+    private static int prefixEnd(final String value, final int prefix) {
+        int end = 0;
+        for (int count = 0; count < prefix && end < value.length(); count++) {
+            end += Character.charCount(value.codePointAt(end));
+        }
+        return end;
+    }
+
+    private static void encode(final String value, final int end, final boolean allowReserved,
+            final StringBuilder out) {
+        encode(value, 0, end, allowReserved, out);
+    }
+
+    /**
+     * Percent-encodes the characters of the value that are not allowed and appends the result to the builder.
+     *
+     * @param value
+     *            the value to encode
+     * @param start
+     *            the index of the first character to encode
+     * @param end
+     *            the index after the last character to encode
+     * @param allowReserved
+     *            <code>true</code> if reserved characters and percent-encoded triplets are kept as they are
+     * @param out
+     *            the builder to append to
+     */
+    private static void encode(final String value, final int start, final int end, final boolean allowReserved,
+            final StringBuilder out) {
+        int pos = start;
+        while (pos < end) {
+            final char c = value.charAt(pos);
+            if (c < 128 && (UNRESERVED[c] || allowReserved && RESERVED[c])) {
+                out.append(c);
+                pos++;
+            } else if (allowReserved && c == '%' && pos + 2 < end && isHex(value.charAt(pos + 1))
+                    && isHex(value.charAt(pos + 2))) {
+                out.append(value, pos, pos + 3);
+                pos += 3;
+            } else {
+                int codePoint = value.codePointAt(pos);
+                pos += Character.charCount(codePoint);
+                if (Character.isSurrogate((char) codePoint) && codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    // a lone surrogate has no utf-8 representation
+                    codePoint = '\uFFFD';
+                }
+                appendUtf8(codePoint, out);
+            }
+        }
+    }
+
+    private static void appendUtf8(final int codePoint, final StringBuilder out) {
+        if (codePoint < 0x80) {
+            appendEncoded(codePoint, out);
+        } else if (codePoint < 0x800) {
+            appendEncoded(0xC0 | codePoint >> 6, out);
+            appendEncoded(0x80 | codePoint & 0x3F, out);
+        } else if (codePoint < 0x10000) {
+            appendEncoded(0xE0 | codePoint >> 12, out);
+            appendEncoded(0x80 | codePoint >> 6 & 0x3F, out);
+            appendEncoded(0x80 | codePoint & 0x3F, out);
+        } else {
+            appendEncoded(0xF0 | codePoint >> 18, out);
+            appendEncoded(0x80 | codePoint >> 12 & 0x3F, out);
+            appendEncoded(0x80 | codePoint >> 6 & 0x3F, out);
+            appendEncoded(0x80 | codePoint & 0x3F, out);
+        }
+    }
+
+    private static void appendEncoded(final int b, final StringBuilder out) {
+        out.append('%').append(HEX[b >> 4 & 0xF]).append(HEX[b & 0xF]);
+    }
+
+    private static boolean isHex(final char c) {
+        return c >= '0' && c <= '9' || c >= 'A' && c <= 'F' || c >= 'a' && c <= 'f';
+    }
+}
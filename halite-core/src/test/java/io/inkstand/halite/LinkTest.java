@@ -2,6 +2,7 @@ package io.inkstand.halite;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -88,4 +89,30 @@ public class LinkTest {
         assertTrue(r3.getLinks().contains(subject));
     }
 
+    @Test
+    public void testFreeze() throws Exception {
+        subject.name("aName").title("aTitle").templated(true).type("aType").hreflang("en").profile("aProfile")
+                .deprecation("aDeprecation");
+
+        final Link frozen = subject.freeze();
+
+        assertTrue(frozen.isFrozen());
+        assertFalse(subject.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertEquals("aRel", frozen.getRel());
+        assertEquals("aHref", frozen.getHref());
+        assertEquals("aName", frozen.getName());
+        assertEquals("aTitle", frozen.getTitle());
+        assertTrue(frozen.isTemplated());
+        assertEquals("aType", frozen.getType());
+        assertEquals("en", frozen.getHreflang());
+        assertEquals("aProfile", frozen.getProfile());
+        assertEquals("aDeprecation", frozen.getDeprecation());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_modify() throws Exception {
+        subject.freeze().name("aName");
+    }
+
 }
@@ -0,0 +1,69 @@
+package io.inkstand.halite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NamedLinkIndexTest {
+
+    private final NamedLinkIndex subject = new NamedLinkIndex();
+
+    @Test
+    public void testGet_firstLinkWithName() throws Exception {
+        final List<Link> links = new ArrayList<>();
+        final Link first = new Link("rel", "a").name("name");
+        links.add(first);
+        links.add(new Link("rel", "b").name("name"));
+        links.add(new Link("rel", "c"));
+
+        assertSame(first, subject.get(links, "name"));
+        assertNull(subject.get(links, "other"));
+    }
+
+    @Test
+    public void testGet_linkNamedAfterAdding() throws Exception {
+        final List<Link> links = new ArrayList<>();
+        links.add(new Link("rel", "a").name("first"));
+        subject.get(links, "first");
+        final Link added = new Link("rel", "b");
+        links.add(added);
+        added.name("second");
+
+        assertSame(added, subject.get(links, "second"));
+    }
+
+    @Test
+    public void testGet_renamedLink_rebuilt() throws Exception {
+        final List<Link> links = new ArrayList<>();
+        final Link first = new Link("rel", "a").name("name");
+        final Link second = new Link("rel", "b").name("other");
+        links.add(first);
+        links.add(second);
+        subject.get(links, "name");
+
+        first.name("renamed");
+        second.name("name");
+
+        assertSame(second, subject.get(links, "name"));
+        assertEquals("a", subject.get(links, "renamed").getHref());
+    }
+
+    @Test
+    public void testGet_shrunkList_rebuilt() throws Exception {
+        final List<Link> links = new ArrayList<>();
+        links.add(new Link("rel", "a").name("a"));
+        links.add(new Link("rel", "b").name("b"));
+        subject.get(links, "a");
+
+        links.clear();
+        links.add(new Link("rel", "c").name("c"));
+
+        assertNull(subject.get(links, "a"));
+        assertEquals("c", subject.get(links, "c").getHref());
+    }
+}
@@ -0,0 +1,203 @@
+package io.inkstand.halite;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assume;
+
+/**
+ * Estimates the heap footprint of an object graph for a 64-bit JVM with compressed oops (12 byte object headers, 16
+ * byte array headers, 4 byte references, 8 byte alignment). The estimate is deterministic and independent of the
+ * garbage collector, which makes it suitable to compare the footprint of different representations. <br>
+ * The fields of the objects are read by reflection. The internals of JDK classes are not accessible on a JDK with
+ * strong encapsulation, therefore {@link ArrayList}s and {@link HashMap}s of such a JDK are estimated from the shapes
+ * of their JDK 8 implementation, assuming lists without spare capacity. If another object is not accessible, the
+ * calling test is skipped.
+ */
+class ObjectFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    private final Set<Class<?>> excluded;
+
+    /**
+     * @param excluded
+     *            the types whose instances are not counted and not traversed
+     */
+    ObjectFootprint(final Class<?>... excluded) {
+        this.excluded = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        Collections.addAll(this.excluded, excluded);
+    }
+
+    /**
+     * Estimates the footprint of all objects reachable from the roots, each object counted once.
+     *
+     * @param roots
+     *            the roots of the graph
+     * @return the estimated footprint in bytes
+     */
+    long of(final Object... roots) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Deque<Object> pending = new ArrayDeque<>();
+        for (final Object root : roots) {
+            pending.push(root);
+        }
+        long total = 0;
+        while (!pending.isEmpty()) {
+            final Object current = pending.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+            final Class<?> type = current.getClass();
+            if (type.isArray()) {
+                total += arraySize(current, pending);
+            } else {
+                total += objectSize(current, pending);
+            }
+        }
+        return total;
+    }
+
+    private long arraySize(final Object array, final Deque<Object> pending) {
+        final Class<?> componentType = array.getClass().getComponentType();
+        final int length = Array.getLength(array);
+        if (!componentType.isPrimitive()) {
+            for (int i = 0; i < length; i++) {
+                push(Array.get(array, i), pending);
+            }
+        }
+        return align(ARRAY_HEADER + (long) length * sizeOf(componentType));
+    }
+
+    /**
+     * Estimates the footprint of a JDK 8 {@link ArrayList} without spare capacity, excluding its elements
+     *
+     * @param size
+     *            the number of elements
+     * @return the estimated footprint in bytes
+     */
+    static long arrayList(final int size) {
+        // header, size, modCount, elementData
+        return align(OBJECT_HEADER + 4 + 4 + REFERENCE) + align(ARRAY_HEADER + (long) size * REFERENCE);
+    }
+
+    /**
+     * Estimates the footprint of a JDK 8 {@link HashMap} with the default load factor that has been filled by
+     * individual puts, excluding its keys and values
+     *
+     * @param size
+     *            the number of entries
+     * @return the estimated footprint in bytes
+     */
+    static long hashMap(final int size) {
+        // header, table, entrySet, keySet, values, size, modCount, threshold, loadFactor
+        final long map = align(OBJECT_HEADER + 4 * REFERENCE + 4 * 4);
+        if (size == 0) {
+            // the table is allocated on the first put
+            return map;
+        }
+        int capacity = 16;
+        while (size > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        // node: header, hash, key, value, next
+        return map + align(ARRAY_HEADER + (long) capacity * REFERENCE) + size * align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+    }
+
+    private long objectSize(final Object object, final Deque<Object> pending) {
+        if (object.getClass() == ArrayList.class && !isAccessible(ArrayList.class)) {
+            for (final Object element : (ArrayList<?>) object) {
+                push(element, pending);
+            }
+            return arrayList(((ArrayList<?>) object).size());
+        }
+        if (object.getClass() == HashMap.class && !isAccessible(HashMap.class)) {
+            for (final Map.Entry<?, ?> entry : ((HashMap<?, ?>) object).entrySet()) {
+                push(entry.getKey(), pending);
+                push(entry.getValue(), pending);
+            }
+            return hashMap(((HashMap<?, ?>) object).size());
+        }
+        long size = OBJECT_HEADER;
+        for (Class<?> type = object.getClass(); type != null; type = type.getSuperclass()) {
+            for (final Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                size += sizeOf(field.getType());
+                if (!field.getType().isPrimitive()) {
+                    push(read(field, object), pending);
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static boolean isAccessible(final Class<?> type) {
+        for (final Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                try {
+                    field.setAccessible(true);
+                } catch (final RuntimeException e) { // NOSONAR
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Object read(final Field field, final Object object) {
+        try {
+            field.setAccessible(true);
+            return field.get(object);
+        } catch (final IllegalAccessException | RuntimeException e) {
+            // the module system denies access with an InaccessibleObjectException, which does not exist in JDK 8
+            Assume.assumeNoException("Field " + field + " is not accessible", e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void push(final Object value, final Deque<Object> pending) {
+        if (value != null && !isExcluded(value)) {
+            pending.push(value);
+        }
+    }
+
+    private boolean isExcluded(final Object value) {
+        for (final Class<?> type : excluded) {
+            if (type.isInstance(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(final long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
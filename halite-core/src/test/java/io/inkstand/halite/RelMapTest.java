@@ -0,0 +1,194 @@
+package io.inkstand.halite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RelMapTest {
+
+    private RelMap<String> subject;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new RelMap<>();
+    }
+
+    @Test
+    public void testGet_empty() throws Exception {
+        assertTrue(subject.get("rel").isEmpty());
+        assertFalse(subject.containsKey("rel"));
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void testAdd_singleValue() throws Exception {
+        subject.add("rel", "a");
+
+        assertEquals(Arrays.asList("a"), subject.get("rel"));
+        assertTrue(subject.containsKey("rel"));
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    public void testAdd_multipleValues() throws Exception {
+        subject.add("rel", "a");
+        subject.add("rel", "b");
+        subject.add("rel", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), subject.get("rel"));
+        assertEquals(1, subject.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGet_unmodifiable() throws Exception {
+        subject.add("rel", "a");
+        subject.add("rel", "b");
+
+        subject.get("rel").add("c");
+    }
+
+    @Test
+    public void testKeySet_insertionOrder() throws Exception {
+        subject.add("c", "1");
+        subject.add("a", "2");
+        subject.add("b", "3");
+        subject.add("a", "4");
+
+        assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(subject.keySet()));
+        assertTrue(subject.keySet().contains("b"));
+        assertFalse(subject.keySet().contains("d"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testKeySet_unmodifiable() throws Exception {
+        subject.add("a", "1");
+        final Iterator<String> it = subject.keySet().iterator();
+        it.next();
+        it.remove();
+    }
+
+    @Test
+    public void testAdd_beyondIndexThreshold() throws Exception {
+        final int count = RelMap.INDEX_THRESHOLD * 3;
+        for (int i = 0; i < count; i++) {
+            subject.add("rel" + i, "v" + i);
+        }
+        subject.add("rel5", "w5");
+
+        assertEquals(count, subject.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("rel" + i, subject.relAt(i));
+            assertEquals("v" + i, subject.get("rel" + i).get(0));
+        }
+        assertEquals(Arrays.asList("v5", "w5"), subject.get("rel5"));
+        assertFalse(subject.containsKey("other"));
+    }
+
+    @Test
+    public void testPutList_backsRelation() throws Exception {
+        final List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+
+        subject.putList("rel", list);
+        list.add("c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), subject.get("rel"));
+    }
+
+    @Test
+    public void testAdd_toBackedRelation_copied() throws Exception {
+        final List<String> list = Arrays.asList("a", "b");
+        subject.putList("rel", list);
+
+        subject.add("rel", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), subject.get("rel"));
+        assertEquals(Arrays.asList("a", "b"), list);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPutList_existingRelation() throws Exception {
+        subject.add("rel", "a");
+
+        subject.putList("rel", Arrays.asList("b"));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        for (int i = 0; i < RelMap.INDEX_THRESHOLD * 2; i++) {
+            subject.add("rel" + i, "v" + i);
+        }
+
+        subject.clear();
+
+        assertEquals(0, subject.size());
+        assertFalse(subject.containsKey("rel1"));
+        subject.add("rel1", "a");
+        assertEquals(Arrays.asList("a"), subject.get("rel1"));
+    }
+
+    @Test
+    public void testNullRel() throws Exception {
+        subject.add(null, "a");
+
+        assertEquals(Arrays.asList("a"), subject.get(null));
+    }
+
+    @Test
+    public void testGet_byId() throws Exception {
+        final int id = RelRegistry.register("relMapTest-byId");
+        subject.add(new String("relMapTest-byId"), "a");
+        subject.add(HAL.SELF, "self");
+
+        assertEquals(Arrays.asList("a"), subject.get(id));
+        assertEquals(Arrays.asList("self"), subject.get(RelRegistry.SELF));
+        assertTrue(subject.get(RelRegistry.NEXT).isEmpty());
+        assertTrue(subject.get(RelRegistry.NO_ID).isEmpty());
+    }
+
+    @Test
+    public void testGet_byIdWithIndex() throws Exception {
+        for (int i = 0; i <= RelMap.INDEX_THRESHOLD; i++) {
+            subject.add("rel" + i, "value" + i);
+        }
+        subject.add(HAL.NEXT, "next");
+        final int id = RelRegistry.register("relMapTest-indexed");
+        subject.add("relMapTest-indexed", "indexed");
+
+        assertEquals(Arrays.asList("next"), subject.get(RelRegistry.NEXT));
+        assertEquals(Arrays.asList("indexed"), subject.get(id));
+    }
+
+    @Test
+    public void testAdd_unknownRel_notRegistered() throws Exception {
+        subject.add("relMapTest-unknown", "a");
+
+        assertEquals(RelRegistry.NO_ID, RelRegistry.lookup("relMapTest-unknown"));
+        assertEquals(Arrays.asList("a"), subject.get("relMapTest-unknown"));
+    }
+
+    @Test
+    public void testGet_byId_registeredAfterAdd() throws Exception {
+        subject.add("relMapTest-late", "a");
+
+        final int id = RelRegistry.register("relMapTest-late");
+
+        assertEquals(Arrays.asList("a"), subject.get(id));
+    }
+
+    @Test
+    public void testAdd_nullRel() throws Exception {
+        subject.add(null, "a");
+        subject.add("rel", "b");
+
+        assertEquals(Arrays.asList("a"), subject.get(null));
+        assertTrue(subject.get(RelRegistry.NO_ID).isEmpty());
+    }
+}
@@ -0,0 +1,42 @@
+package io.inkstand.halite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class RelRegistryTest {
+
+    @Test
+    public void testHalRelsPreRegistered() throws Exception {
+        assertEquals(RelRegistry.SELF, RelRegistry.lookup(HAL.SELF));
+        assertEquals(RelRegistry.NEXT, RelRegistry.lookup(HAL.NEXT));
+        assertEquals(RelRegistry.PREV, RelRegistry.lookup(HAL.PREV));
+        assertEquals(RelRegistry.FIRST, RelRegistry.lookup(HAL.FIRST));
+        assertEquals(RelRegistry.LAST, RelRegistry.lookup(HAL.LAST));
+        assertEquals(HAL.SELF, RelRegistry.nameOf(RelRegistry.SELF));
+    }
+
+    @Test
+    public void testRegister_sameIdForSameRel() throws Exception {
+        final int id = RelRegistry.register("registryTest");
+
+        assertNotEquals(RelRegistry.NO_ID, id);
+        assertEquals(id, RelRegistry.register(new String("registryTest")));
+        assertEquals(id, RelRegistry.lookup("registryTest"));
+        assertSame(RelRegistry.nameOf(id), RelRegistry.nameOf(RelRegistry.register(new String("registryTest"))));
+    }
+
+    @Test
+    public void testLookup_unregistered() throws Exception {
+        assertEquals(RelRegistry.NO_ID, RelRegistry.lookup("registryTest-unregistered"));
+        assertEquals(RelRegistry.NO_ID, RelRegistry.lookup(null));
+        assertEquals(RelRegistry.NO_ID, RelRegistry.register(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameOf_unknownId() throws Exception {
+        RelRegistry.nameOf(RelRegistry.MAX_SIZE);
+    }
+}
@@ -0,0 +1,86 @@
+package io.inkstand.halite;
+
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Compares the footprint of the link and embedded storage of a {@link Resource} with the footprint of the former
+ * representation as one {@link HashMap} of {@link ArrayList}s each for links and embedded resources. The footprint of
+ * the former representation is computed from the shapes of the JDK 8 collections rather than measured, as the
+ * internals of the JDK classes are not accessible by reflection on newer JDKs.
+ */
+public class ResourceFootprintTest {
+
+    /**
+     * Links, strings, URIs and embedded resources are shared by both representations and are therefore not counted.
+     * As the roots of the graph are always counted, the resource itself is counted with its storage.
+     */
+    private final ObjectFootprint storage = new ObjectFootprint(Link.class, String.class, URI.class, Resource.class);
+
+    @Test
+    public void testFootprint_singleLink() throws Exception {
+        final Resource resource = new Resource("resource");
+
+        assertSavings(resource, 0.5);
+    }
+
+    @Test
+    public void testFootprint_fewRels() throws Exception {
+        final Resource resource = new Resource("resource");
+        resource.addLink("next", "next");
+        resource.addLink("item", "item1");
+        resource.addLink("item", "item2");
+        resource.embed("child", new Resource("child1"));
+
+        assertSavings(resource, 0.5);
+    }
+
+    @Test
+    public void testFootprint_manyRels() throws Exception {
+        final Resource resource = new Resource("resource");
+        for (int i = 0; i < 20; i++) {
+            resource.addLink("rel" + i, "href" + i);
+        }
+
+        assertSavings(resource, 0.9);
+    }
+
+    /**
+     * Asserts the footprint of the resource is at most the given fraction of the former representation.
+     */
+    private void assertSavings(final Resource resource, final double maxRatio) {
+        final List<Integer> links = new ArrayList<>();
+        for (final String rel : resource.getLinkRels()) {
+            links.add(resource.getLinks(rel).size());
+        }
+        final List<Integer> embedded = new ArrayList<>();
+        for (final String rel : resource.getEmbeddedRels()) {
+            embedded.add(resource.getEmbedded(rel).size());
+        }
+        // the shell of the resource has the same fields in both representations
+        final long shell = new ObjectFootprint(Object.class).of(resource);
+
+        final long compact = storage.of(resource);
+        final long former = shell + hashMapOfLists(links) + hashMapOfLists(embedded);
+
+        assertTrue("compact " + compact + " bytes, former " + former + " bytes", compact <= former * maxRatio);
+    }
+
+    /**
+     * Computes the footprint of a {@link HashMap} holding an {@link ArrayList} of the given size per key. Each list is
+     * a copy of the list of a relation and therefore has no spare capacity.
+     */
+    private static long hashMapOfLists(final List<Integer> listSizes) {
+        long size = ObjectFootprint.hashMap(listSizes.size());
+        for (final int listSize : listSizes) {
+            size += ObjectFootprint.arrayList(listSize);
+        }
+        return size;
+    }
+}
@@ -3,13 +3,29 @@ package io.inkstand.halite;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -184,6 +200,122 @@ public class ResourceTest {
         assertTrue(nexts.isEmpty());
     }
 
+    @Test
+    public void testEmbedList_backsRelation() throws Exception {
+        final List<Resource> resources = new ArrayList<>();
+        resources.add(factory.createResource("child1"));
+        resources.add(factory.createResource("child2"));
+
+        this.subject.embedList("rel", resources);
+
+        final List<Resource> embedded = this.subject.getEmbedded("rel");
+        assertEquals(2, embedded.size());
+        assertEquals("rel", embedded.get(1).getRel());
+        assertEquals(resources, this.subject.getEmbedded());
+    }
+
+    @Test
+    public void testEmbedList_frozenResource_snapshotKept() throws Exception {
+        final Resource frozen = factory.createResource("child1").freeze();
+        this.subject.embedList("rel", Arrays.asList(frozen));
+
+        final List<Resource> embedded = this.subject.getEmbedded("rel");
+        final Resource snapshot = embedded.get(0);
+
+        assertNotSame(frozen, snapshot);
+        assertEquals("rel", snapshot.getRel());
+        assertSame(snapshot, embedded.get(0));
+        assertSame(snapshot, this.subject.getEmbedded("rel").get(0));
+    }
+
+    @Test
+    public void testEmbedList_existingRelation() throws Exception {
+        this.subject.embed("rel", factory.createResource("child1"));
+        final List<Resource> resources = new ArrayList<>();
+        resources.add(factory.createResource("child2"));
+
+        this.subject.embedList("rel", resources);
+        this.subject.embed("rel", factory.createResource("child3"));
+
+        final List<Resource> embedded = this.subject.getEmbedded("rel");
+        assertEquals(3, embedded.size());
+        assertEquals("child2", embedded.get(1).getURI().toString());
+        assertEquals("rel", embedded.get(1).getRel());
+    }
+
+    @Test
+    public void testGetEmbedded_liveView() throws Exception {
+        final List<Resource> view = this.subject.getEmbedded();
+        assertTrue(view.isEmpty());
+
+        this.subject.embed("a", factory.createResource("child1"), factory.createResource("child2"));
+        this.subject.embed("b", factory.createResource("child3"));
+
+        assertEquals(3, view.size());
+        assertEquals("child2", view.get(1).getURI().toString());
+        assertEquals("child3", view.get(2).getURI().toString());
+        final List<String> uris = new ArrayList<>();
+        for (final Resource res : view) {
+            uris.add(res.getURI().toString());
+        }
+        assertEquals(Arrays.asList("child1", "child2", "child3"), uris);
+    }
+
+    @Test
+    public void testGetEmbedded_addAndClear() throws Exception {
+        final List<Resource> view = this.subject.getEmbedded();
+
+        view.add(createResource("rel", "child"));
+        assertEquals(1, this.subject.getEmbedded("rel").size());
+
+        view.clear();
+        assertTrue(this.subject.getEmbeddedRels().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetEmbedded_removeUnsupported() throws Exception {
+        this.subject.embed("a", factory.createResource("child1"));
+
+        this.subject.getEmbedded().remove(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetLinks_indexOutOfBounds() throws Exception {
+        this.subject.getLinks().get(1);
+    }
+
+    @Test
+    public void testGetLinks_liveView() throws Exception {
+        final List<Link> view = this.subject.getLinks();
+        assertEquals(1, view.size());
+
+        this.subject.addLink("next", "next1");
+        this.subject.addLink("next", "next2");
+
+        assertEquals(3, view.size());
+        assertEquals("next2", view.get(2).getHref());
+    }
+
+    @Test
+    public void testGetLinks_addAndClear() throws Exception {
+        final List<Link> view = this.subject.getLinks();
+
+        view.clear();
+        assertTrue(this.subject.getLinkRels().isEmpty());
+
+        view.add(factory.createLink("self", "other"));
+        assertEquals("other", this.subject.getLink("self").getHref());
+    }
+
+    @Test
+    public void testSetLinks_ownView() throws Exception {
+        this.subject.addLink("next", "next");
+
+        this.subject.setLinks(this.subject.getLinks());
+
+        assertEquals(2, this.subject.getLinks().size());
+    }
+
     @Test
     public void testSetLinks_getLinks() throws Exception {
         // initial set
@@ -430,4 +562,612 @@ public class ResourceTest {
         assertTrue(rels.contains("rel2"));
         assertTrue(rels.contains("rel3"));
     }
+
+    @Test
+    public void testFreeze_recursiveSnapshot() throws Exception {
+        final Resource child = factory.createResource("child");
+        child.embed("inner", factory.createResource("inner"));
+        subject.addLink("item", "a").name("first");
+        subject.addLink("item", "b");
+        subject.embed("child", child);
+
+        final Resource frozen = subject.freeze();
+
+        assertTrue(frozen.isFrozen());
+        assertFalse(subject.isFrozen());
+        assertEquals("resource", frozen.getURI().toString());
+        assertEquals(2, frozen.getLinks("item").size());
+        assertTrue(frozen.getLink("item", "first").isFrozen());
+        final Resource frozenChild = frozen.getEmbedded("child").get(0);
+        assertTrue(frozenChild.isFrozen());
+        assertEquals("child", frozenChild.getRel());
+        assertTrue(frozenChild.getEmbedded("inner").get(0).isFrozen());
+        assertSame(frozen, frozen.freeze());
+
+        // changes of the original are not visible in the snapshot
+        subject.addLink("item", "c");
+        child.embed("inner", factory.createResource("inner2"));
+        assertEquals(2, frozen.getLinks("item").size());
+        assertEquals(1, frozenChild.getEmbedded("inner").size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_addLink() throws Exception {
+        subject.freeze().addLink("other", "href");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_embed() throws Exception {
+        subject.freeze().embed("other", factory.createResource("other"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_modifyLink() throws Exception {
+        subject.freeze().getLink("self").title("title");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_clearLinksView() throws Exception {
+        subject.freeze().getLinks().clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_modifyEmbeddedResource() throws Exception {
+        subject.embed("child", factory.createResource("child"));
+        subject.freeze().getEmbedded("child").get(0).addLink("other", "href");
+    }
+
+    @Test
+    public void testFreeze_sharedAcrossThreads() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            subject.addLink("rel" + i, "href" + i);
+            subject.embed("item", factory.createResource("item" + i));
+        }
+        final Resource frozen = subject.freeze();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+                        int count = 0;
+                        for (int n = 0; n < 1000; n++) {
+                            count += frozen.getLinks().size() + frozen.getEmbedded("item").size();
+                            frozen.getEmbedded("item").get(n % 20).getURI();
+                        }
+                        return count;
+                    }
+                }));
+            }
+            for (final Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(1000 * (21 + 20)), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testToBuilder_copyOnWrite() throws Exception {
+        subject.addLink("item", "a");
+        subject.addLink("item", "b");
+        subject.embed("child", factory.createResource("child"));
+        final Resource frozen = subject.freeze();
+
+        final Resource builder = frozen.toBuilder();
+        builder.addLink("item", "c");
+        builder.embed("child", factory.createResource("child2"));
+
+        assertFalse(builder.isFrozen());
+        assertEquals(3, builder.getLinks("item").size());
+        assertEquals(2, builder.getEmbedded("child").size());
+        assertSame(frozen.getEmbedded("child").get(0), builder.getEmbedded("child").get(0));
+        assertEquals(2, frozen.getLinks("item").size());
+        assertEquals(1, frozen.getEmbedded("child").size());
+        assertTrue(builder.freeze().isFrozen());
+    }
+
+    @Test
+    public void testEmbed_frozenResourceWithOtherRel() throws Exception {
+        final Resource frozen = factory.createResource("child").freeze();
+
+        subject.embed("child", frozen);
+
+        final Resource embedded = subject.getEmbedded("child").get(0);
+        assertTrue(embedded.isFrozen());
+        assertEquals("child", embedded.getRel());
+        assertNull(frozen.getRel());
+        assertSame(frozen.getLinks("self").get(0), embedded.getLinks("self").get(0));
+    }
+
+    @Test
+    public void testGetByRelId() throws Exception {
+        subject.addLink(HAL.NEXT, "next");
+        subject.addLink(HAL.NEXT, "named").name("aName");
+        subject.embed(HAL.FIRST, factory.createResource("first"));
+
+        assertEquals("resource", subject.getLink(RelRegistry.SELF).getHref());
+        assertEquals(2, subject.getLinks(RelRegistry.NEXT).size());
+        assertEquals("next", subject.getLink(RelRegistry.NEXT).getHref());
+        assertNull(subject.getLink(RelRegistry.PREV));
+        assertEquals(1, subject.getEmbedded(RelRegistry.FIRST).size());
+        assertTrue(subject.getEmbedded(RelRegistry.LAST).isEmpty());
+    }
+
+    @Test
+    public void testGetLink_named_indexed() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            subject.addLink("alternate", "href" + i).name("name" + i);
+        }
+        subject.addLink("alternate", "duplicate").name("name42");
+
+        assertEquals("href42", subject.getLink("alternate", "name42").getHref());
+        assertEquals("href99", subject.getLink("alternate", "name99").getHref());
+        assertNull(subject.getLink("alternate", "unknown"));
+
+        // links added after the index was created are found
+        subject.addLink("alternate", "later").name("laterName");
+        assertEquals("later", subject.getLink("alternate", "laterName").getHref());
+
+        // a renamed link is not found by its former name
+        subject.getLink("alternate", "name7").name("renamed");
+        assertNull(subject.getLink("alternate", "name7"));
+    }
+
+    @Test
+    public void testGetLink_named_indexedAfterSetLinks() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            subject.addLink("alternate", "href" + i).name("name" + i);
+        }
+        assertEquals("href10", subject.getLink("alternate", "name10").getHref());
+        final List<Link> links = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            links.add(factory.createLink("alternate", "other" + i).name("name" + i));
+        }
+
+        subject.setLinks(links);
+
+        assertEquals("other10", subject.getLink("alternate", "name10").getHref());
+    }
+
+    @Test
+    public void testGetLink_named_frozen() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            subject.addLink("alternate", "href" + i).name("name" + i);
+        }
+
+        final Resource frozen = subject.freeze();
+
+        assertEquals("href10", frozen.getLink("alternate", "name10").getHref());
+        assertNull(frozen.getLink("alternate", "unknown"));
+        assertEquals("href11", frozen.toBuilder().getLink("alternate", "name11").getHref());
+    }
+
+    @Test
+    public void testGetURI_parsedOnceOnDemand() throws Exception {
+        final Resource res = new Resource();
+        res.addLink("self", "some uri");
+
+        try {
+            res.getURI();
+            fail("invalid uri not detected");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof URISyntaxException);
+        }
+        assertSame(subject.getURI(), subject.getURI());
+    }
+
+    @Test
+    public void testGetURI_afterSetLinks() throws Exception {
+        subject.getURI();
+
+        subject.setLinks(Arrays.asList(factory.createLink("self", "other")));
+
+        assertEquals("other", subject.getURI().toString());
+    }
+
+    @Test
+    public void testNew_invalidUri() throws Exception {
+        try {
+            new Resource("some uri");
+            fail("invalid uri not detected");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof URISyntaxException);
+        }
+    }
+
+    @Test
+    public void testEmbedLazy_resolvedOnceOnAccess() throws Exception {
+        final int[] calls = new int[1];
+        final Callable<Resource> source = new Callable<Resource>() {
+
+            @Override
+            public Resource call() throws Exception {
+                calls[0]++;
+                return factory.createResource("lazy");
+            }
+        };
+
+        subject.embed("item", factory.createResource("first"));
+        subject.embedLazy("item", source);
+        subject.embed("item", factory.createResource("last"));
+
+        assertEquals(0, calls[0]);
+        final List<Resource> items = subject.getEmbedded("item");
+        assertEquals(3, items.size());
+        assertEquals(0, calls[0]);
+        assertEquals("first", items.get(0).getURI().toString());
+        assertEquals("lazy", items.get(1).getURI().toString());
+        assertEquals("item", items.get(1).getRel());
+        assertEquals("last", items.get(2).getURI().toString());
+        assertSame(items.get(1), subject.getEmbedded("item").get(1));
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void testEmbedLazy_copiesShareResolution() throws Exception {
+        final int[] calls = new int[1];
+        subject.embedLazy("item", new Callable<Resource>() {
+
+            @Override
+            public Resource call() throws Exception {
+                calls[0]++;
+                return factory.createResource("lazy");
+            }
+        });
+        final Resource builder = subject.toBuilder();
+        builder.embed("item", factory.createResource("other"));
+
+        assertEquals(1, subject.getEmbedded("item").size());
+        assertEquals(2, builder.getEmbedded("item").size());
+        assertSame(subject.getEmbedded("item").get(0), builder.getEmbedded("item").get(0));
+        assertEquals(1, calls[0]);
+        assertTrue(subject.freeze().getEmbedded("item").get(0).isFrozen());
+    }
+
+    @Test
+    public void testEmbedLazy_copiesResolvedConcurrently() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        subject.embedLazy("item", new Callable<Resource>() {
+
+            @Override
+            public Resource call() throws Exception {
+                calls.incrementAndGet();
+                Thread.sleep(50);
+                return factory.createResource("lazy");
+            }
+        });
+        final Resource[] copies = { subject, subject.toBuilder(), subject.toBuilder(), subject.toBuilder() };
+        final ExecutorService executor = Executors.newFixedThreadPool(copies.length);
+        try {
+            final List<Future<Resource>> results = new ArrayList<>();
+            for (final Resource copy : copies) {
+                results.add(executor.submit(new Callable<Resource>() {
+
+                    @Override
+                    public Resource call() throws Exception {
+                        start.await();
+                        return copy.getEmbedded("item").get(0);
+                    }
+                }));
+            }
+            start.countDown();
+            for (final Future<Resource> result : results) {
+                assertSame(results.get(0).get(), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testFreeze_subclass_copiesFields() throws Exception {
+        final TaggedResource resource = new TaggedResource("tagged");
+        resource.tags.add("a");
+
+        final Resource snapshot = resource.freeze();
+        assertSame(TaggedResource.class, snapshot.getClass());
+        final TaggedResource frozen = (TaggedResource) snapshot;
+        resource.tags.add("b");
+        final TaggedResource builder = (TaggedResource) frozen.toBuilder();
+
+        assertTrue(frozen.isFrozen());
+        assertEquals(Arrays.asList("a"), frozen.tags);
+        assertEquals("tagged", frozen.getLink("self").getHref());
+        assertEquals(Arrays.asList("a"), builder.tags);
+        assertFalse(builder.isFrozen());
+    }
+
+    @Test
+    public void testFreeze_subclassWithoutCopy_fieldsCopied() throws Exception {
+        final ModelResource resource = new ModelResource("model", "name");
+        resource.embed("item", new Resource("child"));
+
+        final Resource snapshot = resource.freeze();
+        resource.name = "changed";
+        final Resource builder = snapshot.toBuilder();
+
+        assertSame(ModelResource.class, snapshot.getClass());
+        assertTrue(snapshot.isFrozen());
+        assertEquals("name", ((ModelResource) snapshot).name);
+        assertEquals("model", snapshot.getLink("self").getHref());
+        assertEquals("child", snapshot.getEmbedded("item").get(0).getURI().toString());
+        assertSame(ModelResource.class, builder.getClass());
+        assertFalse(builder.isFrozen());
+        assertEquals("name", ((ModelResource) builder).name);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFreeze_subclassWithoutCopyAndNoArgConstructor() throws Exception {
+        new Resource("plain") {
+        }.freeze();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEmbedLazy_failingSource() throws Exception {
+        subject.embedLazy("item", new Callable<Resource>() {
+
+            @Override
+            public Resource call() throws Exception {
+                throw new Exception("backend not available");
+            }
+        });
+
+        subject.getEmbedded("item").get(0);
+    }
+
+    @Test
+    public void testEmbedAsync_parallelInInsertionOrder() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(10);
+        final CountDownLatch started = new CountDownLatch(10);
+        try {
+            for (int i = 0; i < 10; i++) {
+                final int n = i;
+                subject.embedAsync("item", new Callable<Resource>() {
+
+                    @Override
+                    public Resource call() throws Exception {
+                        // completes only if all tasks run in parallel, the later ones complete first
+                        started.countDown();
+                        started.await();
+                        Thread.sleep(10 * (10 - n));
+                        return factory.createResource("item" + n);
+                    }
+                }, executor);
+            }
+
+            subject.awaitEmbedded(5, TimeUnit.SECONDS);
+
+            final List<Resource> items = subject.getEmbedded("item");
+            assertEquals(10, items.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals("item" + i, items.get(i).getURI().toString());
+                assertEquals("item", items.get(i).getRel());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAwaitEmbedded_nestedFutures() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Resource child = factory.createResource("child");
+            child.embedAsync("inner", new Callable<Resource>() {
+
+                @Override
+                public Resource call() throws Exception {
+                    return factory.createResource("inner");
+                }
+            }, executor);
+            subject.embed("child", child);
+            final Future<Resource> outer = executor.submit(new Callable<Resource>() {
+
+                @Override
+                public Resource call() throws Exception {
+                    return factory.createResource("outer");
+                }
+            });
+            subject.embedAsync("outer", outer);
+
+            subject.awaitEmbedded(5, TimeUnit.SECONDS);
+
+            assertTrue(outer.isDone());
+            assertEquals("inner", subject.getEmbedded("child").get(0).getEmbedded("inner").get(0).getURI()
+                    .toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testAwaitEmbedded_timeout() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            subject.embedAsync("item", new Callable<Resource>() {
+
+                @Override
+                public Resource call() throws Exception {
+                    release.await();
+                    return factory.createResource("item");
+                }
+            }, executor);
+
+            subject.awaitEmbedded(50, TimeUnit.MILLISECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmbedAsync_failedFuture() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            subject.embedAsync("item", new Callable<Resource>() {
+
+                @Override
+                public Resource call() throws Exception {
+                    throw new IllegalArgumentException("backend failed");
+                }
+            }, executor);
+
+            try {
+                subject.awaitEmbedded(5, TimeUnit.SECONDS);
+                fail("failure not reported");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            try {
+                subject.getEmbedded("item").get(0);
+                fail("failure not reported");
+            } catch (final IllegalStateException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmbedStream_iterableNotBuffered() throws Exception {
+        final CountingIterables count = new CountingIterables();
+        subject.embedStream("item", count.iterable(3));
+
+        final Iterator<Resource> first = subject.iterateEmbedded("item");
+        while (first.hasNext()) {
+            assertEquals("item", first.next().getRel());
+        }
+        final Iterator<Resource> second = subject.iterateEmbedded("item");
+        while (second.hasNext()) {
+            second.next();
+        }
+
+        // each stream iterates the source again, nothing was kept
+        assertEquals(2, count.iterators);
+    }
+
+    @Test
+    public void testEmbedStream_iteratorOnlyOnce() throws Exception {
+        subject.embedStream("item", Arrays.asList(factory.createResource("a"), factory.createResource("b"))
+                .iterator());
+
+        final Iterator<Resource> it = subject.iterateEmbedded("item");
+        assertEquals("a", it.next().getURI().toString());
+        assertEquals("b", it.next().getURI().toString());
+        assertFalse(it.hasNext());
+        try {
+            subject.iterateEmbedded("item").hasNext();
+            fail("iterator streamed twice");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().contains("item"));
+        }
+    }
+
+    @Test
+    public void testEmbedStream_getEmbeddedCollects() throws Exception {
+        final CountingIterables count = new CountingIterables();
+        subject.embedStream("item", count.iterable(3));
+
+        final List<Resource> items = subject.getEmbedded("item");
+        assertEquals(3, items.size());
+        assertEquals("2", items.get(2).getURI().toString());
+        assertEquals("item", items.get(0).getRel());
+
+        final Iterator<Resource> it = subject.iterateEmbedded("item");
+        while (it.hasNext()) {
+            it.next();
+        }
+        assertEquals(1, count.iterators);
+    }
+
+    @Test
+    public void testEmbedStream_mixedInInsertionOrder() throws Exception {
+        subject.embed("item", factory.createResource("first"));
+        subject.embedStream("item", new CountingIterables().iterable(2));
+        subject.embed("item", factory.createResource("last"));
+
+        final StringBuilder uris = new StringBuilder();
+        final Iterator<Resource> it = subject.iterateEmbedded("item");
+        while (it.hasNext()) {
+            uris.append(it.next().getURI()).append(' ');
+        }
+        assertEquals("first 0 1 last ", uris.toString());
+        assertEquals(4, subject.getEmbedded("item").size());
+    }
+
+    @Test
+    public void testIterateEmbedded_notStreamed() throws Exception {
+        subject.embed("item", factory.createResource("a"));
+
+        final Iterator<Resource> it = subject.iterateEmbedded("item");
+        assertEquals("a", it.next().getURI().toString());
+        assertFalse(it.hasNext());
+        assertFalse(subject.iterateEmbedded("none").hasNext());
+    }
+
+    /**
+     * Provides iterables of resources that count how often they are iterated
+     */
+    private class CountingIterables {
+
+        private int iterators;
+
+        Iterable<Resource> iterable(final int size) {
+            return new Iterable<Resource>() {
+
+                @Override
+                public Iterator<Resource> iterator() {
+                    iterators++;
+                    final List<Resource> resources = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        resources.add(factory.createResource(String.valueOf(i)));
+                    }
+                    return resources.iterator();
+                }
+            };
+        }
+    }
+
+    /**
+     * Resource like a JAXB model, with a no-arg constructor but without copy constructor
+     */
+    private static class ModelResource extends Resource {
+
+        private String name;
+
+        private ModelResource() {
+        }
+
+        ModelResource(final String uri, final String name) {
+            super(uri);
+            this.name = name;
+        }
+    }
+
+    private static class TaggedResource extends Resource {
+
+        private final List<String> tags;
+
+        TaggedResource(final String uri) {
+            super(uri);
+            this.tags = new ArrayList<>();
+        }
+
+        TaggedResource(final TaggedResource source) {
+            super(source);
+            this.tags = new ArrayList<>(source.tags);
+        }
+
+        @Override
+        protected Resource copy() {
+            return new TaggedResource(this);
+        }
+    }
 }
@@ -0,0 +1,255 @@
+package io.inkstand.halite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test of the expansion using the examples of RFC 6570
+ */
+public class UriTemplateTest {
+
+    private Map<String, Object> variables;
+
+    @Before
+    public void setUp() throws Exception {
+        final Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("semi", ";");
+        keys.put("dot", ".");
+        keys.put("comma", ",");
+
+        variables = new HashMap<>();
+        variables.put("count", Arrays.asList("one", "two", "three"));
+        variables.put("dom", Arrays.asList("example", "com"));
+        variables.put("dub", "me/too");
+        variables.put("hello", "Hello World!");
+        variables.put("half", "50%");
+        variables.put("var", "value");
+        variables.put("who", "fred");
+        variables.put("base", "http://example.com/home/");
+        variables.put("path", "/foo/bar");
+        variables.put("list", Arrays.asList("red", "green", "blue"));
+        variables.put("keys", keys);
+        variables.put("v", "6");
+        variables.put("x", 1024);
+        variables.put("y", "768");
+        variables.put("empty", "");
+        variables.put("empty_keys", Collections.emptyMap());
+        variables.put("undef", null);
+    }
+
+    @Test
+    public void testExpand_level1() throws Exception {
+        assertExpansion("{var}", "value");
+        assertExpansion("{hello}", "Hello%20World%21");
+        assertExpansion("http://example.com/~{who}/", "http://example.com/~fred/");
+    }
+
+    @Test
+    public void testExpand_simple() throws Exception {
+        assertExpansion("{half}", "50%25");
+        assertExpansion("O{empty}X", "OX");
+        assertExpansion("O{undef}X", "OX");
+        assertExpansion("{x,y}", "1024,768");
+        assertExpansion("{x,hello,y}", "1024,Hello%20World%21,768");
+        assertExpansion("?{x,empty}", "?1024,");
+        assertExpansion("?{x,undef}", "?1024");
+        assertExpansion("?{undef,y}", "?768");
+        assertExpansion("{var:3}", "val");
+        assertExpansion("{var:30}", "value");
+        assertExpansion("{list}", "red,green,blue");
+        assertExpansion("{list*}", "red,green,blue");
+        assertExpansion("{keys}", "semi,%3B,dot,.,comma,%2C");
+        assertExpansion("{keys*}", "semi=%3B,dot=.,comma=%2C");
+    }
+
+    @Test
+    public void testExpand_reserved() throws Exception {
+        assertExpansion("{+var}", "value");
+        assertExpansion("{+hello}", "Hello%20World!");
+        assertExpansion("{+half}", "50%25");
+        assertExpansion("{base}index", "http%3A%2F%2Fexample.com%2Fhome%2Findex");
+        assertExpansion("{+base}index", "http://example.com/home/index");
+        assertExpansion("O{+empty}X", "OX");
+        assertExpansion("{+path}/here", "/foo/bar/here");
+        assertExpansion("here?ref={+path}", "here?ref=/foo/bar");
+        assertExpansion("up{+path}{var}/here", "up/foo/barvalue/here");
+        assertExpansion("{+x,hello,y}", "1024,Hello%20World!,768");
+        assertExpansion("{+path,x}/here", "/foo/bar,1024/here");
+        assertExpansion("{+path:6}/here", "/foo/b/here");
+        assertExpansion("{+list}", "red,green,blue");
+        assertExpansion("{+keys}", "semi,;,dot,.,comma,,");
+        assertExpansion("{+keys*}", "semi=;,dot=.,comma=,");
+    }
+
+    @Test
+    public void testExpand_fragment() throws Exception {
+        assertExpansion("{#var}", "#value");
+        assertExpansion("{#hello}", "#Hello%20World!");
+        assertExpansion("{#half}", "#50%25");
+        assertExpansion("foo{#empty}", "foo#");
+        assertExpansion("foo{#undef}", "foo");
+        assertExpansion("{#x,hello,y}", "#1024,Hello%20World!,768");
+        assertExpansion("{#path,x}/here", "#/foo/bar,1024/here");
+        assertExpansion("{#path:6}/here", "#/foo/b/here");
+        assertExpansion("{#list}", "#red,green,blue");
+        assertExpansion("{#list*}", "#red,green,blue");
+        assertExpansion("{#keys}", "#semi,;,dot,.,comma,,");
+        assertExpansion("{#keys*}", "#semi=;,dot=.,comma=,");
+    }
+
+    @Test
+    public void testExpand_label() throws Exception {
+        assertExpansion("{.who}", ".fred");
+        assertExpansion("{.who,who}", ".fred.fred");
+        assertExpansion("{.half,who}", ".50%25.fred");
+        assertExpansion("www{.dom*}", "www.example.com");
+        assertExpansion("X{.var}", "X.value");
+        assertExpansion("X{.empty}", "X.");
+        assertExpansion("X{.undef}", "X");
+        assertExpansion("X{.var:3}", "X.val");
+        assertExpansion("X{.list}", "X.red,green,blue");
+        assertExpansion("X{.list*}", "X.red.green.blue");
+        assertExpansion("X{.keys}", "X.semi,%3B,dot,.,comma,%2C");
+        assertExpansion("X{.keys*}", "X.semi=%3B.dot=..comma=%2C");
+        assertExpansion("X{.empty_keys}", "X");
+        assertExpansion("X{.empty_keys*}", "X");
+    }
+
+    @Test
+    public void testExpand_path() throws Exception {
+        assertExpansion("{/who}", "/fred");
+        assertExpansion("{/who,who}", "/fred/fred");
+        assertExpansion("{/half,who}", "/50%25/fred");
+        assertExpansion("{/who,dub}", "/fred/me%2Ftoo");
+        assertExpansion("{/var}", "/value");
+        assertExpansion("{/var,empty}", "/value/");
+        assertExpansion("{/var,undef}", "/value");
+        assertExpansion("{/var,x}/here", "/value/1024/here");
+        assertExpansion("{/var:1,var}", "/v/value");
+        assertExpansion("{/list}", "/red,green,blue");
+        assertExpansion("{/list*}", "/red/green/blue");
+        assertExpansion("{/list*,path:4}", "/red/green/blue/%2Ffoo");
+        assertExpansion("{/keys}", "/semi,%3B,dot,.,comma,%2C");
+        assertExpansion("{/keys*}", "/semi=%3B/dot=./comma=%2C");
+    }
+
+    @Test
+    public void testExpand_pathParameter() throws Exception {
+        assertExpansion("{;who}", ";who=fred");
+        assertExpansion("{;half}", ";half=50%25");
+        assertExpansion("{;empty}", ";empty");
+        assertExpansion("{;v,empty,who}", ";v=6;empty;who=fred");
+        assertExpansion("{;v,bar,who}", ";v=6;who=fred");
+        assertExpansion("{;x,y}", ";x=1024;y=768");
+        assertExpansion("{;x,y,empty}", ";x=1024;y=768;empty");
+        assertExpansion("{;x,y,undef}", ";x=1024;y=768");
+        assertExpansion("{;hello:5}", ";hello=Hello");
+        assertExpansion("{;list}", ";list=red,green,blue");
+        assertExpansion("{;list*}", ";list=red;list=green;list=blue");
+        assertExpansion("{;keys}", ";keys=semi,%3B,dot,.,comma,%2C");
+        assertExpansion("{;keys*}", ";semi=%3B;dot=.;comma=%2C");
+    }
+
+    @Test
+    public void testExpand_query() throws Exception {
+        assertExpansion("{?who}", "?who=fred");
+        assertExpansion("{?half}", "?half=50%25");
+        assertExpansion("{?x,y}", "?x=1024&y=768");
+        assertExpansion("{?x,y,empty}", "?x=1024&y=768&empty=");
+        assertExpansion("{?x,y,undef}", "?x=1024&y=768");
+        assertExpansion("{?var:3}", "?var=val");
+        assertExpansion("{?list}", "?list=red,green,blue");
+        assertExpansion("{?list*}", "?list=red&list=green&list=blue");
+        assertExpansion("{?keys}", "?keys=semi,%3B,dot,.,comma,%2C");
+        assertExpansion("{?keys*}", "?semi=%3B&dot=.&comma=%2C");
+    }
+
+    @Test
+    public void testExpand_queryContinuation() throws Exception {
+        assertExpansion("{&who}", "&who=fred");
+        assertExpansion("{&half}", "&half=50%25");
+        assertExpansion("?fixed=yes{&x}", "?fixed=yes&x=1024");
+        assertExpansion("{&x,y,empty}", "&x=1024&y=768&empty=");
+        assertExpansion("{&var:3}", "&var=val");
+        assertExpansion("{&list}", "&list=red,green,blue");
+        assertExpansion("{&list*}", "&list=red&list=green&list=blue");
+        assertExpansion("{&keys}", "&keys=semi,%3B,dot,.,comma,%2C");
+        assertExpansion("{&keys*}", "&semi=%3B&dot=.&comma=%2C");
+    }
+
+    @Test
+    public void testExpand_nonAsciiValues() throws Exception {
+        variables.put("word", "d\u00e9j\u00e0 \uD83D\uDE00");
+
+        assertExpansion("{word}", "d%C3%A9j%C3%A0%20%F0%9F%98%80");
+        assertExpansion("{word:6}", "d%C3%A9j%C3%A0%20%F0%9F%98%80");
+        assertExpansion("{word:2}", "d%C3%A9");
+    }
+
+    @Test
+    public void testExpand_literalEncoded() throws Exception {
+        assertExpansion("/a b/%20/{var}", "/a%20b/%20/value");
+    }
+
+    @Test
+    public void testExpand_toStringBuilder() throws Exception {
+        final StringBuilder out = new StringBuilder("http://host");
+
+        UriTemplate.compile("{/var}{?x}").expand(variables, out);
+
+        assertEquals("http://host/value?x=1024", out.toString());
+    }
+
+    @Test
+    public void testGetVariableNames() throws Exception {
+        final UriTemplate template = UriTemplate.compile("{/var,x}/here{?x,y,list*}{&keys:3}");
+
+        assertEquals(Arrays.asList("var", "x", "y", "list", "keys"), template.getVariableNames());
+        assertEquals("{/var,x}/here{?x,y,list*}{&keys:3}", template.getTemplate());
+    }
+
+    @Test
+    public void testCompile_invalid() throws Exception {
+        for (final String template : Arrays.asList("{var", "var}", "{}", "{=var}", "{var:0}", "{var:10000}",
+                "{var:3*}", "{a b}", "{a,}", "{.a..b}", "{var:x}")) {
+            try {
+                UriTemplate.compile(template);
+                fail("accepted invalid template " + template);
+            } catch (final IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains(template));
+            }
+        }
+    }
+
+    @Test
+    public void testLink_fromTemplate() throws Exception {
+        final Link link = Link.fromTemplate("search", UriTemplate.compile("/search{?q,page}"),
+                Collections.singletonMap("q", "halite json"));
+
+        assertEquals("search", link.getRel());
+        assertEquals("/search?q=halite%20json", link.getHref());
+        assertEquals(null, link.isTemplated());
+    }
+
+    @Test
+    public void testLink_templated() throws Exception {
+        final Link link = Link.templated("search", UriTemplate.compile("/search{?q,page}"));
+
+        assertEquals("/search{?q,page}", link.getHref());
+        assertTrue(link.isTemplated());
+    }
+
+    private void assertExpansion(final String template, final String expected) {
+        assertEquals(template, expected, UriTemplate.compile(template).expand(variables));
+    }
+}
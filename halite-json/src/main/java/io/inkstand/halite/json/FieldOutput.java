@@ -0,0 +1,128 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.SerializableString;
+
+/**
+ * Output for the fields written by a {@link ResourceSerializer}. The output writes the values in the same format as
+ * the reflective serialization of the {@link JsonHalWriter}, including the handling of <code>null</code> values.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public interface FieldOutput {
+
+    /**
+     * Writes a field of type int, short or byte
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, int value) throws IOException;
+
+    /**
+     * Writes a field of type long
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, long value) throws IOException;
+
+    /**
+     * Writes a field of type float
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, float value) throws IOException;
+
+    /**
+     * Writes a field of type double
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, double value) throws IOException;
+
+    /**
+     * Writes a field of type boolean
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, boolean value) throws IOException;
+
+    /**
+     * Writes a field of type char as a string of length 1
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field
+     * @throws IOException
+     */
+    void writeField(SerializableString name, char value) throws IOException;
+
+    /**
+     * Writes a field of type {@link String}
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field, may be <code>null</code>
+     * @throws IOException
+     */
+    void writeField(SerializableString name, String value) throws IOException;
+
+    /**
+     * Writes a field whose declared type is a {@link Collection} as json array
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field, may be <code>null</code>
+     * @throws IOException
+     */
+    void writeCollectionField(SerializableString name, Collection<?> value) throws IOException;
+
+    /**
+     * Writes a field whose declared type is a {@link io.inkstand.halite.Resource}
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field, may be <code>null</code>
+     * @param declaredType
+     *            the declared type of the field whose fields are written
+     * @throws IOException
+     */
+    void writeResourceField(SerializableString name, Object value, Class<?> declaredType) throws IOException;
+
+    /**
+     * Writes any other field using the codec of the generator
+     *
+     * @param name
+     *            the pre-encoded name of the field
+     * @param value
+     *            the value of the field, may be <code>null</code>
+     * @throws IOException
+     */
+    void writeObjectField(SerializableString name, Object value) throws IOException;
+}
@@ -0,0 +1,58 @@
+package io.inkstand.halite.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.inkstand.halite.RelRegistry;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * The fixed field names of the json+hal format. The names are pre-encoded so that the generator can write them without
+ * encoding them for every written resource or link. The names of the relations registered in the {@link RelRegistry}
+ * are encoded once on first use.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class HalKeys {
+
+    static final SerializableString LINKS = new SerializedString("_links");
+    static final SerializableString EMBEDDED = new SerializedString("_embedded");
+
+    static final SerializableString NAME = new SerializedString("name");
+    static final SerializableString TITLE = new SerializedString("title");
+    static final SerializableString HREF = new SerializedString("href");
+    static final SerializableString HREFLANG = new SerializedString("hreflang");
+    static final SerializableString TYPE = new SerializedString("type");
+    static final SerializableString PROFILE = new SerializedString("profile");
+    static final SerializableString DEPRECATION = new SerializedString("deprecation");
+    static final SerializableString TEMPLATED = new SerializedString("templated");
+
+    private static final AtomicReferenceArray<SerializableString> RELS = new AtomicReferenceArray<>(
+            RelRegistry.MAX_SIZE);
+
+    private HalKeys() {
+    }
+
+    /**
+     * Provides the pre-encoded name of a relation
+     *
+     * @param rel
+     *            the relation
+     * @return the encoded name or <code>null</code> if the relation is not registered
+     */
+    static SerializableString rel(final String rel) {
+        final int id = RelRegistry.lookup(rel);
+        if (id == RelRegistry.NO_ID) {
+            return null;
+        }
+        SerializableString name = RELS.get(id);
+        if (name == null) {
+            // concurrent callers may encode the name twice, which is harmless
+            name = new SerializedString(RelRegistry.nameOf(id));
+            RELS.lazySet(id, name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,25 @@
+package io.inkstand.halite.json;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a subclass of {@link io.inkstand.halite.Resource} for which a {@link ResourceSerializer} should be generated at
+ * compile time. The serializer is generated by the annotation processor of the halite-apt module, which has to be on
+ * the compile classpath. The generated serializer writes the same json as the reflective serialization of the
+ * {@link JsonHalWriter} but reads the fields directly instead of through reflection. Therefore every field of the type
+ * and its supertypes must be accessible from the type's package, otherwise no serializer is generated and the type is
+ * written by the runtime serializer engine.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface HalResource {
+
+}
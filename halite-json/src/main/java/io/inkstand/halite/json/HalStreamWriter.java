@@ -0,0 +1,519 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A push-style writer that writes json+hal directly to the generator of a {@link JsonHalWriter} without building a
+ * {@link Resource} tree. A resource is written by a sequence of calls that follows the HAL ordering: first the links,
+ * then the embedded relations, and then the properties of the resource.
+ *
+ * <pre>
+ * stream.startResource().link(HAL.SELF, &quot;/orders&quot;);
+ * stream.startEmbedded(&quot;order&quot;);
+ * for (Order order : orders) {
+ *     stream.startResource().link(HAL.SELF, order.getUri()).property(&quot;total&quot;, order.getTotal()).endResource();
+ * }
+ * stream.endEmbedded();
+ * stream.property(&quot;count&quot;, orders.size()).endResource();
+ * </pre>
+ *
+ * The output is the same as the {@link JsonHalWriter} produces for the equivalent resource tree, using the options of
+ * the writer. As the writer writes an embedded relation with a single resource as object but a relation with more
+ * resources as array, the events of the first resource of a relation are kept until the second resource starts or the
+ * relation ends. Apart from that first resource and the links of the resources currently written, nothing is kept, so
+ * relations of any size are written in constant memory. <br>
+ * Calls that violate the HAL ordering are rejected with an {@link IllegalStateException}. Note: The implementation is
+ * not thread safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class HalStreamWriter {
+
+    /**
+     * The types of events that make up a resource
+     */
+    private static enum EventType {
+        START_RESOURCE(1),
+        LINK(0),
+        START_EMBEDDED(1),
+        END_EMBEDDED(-1),
+        PROPERTY(0),
+        END_RESOURCE(-1), ;
+
+        /**
+         * The change of the nesting depth caused by the event
+         */
+        private final int nesting;
+
+        EventType(final int nesting) {
+            this.nesting = nesting;
+        }
+    }
+
+    /**
+     * An event that is kept while the first resource of an embedded relation is recorded
+     */
+    private static final class Event {
+
+        private final EventType type;
+        private final String name;
+        private final Object value;
+
+        Event(final EventType type, final String name, final Object value) {
+            this.type = type;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The phases of a resource, which must be passed in this order
+     */
+    private static final int LINKS = 0;
+    private static final int EMBEDDED = 1;
+    private static final int PROPERTIES = 2;
+
+    /**
+     * A resource or embedded relation that has been started by the caller and not yet ended. Used to check the order
+     * of the calls.
+     */
+    private static final class Scope {
+
+        private final boolean relation;
+
+        private int phase = LINKS;
+
+        /**
+         * The embedded relations of the resource that have been started
+         */
+        private Set<String> embeddedRels;
+
+        Scope(final boolean relation) {
+            this.relation = relation;
+        }
+    }
+
+    /**
+     * A resource that is being written
+     */
+    private static final class ResourceFrame {
+
+        /**
+         * The links of the resource by relation, kept until the links are written
+         */
+        private Map<String, List<Link>> links;
+
+        private boolean linksWritten;
+
+        private int phase = LINKS;
+    }
+
+    /**
+     * An embedded relation that is being written
+     */
+    private static final class RelFrame {
+
+        /**
+         * Whether a resource of the relation has been started
+         */
+        private boolean started;
+
+        private boolean array;
+
+        /**
+         * The events of the first resource while they are recorded
+         */
+        private List<Event> first;
+    }
+
+    private final JsonHalWriter writer;
+
+    private final JsonGenerator json;
+
+    /**
+     * The resources and relations started by the caller
+     */
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+
+    /**
+     * The resources and relations being written, each is a {@link ResourceFrame} or a {@link RelFrame}
+     */
+    private final Deque<Object> frames = new ArrayDeque<>();
+
+    /**
+     * The number of {@link ResourceFrame}s being written
+     */
+    private int depth;
+
+    /**
+     * The relation whose first resource is being recorded
+     */
+    private RelFrame recording;
+
+    private int recordingDepth;
+
+    /**
+     * The nesting depth within an embedded relation that is not written
+     */
+    private int skippingDepth;
+
+    /**
+     * Creates a stream writer that writes to the generator of the writer using the options of the writer
+     *
+     * @param writer
+     *            the writer to write to. Resources may be written by the writer as long as no resource is started on
+     *            the stream writer.
+     */
+    public HalStreamWriter(final JsonHalWriter writer) {
+        this.writer = writer;
+        this.json = writer.generator();
+    }
+
+    /**
+     * Starts a resource. A resource is either the top-level resource of a document or a resource embedded in the
+     * relation started last.
+     *
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if a resource is started within a resource
+     */
+    public HalStreamWriter startResource() throws IOException {
+        final Scope scope = scopes.peek();
+        if (scope != null && !scope.relation) {
+            throw new IllegalStateException("A resource can only be started in an embedded relation");
+        }
+        scopes.push(new Scope(false));
+        process(new Event(EventType.START_RESOURCE, null, null));
+        return this;
+    }
+
+    /**
+     * Adds a link to the current resource
+     *
+     * @param rel
+     *            the relation of the link
+     * @param href
+     *            the target of the link
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if an embedded relation or a property has been written for the current resource
+     */
+    public HalStreamWriter link(final String rel, final String href) throws IOException {
+        return link(HAL.newLink(rel, href));
+    }
+
+    /**
+     * Adds a link to the current resource. Links of the same relation are written together in the order they have been
+     * added.
+     *
+     * @param link
+     *            the link to add. The link must not be modified until the current resource has ended.
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if an embedded relation or a property has been written for the current resource
+     */
+    public HalStreamWriter link(final Link link) throws IOException {
+        if (currentResource().phase != LINKS) {
+            throw new IllegalStateException("Link " + link.getRel()
+                    + " must be written before embedded resources and properties");
+        }
+        process(new Event(EventType.LINK, link.getRel(), link));
+        return this;
+    }
+
+    /**
+     * Starts an embedded relation of the current resource. The resources of the relation are written using
+     * {@link #startResource()} and {@link #endResource()} and the relation is ended with {@link #endEmbedded()}.
+     *
+     * @param rel
+     *            the relation
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if a property has been written for the current resource or the relation has been written already
+     */
+    public HalStreamWriter startEmbedded(final String rel) throws IOException {
+        final Scope scope = currentResource();
+        if (scope.phase == PROPERTIES) {
+            throw new IllegalStateException("Embedded relation " + rel + " must be written before properties");
+        }
+        if (scope.embeddedRels == null) {
+            scope.embeddedRels = new HashSet<>();
+        }
+        if (!scope.embeddedRels.add(rel)) {
+            throw new IllegalStateException("Embedded relation " + rel + " has been written already");
+        }
+        scope.phase = EMBEDDED;
+        scopes.push(new Scope(true));
+        process(new Event(EventType.START_EMBEDDED, rel, null));
+        return this;
+    }
+
+    /**
+     * Ends the embedded relation started last
+     *
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if no relation is started or a resource of the relation has not been ended
+     */
+    public HalStreamWriter endEmbedded() throws IOException {
+        final Scope scope = scopes.peek();
+        if (scope == null || !scope.relation) {
+            throw new IllegalStateException("No embedded relation has been started");
+        }
+        scopes.pop();
+        process(new Event(EventType.END_EMBEDDED, null, null));
+        return this;
+    }
+
+    /**
+     * Writes a property of the current resource. The value is written by the codec of the writer's generator, so
+     * resources should be embedded instead of being written as property values.
+     *
+     * @param name
+     *            the name of the property
+     * @param value
+     *            the value of the property. A <code>null</code> value is only written if the
+     *            {@link JsonHalWriter.Option#WRITE_NULLS} option is set.
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if no resource is started or an embedded relation of the resource has not been ended
+     */
+    public HalStreamWriter property(final String name, final Object value) throws IOException {
+        currentResource().phase = PROPERTIES;
+        process(new Event(EventType.PROPERTY, name, value));
+        return this;
+    }
+
+    /**
+     * Ends the current resource. Once the top-level resource has ended, the output is flushed and, depending on the
+     * {@link JsonHalWriter.Option#CLOSE_ON_WRITE_RESOURCE} option, the generator is closed.
+     *
+     * @return this writer
+     * @throws IOException
+     * @throws IllegalStateException
+     *             if no resource is started or an embedded relation of the resource has not been ended
+     */
+    public HalStreamWriter endResource() throws IOException {
+        currentResource();
+        scopes.pop();
+        process(new Event(EventType.END_RESOURCE, null, null));
+        if (scopes.isEmpty() && writer.config().closeOnWriteResource) {
+            json.close();
+        }
+        return this;
+    }
+
+    /**
+     * @return the scope of the resource started last
+     * @throws IllegalStateException
+     *             if no resource is started or an embedded relation has been started last
+     */
+    private Scope currentResource() {
+        final Scope scope = scopes.peek();
+        if (scope == null) {
+            throw new IllegalStateException("No resource has been started");
+        }
+        if (scope.relation) {
+            throw new IllegalStateException("The embedded relation started last has not been ended");
+        }
+        return scope;
+    }
+
+    /**
+     * Writes an event or keeps it if it belongs to the first resource of an embedded relation.
+     *
+     * @param event
+     *            the event to process
+     * @throws IOException
+     */
+    private void process(final Event event) throws IOException {
+        if (skippingDepth > 0) {
+            skippingDepth += event.type.nesting;
+            return;
+        }
+        if (recording != null) {
+            if (recordingDepth > 0 || event.type != EventType.START_RESOURCE && event.type != EventType.END_EMBEDDED) {
+                recordingDepth += event.type.nesting;
+                recording.first.add(event);
+                return;
+            }
+            // the first resource has ended, the relation is an array if a second resource starts
+            final RelFrame rel = recording;
+            final List<Event> first = rel.first;
+            recording = null;
+            rel.first = null;
+            rel.array = event.type == EventType.START_RESOURCE;
+            if (rel.array) {
+                json.writeStartArray();
+            }
+            for (final Event recorded : first) {
+                process(recorded);
+            }
+        }
+        switch (event.type) {
+        case START_RESOURCE:
+            writeStartResource(event);
+            break;
+        case LINK:
+            addLink((Link) event.value);
+            break;
+        case START_EMBEDDED:
+            writeStartEmbedded(event.name);
+            break;
+        case END_EMBEDDED:
+            writeEndEmbedded();
+            break;
+        case PROPERTY:
+            writeProperty(event.name, event.value);
+            break;
+        default:
+            writeEndResource();
+            break;
+        }
+    }
+
+    private void writeStartResource(final Event event) throws IOException {
+        final Object frame = frames.peek();
+        if (frame instanceof RelFrame && !((RelFrame) frame).started) {
+            final RelFrame rel = (RelFrame) frame;
+            rel.started = true;
+            rel.first = new ArrayList<>();
+            rel.first.add(event);
+            recording = rel;
+            recordingDepth = 1;
+            return;
+        }
+        json.writeStartObject();
+        frames.push(new ResourceFrame());
+        depth++;
+    }
+
+    private void addLink(final Link link) {
+        final ResourceFrame resource = (ResourceFrame) frames.peek();
+        if (resource.links == null) {
+            resource.links = new LinkedHashMap<>();
+        }
+        List<Link> relLinks = resource.links.get(link.getRel());
+        if (relLinks == null) {
+            relLinks = new ArrayList<>(1);
+            resource.links.put(link.getRel(), relLinks);
+        }
+        relLinks.add(link);
+    }
+
+    private void writeStartEmbedded(final String rel) throws IOException {
+        final ResourceFrame resource = (ResourceFrame) frames.peek();
+        writeLinks(resource);
+        final WriterConfig config = writer.config();
+        if (config.embeddedRels != null && !config.embeddedRels.contains(rel)) {
+            skippingDepth = 1;
+            return;
+        }
+        if (resource.phase == LINKS) {
+            json.writeFieldName(HalKeys.EMBEDDED);
+            json.writeStartObject();
+            resource.phase = EMBEDDED;
+        }
+        writer.writeRelName(rel);
+        frames.push(new RelFrame());
+    }
+
+    private void writeEndEmbedded() throws IOException {
+        final RelFrame rel = (RelFrame) frames.pop();
+        if (!rel.started) {
+            json.writeStartArray();
+            json.writeEndArray();
+        } else if (rel.array) {
+            json.writeEndArray();
+        }
+        writer.flushElement();
+    }
+
+    private void writeProperty(final String name, final Object value) throws IOException {
+        endEmbedded((ResourceFrame) frames.peek());
+        if (value != null) {
+            json.writeFieldName(name);
+            json.writeObject(value);
+        } else if (writer.config().writeNulls) {
+            json.writeFieldName(name);
+            json.writeNull();
+        }
+    }
+
+    private void writeEndResource() throws IOException {
+        endEmbedded((ResourceFrame) frames.pop());
+        json.writeEndObject();
+        depth--;
+        if (depth == 0) {
+            // end of the document
+            json.flush();
+            return;
+        }
+        writer.flushElement();
+        if (depth == 1 && writer.config().flushPolicy == JsonHalWriter.FlushPolicy.EMBEDDED_ITEM) {
+            json.flush();
+        }
+    }
+
+    /**
+     * Writes the _links field of the resource unless it has been written already
+     */
+    private void writeLinks(final ResourceFrame resource) throws IOException {
+        if (resource.linksWritten) {
+            return;
+        }
+        json.writeFieldName(HalKeys.LINKS);
+        json.writeStartObject();
+        if (resource.links != null) {
+            for (final Map.Entry<String, List<Link>> relLinks : resource.links.entrySet()) {
+                writer.writeLink(relLinks.getKey(), relLinks.getValue());
+            }
+        }
+        json.writeEndObject();
+        writer.flushElement();
+        resource.links = null;
+        resource.linksWritten = true;
+    }
+
+    /**
+     * Writes the links of the resource if not written yet and ends its _embedded field, or writes an empty one if the
+     * {@link JsonHalWriter.Option#WRITE_EMPTY_EMBEDDED} option is set.
+     */
+    private void endEmbedded(final ResourceFrame resource) throws IOException {
+        if (resource.phase == PROPERTIES) {
+            return;
+        }
+        writeLinks(resource);
+        if (resource.phase == EMBEDDED) {
+            json.writeEndObject();
+            writer.flushElement();
+        } else if (writer.config().writeEmptyEmbedded) {
+            json.writeFieldName(HalKeys.EMBEDDED);
+            json.writeStartObject();
+            json.writeEndObject();
+            writer.flushElement();
+        }
+        resource.phase = PROPERTIES;
+    }
+}
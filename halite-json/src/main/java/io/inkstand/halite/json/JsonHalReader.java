@@ -0,0 +1,609 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A reader that is able to read a halite {@link Resource} from an {@link InputStream} or {@link Reader} using a
+ * {@link JsonParser}. The reader consumes the json token by token and creates the resource, its {@link Link}s and
+ * embedded resources directly without building an intermediate tree. An embedded relation may contain a single
+ * resource or an array of resources. <br>
+ * If the resource is read into a subtype of {@link Resource}, the json fields are mapped onto the fields of the
+ * subtype as listed in its {@link SerializationPlan}. Json fields without matching field are skipped, as are embedded
+ * relations that are not selected for reading. Embedded resources are read as {@link Resource} unless another type is
+ * set for their relation. The resources are created using the no-arg constructor of their type, which should not add
+ * any links as all links are read from the json. <br>
+ * A reader that reads from a byte array may parse the embedded resources lazily. In this mode only the byte ranges of
+ * the embedded resources are recorded while reading and each resource is parsed on its first access, see
+ * {@link #setLazyEmbedded(boolean)}. <br>
+ * Note: The implementation is not thread safe. Use a separate reader per thread.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class JsonHalReader {
+
+    /**
+     * The mapper used as codec for reading non-resource values if no other mapper is specified.
+     */
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
+
+    /**
+     * Factory to create the parser
+     */
+    private static final JsonFactory FACTORY = DEFAULT_MAPPER.getFactory();
+
+    /**
+     * The no-arg constructors of the resource types, made accessible once per type
+     */
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+
+        @Override
+        protected Constructor<?> computeValue(final Class<?> type) {
+            try {
+                final Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (final NoSuchMethodException e) {
+                throw new IllegalArgumentException("Type " + type.getName() + " has no no-arg constructor", e);
+            }
+        }
+    };
+
+    /**
+     * The parser to read json
+     */
+    private final JsonParser json;
+
+    /**
+     * The mapper to read non-resource values
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Flag to indicate the parser should be closed after a resource has been read
+     */
+    private final boolean closeOnRead;
+
+    /**
+     * The types to read the embedded resources of a relation into
+     */
+    private final Map<String, Class<? extends Resource>> embeddedTypes = new HashMap<>();
+
+    /**
+     * The embedded relations to read. If <code>null</code>, all relations are read.
+     */
+    private Set<String> embeddedRels;
+
+    /**
+     * The buffer the parser reads from. Only set if the reader has been created for a byte array.
+     */
+    private byte[] buffer;
+
+    /**
+     * The offset of the json data in the buffer. The byte offsets reported by the parser are relative to it.
+     */
+    private int bufferOffset;
+
+    /**
+     * Flag to indicate embedded resources are parsed on first access
+     */
+    private boolean lazyEmbedded;
+
+    /**
+     * Constructor for a reader that uses the specified mapper for reading non-resource values.
+     *
+     * @param parser
+     *            the parser to read from
+     * @param closeOnRead
+     *            <code>true</code> if the parser should be closed after a resource has been read
+     * @param mapper
+     *            the mapper to read non-resource values.
+     */
+    JsonHalReader(final JsonParser parser, final boolean closeOnRead, final ObjectMapper mapper) {
+        this.json = parser;
+        this.closeOnRead = closeOnRead;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Constructor for creating a JsonHalReader on top of an existing {@link JsonParser}. The parser is not closed after
+     * a resource has been read.
+     *
+     * @param parser
+     *            the parser to use
+     */
+    public JsonHalReader(final JsonParser parser) {
+        this(parser, false, DEFAULT_MAPPER);
+    }
+
+    /**
+     * Constructor for reading json input from the {@link Reader}. The reader is closed after the resource has been
+     * read.
+     *
+     * @param reader
+     *            the reader from which the json data is read
+     * @throws IOException
+     */
+    public JsonHalReader(final Reader reader) throws IOException {
+        this(FACTORY.createParser(reader), true, DEFAULT_MAPPER);
+    }
+
+    /**
+     * Constructor for reading json input from the {@link InputStream}. The stream is closed after the resource has
+     * been read.
+     *
+     * @param inputStream
+     *            the stream from which the json data is read
+     * @throws IOException
+     */
+    public JsonHalReader(final InputStream inputStream) throws IOException {
+        this(FACTORY.createParser(inputStream), true, DEFAULT_MAPPER);
+    }
+
+    /**
+     * Constructor for reading json input from a byte array.
+     *
+     * @param data
+     *            the array containing the json data
+     * @throws IOException
+     */
+    public JsonHalReader(final byte[] data) throws IOException {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Constructor for reading json input from a range of a byte array. The array must not be modified as long as
+     * lazily parsed resources read from it are in use.
+     *
+     * @param data
+     *            the array containing the json data
+     * @param offset
+     *            the offset of the json data in the array
+     * @param length
+     *            the length of the json data
+     * @throws IOException
+     */
+    public JsonHalReader(final byte[] data, final int offset, final int length) throws IOException {
+        this(FACTORY.createParser(data, offset, length), true, DEFAULT_MAPPER);
+        this.buffer = data;
+        this.bufferOffset = offset;
+    }
+
+    /**
+     * Sets whether embedded resources are parsed lazily. If enabled, the embedded resources are skipped while reading
+     * and the lists returned by {@link Resource#getEmbedded(String)} parse each resource from its byte range on first
+     * access. Reading a single embedded resource of a large collection therefore costs little more than reading the
+     * links. Lazy parsing is only supported for readers that read from a byte array.
+     *
+     * @param lazy
+     *            <code>true</code> to parse embedded resources on first access
+     * @return this reader
+     * @throws IllegalStateException
+     *             if lazy parsing is enabled for a reader that does not read from a byte array
+     */
+    public JsonHalReader setLazyEmbedded(final boolean lazy) {
+        if (lazy && buffer == null) {
+            throw new IllegalStateException("Lazy parsing of embedded resources requires a byte array as input");
+        }
+        this.lazyEmbedded = lazy;
+        return this;
+    }
+
+    /**
+     * Sets the type into which the embedded resources of a relation are read.
+     *
+     * @param rel
+     *            the relation of the embedded resources
+     * @param type
+     *            the type of the resources. The type needs a no-arg constructor, which may be non-public.
+     * @return this reader
+     */
+    public JsonHalReader setEmbeddedType(final String rel, final Class<? extends Resource> type) {
+        this.embeddedTypes.put(rel, type);
+        return this;
+    }
+
+    /**
+     * Selects the embedded relations to be read. The embedded resources of all other relations are skipped without
+     * creating any objects for them. By default, all relations are read.
+     *
+     * @param rels
+     *            the relations to read. If no relation is specified, no embedded resources are read.
+     * @return this reader
+     */
+    public JsonHalReader setEmbeddedRels(final String... rels) {
+        this.embeddedRels = new HashSet<>(Arrays.asList(rels));
+        return this;
+    }
+
+    /**
+     * Reads a {@link Resource}.
+     *
+     * @return the resource that has been read
+     * @throws IOException
+     *             if basic IO operations or the json parsing failed.
+     */
+    public Resource read() throws IOException {
+        return read(Resource.class);
+    }
+
+    /**
+     * Reads a resource of the specified type.
+     *
+     * @param type
+     *            the type of the resource. The type needs a no-arg constructor, which may be non-public.
+     * @return the resource that has been read
+     * @throws IOException
+     *             if basic IO operations or the json parsing failed.
+     */
+    public <T extends Resource> T read(final Class<T> type) throws IOException {
+        try {
+            if (json.getCurrentToken() != JsonToken.START_OBJECT) {
+                json.nextToken();
+            }
+            expect(JsonToken.START_OBJECT);
+            return type.cast(readResourceValue(type));
+        } finally {
+            if (closeOnRead) {
+                json.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the body of a resource. The parser has to be positioned at the start of the json object. When the method
+     * returns, the parser is positioned at the end of the object.
+     *
+     * @param type
+     *            the type of the resource to create
+     * @return the resource
+     * @throws IOException
+     */
+    private Resource readResourceValue(final Class<?> type) throws IOException {
+        final Resource resource = newResource(type);
+        final SerializationPlan plan = SerializationPlan.of(type);
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = json.getCurrentName();
+            json.nextToken();
+            if ("_links".equals(name)) {
+                readLinks(resource);
+            } else if ("_embedded".equals(name)) {
+                readEmbedded(resource);
+            } else {
+                final SerializationPlan.Property property = plan.getProperty(name);
+                if (property != null && property.isWritable()) {
+                    readFieldValue(resource, property);
+                } else {
+                    json.skipChildren();
+                }
+            }
+        }
+        expect(JsonToken.END_OBJECT);
+        return resource;
+    }
+
+    /**
+     * Reads the _links field into the resource.
+     *
+     * @param resource
+     *            the resource to add the links to
+     * @throws IOException
+     */
+    private void readLinks(final Resource resource) throws IOException {
+        expect(JsonToken.START_OBJECT);
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            final String rel = json.getCurrentName();
+            if (json.nextToken() == JsonToken.START_ARRAY) {
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    resource.addLink(readLink(rel));
+                }
+            } else {
+                resource.addLink(readLink(rel));
+            }
+        }
+    }
+
+    /**
+     * Reads a single link. The parser has to be positioned at the start of the link object.
+     *
+     * @param rel
+     *            the relation of the link
+     * @return the link
+     * @throws IOException
+     */
+    private Link readLink(final String rel) throws IOException {
+        expect(JsonToken.START_OBJECT);
+        String href = null;
+        String name = null;
+        String title = null;
+        String hreflang = null;
+        String type = null;
+        String profile = null;
+        String deprecation = null;
+        Boolean templated = null;
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = json.getCurrentName();
+            final JsonToken token = json.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+            case "href":
+                href = json.getText();
+                break;
+            case "name":
+                name = json.getText();
+                break;
+            case "title":
+                title = json.getText();
+                break;
+            case "hreflang":
+                hreflang = json.getText();
+                break;
+            case "type":
+                type = json.getText();
+                break;
+            case "profile":
+                profile = json.getText();
+                break;
+            case "deprecation":
+                deprecation = json.getText();
+                break;
+            case "templated":
+                templated = json.getBooleanValue();
+                break;
+            default:
+                json.skipChildren();
+                break;
+            }
+        }
+        if (href == null) {
+            throw new JsonParseException("Link of relation " + rel + " has no href", json.getCurrentLocation());
+        }
+        return new Link(rel, href).name(name).title(title).hreflang(hreflang).type(type).profile(profile)
+                .deprecation(deprecation).templated(templated);
+    }
+
+    /**
+     * Reads the _embedded field into the resource. Relations that are not selected are skipped.
+     *
+     * @param resource
+     *            the resource to embed the resources into
+     * @throws IOException
+     */
+    private void readEmbedded(final Resource resource) throws IOException {
+        expect(JsonToken.START_OBJECT);
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            final String rel = json.getCurrentName();
+            json.nextToken();
+            if (embeddedRels != null && !embeddedRels.contains(rel)) {
+                json.skipChildren();
+                continue;
+            }
+            final Class<?> type = getEmbeddedType(rel);
+            if (lazyEmbedded) {
+                resource.embedList(rel, readLazyEmbedded(type));
+            } else if (json.getCurrentToken() == JsonToken.START_ARRAY) {
+                final List<Resource> resources = new ArrayList<>();
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    expect(JsonToken.START_OBJECT);
+                    resources.add(readResourceValue(type));
+                }
+                resource.embed(rel, resources.toArray(new Resource[resources.size()]));
+            } else {
+                expect(JsonToken.START_OBJECT);
+                resource.embed(rel, readResourceValue(type));
+            }
+        }
+    }
+
+    /**
+     * Records the byte ranges of the resources of an embedded relation without parsing them. The parser has to be
+     * positioned at the start of the single resource object or the array of resources.
+     *
+     * @param type
+     *            the type of the resources
+     * @return the list that parses the resources on first access
+     * @throws IOException
+     */
+    private LazyEmbeddedList readLazyEmbedded(final Class<?> type) throws IOException {
+        int[] starts = new int[1];
+        int[] ends = new int[1];
+        int size = 0;
+        final boolean isArray = json.getCurrentToken() == JsonToken.START_ARRAY;
+        if (isArray) {
+            json.nextToken();
+        }
+        while (!isArray || json.getCurrentToken() != JsonToken.END_ARRAY) {
+            expect(JsonToken.START_OBJECT);
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            // the token location is not exact for values of fields, but the current location is right after the token
+            starts[size] = bufferOffset + (int) json.getCurrentLocation().getByteOffset() - 1;
+            json.skipChildren();
+            ends[size] = bufferOffset + (int) json.getCurrentLocation().getByteOffset();
+            size++;
+            if (!isArray) {
+                break;
+            }
+            json.nextToken();
+        }
+        return new LazyEmbeddedList(this, type, starts, ends, size);
+    }
+
+    /**
+     * Reads a resource from a range of the buffer of this reader. The resource is read with the configuration of this
+     * reader.
+     *
+     * @param type
+     *            the type of the resource
+     * @param offset
+     *            the offset of the resource in the buffer
+     * @param length
+     *            the length of the resource in bytes
+     * @return the resource
+     * @throws IOException
+     */
+    Resource readRange(final Class<?> type, final int offset, final int length) throws IOException {
+        final JsonHalReader reader = new JsonHalReader(mapper.getFactory().createParser(buffer, offset, length), true,
+                mapper);
+        reader.buffer = buffer;
+        reader.bufferOffset = offset;
+        reader.lazyEmbedded = lazyEmbedded;
+        reader.embeddedRels = embeddedRels;
+        reader.embeddedTypes.putAll(embeddedTypes);
+        try {
+            reader.json.nextToken();
+            reader.expect(JsonToken.START_OBJECT);
+            return reader.readResourceValue(type);
+        } finally {
+            reader.json.close();
+        }
+    }
+
+    /**
+     * Reads the value of a field of a resource subtype. The parser has to be positioned at the first token of the
+     * value.
+     *
+     * @param resource
+     *            the resource whose field is set
+     * @param property
+     *            the property describing the field
+     * @throws IOException
+     */
+    private void readFieldValue(final Resource resource, final SerializationPlan.Property property)
+            throws IOException {
+        if (json.getCurrentToken() == JsonToken.VALUE_NULL) {
+            if (!property.getType().isPrimitive()) {
+                property.setValue(resource, null);
+            }
+            return;
+        }
+        final Object value;
+        switch (property.getKind()) {
+        case RESOURCE:
+            expect(JsonToken.START_OBJECT);
+            value = readResourceValue(property.getType());
+            break;
+        case COLLECTION:
+            value = readCollectionValue(property);
+            break;
+        default:
+            value = mapper.readValue(json, mapper.getTypeFactory().constructType(property.getGenericType()));
+            break;
+        }
+        property.setValue(resource, value);
+    }
+
+    /**
+     * Reads a collection. Collections of resources are read element by element, all other collections are read by the
+     * mapper.
+     *
+     * @param property
+     *            the property describing the collection field
+     * @return the collection
+     * @throws IOException
+     */
+    private Object readCollectionValue(final SerializationPlan.Property property) throws IOException {
+        final Class<?> elementType = getElementType(property.getGenericType());
+        if (elementType == null || !Resource.class.isAssignableFrom(elementType)) {
+            return mapper.readValue(json, mapper.getTypeFactory().constructType(property.getGenericType()));
+        }
+        expect(JsonToken.START_ARRAY);
+        final Collection<Object> collection = newCollection(property.getType());
+        while (json.nextToken() != JsonToken.END_ARRAY) {
+            if (json.getCurrentToken() == JsonToken.VALUE_NULL) {
+                collection.add(null);
+            } else {
+                expect(JsonToken.START_OBJECT);
+                collection.add(readResourceValue(elementType));
+            }
+        }
+        return collection;
+    }
+
+    private Class<?> getEmbeddedType(final String rel) {
+        final Class<?> type = embeddedTypes.get(rel);
+        if (type == null) {
+            return Resource.class;
+        }
+        return type;
+    }
+
+    private Class<?> getElementType(final Type collectionType) {
+        if (collectionType instanceof ParameterizedType) {
+            final Type[] args = ((ParameterizedType) collectionType).getActualTypeArguments();
+            if (args.length == 1 && args[0] instanceof Class) {
+                return (Class<?>) args[0];
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> newCollection(final Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (Set.class.isAssignableFrom(type)) {
+                return new LinkedHashSet<>();
+            }
+            return new ArrayList<>();
+        }
+        return (Collection<Object>) newInstance(type);
+    }
+
+    private Resource newResource(final Class<?> type) {
+        if (!Resource.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Type " + type.getName() + " is no resource");
+        }
+        return (Resource) newInstance(type);
+    }
+
+    private Object newInstance(final Class<?> type) {
+        try {
+            return CONSTRUCTORS.get(type).newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not create instance of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Verifies the parser is positioned at the expected token.
+     *
+     * @param token
+     *            the expected token
+     * @throws JsonParseException
+     *             if the current token is not the expected token
+     */
+    private void expect(final JsonToken token) throws JsonParseException {
+        if (json.getCurrentToken() != token) {
+            throw new JsonParseException("Expected " + token + " but was " + json.getCurrentToken(),
+                    json.getCurrentLocation());
+        }
+    }
+}
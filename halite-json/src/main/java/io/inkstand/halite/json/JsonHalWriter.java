@@ -3,9 +3,10 @@ package io.inkstand.halite.json;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
-import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,11 +14,9 @@ import java.util.Set;
 import io.inkstand.halite.Link;
 import io.inkstand.halite.Resource;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -55,7 +54,32 @@ public class JsonHalWriter {
          * Indicates whether to write a _embedded element if there are no embedded resources specified for a resource.
          * Default is <code>false</code>.
          */
-        WRITE_EMPTY_EMBEDDED(Boolean.class), ;
+        WRITE_EMPTY_EMBEDDED(Boolean.class),
+
+        /**
+         * The {@link FlushPolicy} that determines when the generator is flushed. Default is
+         * {@link FlushPolicy#END_OF_DOCUMENT}.
+         */
+        FLUSH_POLICY(FlushPolicy.class),
+
+        /**
+         * The {@link OutputProfile} that determines the formatting of the output. Default is
+         * {@link OutputProfile#PRETTY}.
+         */
+        OUTPUT_PROFILE(OutputProfile.class),
+
+        /**
+         * The {@link SerializerEngine} used to read and write the fields of resources. Default is
+         * {@link SerializerEngine#GENERATED}.
+         */
+        SERIALIZER_ENGINE(SerializerEngine.class),
+
+        /**
+         * The {@link Set} of relations whose embedded resources should be written. The embedded resources of all other
+         * relations are skipped without retrieving them, so that deferred embedded resources of these relations are
+         * never created. The selection applies to all written resources. By default, all relations are written.
+         */
+        EMBEDDED_RELS(Set.class), ;
 
         private Class<?> type;
 
@@ -97,14 +121,114 @@ public class JsonHalWriter {
     }
 
     /**
-     * SLF4J Logger for this class
+     * Policies that define when the written json is flushed to the underlying stream. Between two flushes, the
+     * generator buffers the output and writes it to the stream in chunks of the size of its internal buffer.
+     * 
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     * 
      */
-    private static final Logger LOG = LoggerFactory.getLogger(JsonHalWriter.class);
+    public static enum FlushPolicy {
+        /**
+         * The output is flushed once the document is written completely. This is the best choice for high throughput
+         * as the data is sent in as few writes as possible.
+         */
+        END_OF_DOCUMENT,
+        /**
+         * The output is flushed after each resource embedded in the top-level resource, so that a client can start
+         * processing large collections before the document is complete.
+         */
+        EMBEDDED_ITEM,
+        /**
+         * The output is flushed after every written resource, embedded set and link set. This causes many small writes
+         * and should only be used for debugging.
+         */
+        ELEMENT,
+    }
+
+    /**
+     * Profiles that define the formatting of the written json.
+     * 
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     * 
+     */
+    public static enum OutputProfile {
+        /**
+         * The output is indented and non-ASCII characters are escaped. Best suited for humans reading the output.
+         */
+        PRETTY(true, true),
+        /**
+         * The output has no whitespace, non-ASCII characters are escaped. Use this profile if clients can not handle
+         * non-ASCII characters.
+         */
+        COMPACT(false, true),
+        /**
+         * The output has no whitespace and non-ASCII characters are written as UTF-8. This produces the smallest
+         * output.
+         */
+        COMPACT_UTF8(false, false), ;
+
+        private final boolean indent;
+        private final boolean escapeNonAscii;
+
+        OutputProfile(final boolean indent, final boolean escapeNonAscii) {
+            this.indent = indent;
+            this.escapeNonAscii = escapeNonAscii;
+        }
+
+        /**
+         * Configures the generator for this profile
+         * 
+         * @param generator
+         *            the generator to configure
+         */
+        void applyTo(final JsonGenerator generator) {
+            if (indent) {
+                generator.useDefaultPrettyPrinter();
+            } else {
+                generator.setPrettyPrinter(null);
+            }
+            if (escapeNonAscii) {
+                generator.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+            } else {
+                generator.disable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+            }
+        }
+    }
+
+    /**
+     * Engines to read and write the fields of a resource.
+     * 
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     * 
+     */
+    public static enum SerializerEngine {
+        /**
+         * The fields are read using reflection. All values are written using the codec of the generator.
+         */
+        REFLECTION,
+        /**
+         * The fields are read using method handles specialized per type. Primitive and String values are written
+         * without boxing directly to the generator.
+         */
+        METHOD_HANDLE,
+        /**
+         * The fields are written by the {@link ResourceSerializer} generated at compile time for types annotated with
+         * {@link HalResource}. Types without a generated serializer are written using the {@link #METHOD_HANDLE}
+         * engine.
+         */
+        GENERATED,
+    }
+
+    /**
+     * The mapper used as codec for writing non-resource values if no other mapper is specified. The mapper is shared
+     * by all writers so that its serializer cache stays warm.
+     */
+    private static final ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
 
     /**
      * Factory to create the generator
      */
-    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final JsonFactory FACTORY = DEFAULT_MAPPER.getFactory();
 
     /**
      * The Generator to write json
@@ -116,15 +240,41 @@ public class JsonHalWriter {
      */
     private final Map<Option, Object> options = new HashMap<>();
 
-    private JsonHalWriter(final JsonGenerator generator, final boolean closeOnWriteResource) {
-        this.json = generator;
-        this.json.useDefaultPrettyPrinter();
-        this.json.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
-        this.setOption(Option.CLOSE_ON_WRITE_RESOURCE, closeOnWriteResource);
-        this.setOption(Option.WRITE_NULLS, false);
-        this.setOption(Option.WRITE_EMPTY_EMBEDDED, false);
+    /**
+     * The options resolved for writing. Recreated whenever an option is set.
+     */
+    private WriterConfig config;
+
+    /**
+     * The nesting depth of the resource currently written. The top-level resource has depth 1.
+     */
+    private int depth;
+
+    /**
+     * The output for the fields written by generated serializers
+     */
+    private final FieldOutput fieldOutput = new GeneratorFieldOutput();
 
-        this.json.setCodec(new ObjectMapper());
+    /**
+     * Constructor for a writer that uses the specified mapper as codec for writing non-resource values.
+     * 
+     * @param generator
+     *            the generator to use
+     * @param closeOnWriteResource
+     *            the default for the CLOSE_ON_WRITE_RESOURCE {@link Option}
+     * @param mapper
+     *            the mapper to write non-resource values. The mapper must not be reconfigured once it is in use.
+     */
+    JsonHalWriter(final JsonGenerator generator, final boolean closeOnWriteResource, final ObjectMapper mapper) {
+        this.json = generator;
+        this.options.put(Option.CLOSE_ON_WRITE_RESOURCE, closeOnWriteResource);
+        this.options.put(Option.WRITE_NULLS, false);
+        this.options.put(Option.WRITE_EMPTY_EMBEDDED, false);
+        this.options.put(Option.FLUSH_POLICY, FlushPolicy.END_OF_DOCUMENT);
+        this.options.put(Option.SERIALIZER_ENGINE, SerializerEngine.GENERATED);
+        this.setOption(Option.OUTPUT_PROFILE, OutputProfile.PRETTY);
+
+        this.json.setCodec(mapper);
     }
 
     /**
@@ -136,7 +286,7 @@ public class JsonHalWriter {
      *            the generator to use.
      */
     public JsonHalWriter(final JsonGenerator generator) {
-        this(generator, false);
+        this(generator, false, DEFAULT_MAPPER);
     }
 
     /**
@@ -147,7 +297,7 @@ public class JsonHalWriter {
      * @throws IOException
      */
     public JsonHalWriter(final Writer writer) throws IOException {
-        this(FACTORY.createGenerator(writer), true);
+        this(FACTORY.createGenerator(writer), true, DEFAULT_MAPPER);
     }
 
     /**
@@ -158,7 +308,7 @@ public class JsonHalWriter {
      * @throws IOException
      */
     public JsonHalWriter(final OutputStream outputStream) throws IOException {
-        this(FACTORY.createGenerator(outputStream), true);
+        this(FACTORY.createGenerator(outputStream), true, DEFAULT_MAPPER);
     }
 
     /**
@@ -171,16 +321,14 @@ public class JsonHalWriter {
     public void write(final Object resource) throws IOException {
 
         writeObjectValue(resource);
-        if (getOption(Option.CLOSE_ON_WRITE_RESOURCE)) {
+        if (config.closeOnWriteResource) {
             json.close();
-        } else {
-            json.flush();
         }
     }
 
     /**
      * Writes an object by writing its fields. If the object is a HAL {@link Resource} (or a subtype of it), the _links
-     * and _embedded fields are written.
+     * and _embedded fields are written. Once a top-level object is written completely, the output is flushed.
      * 
      * @param resource
      *            the resource to be written. The method is able to write {@link Resource} instances and all subtypes of
@@ -192,117 +340,158 @@ public class JsonHalWriter {
 
         if (resource instanceof Resource) {
             json.writeStartObject();
-            writeResourceValue(resource, resource.getClass());
+            depth++;
+            try {
+                writeResourceValue(resource, resource.getClass());
+            } finally {
+                depth--;
+            }
             json.writeEndObject();
-            json.flush();
         } else {
             json.writeObject(resource);
+        }
+        if (depth == 0) {
+            // end of the document
             json.flush();
+        } else {
+            flushElement();
         }
 
     }
 
     /**
-     * Writes the body of a {@link Resource} which consists of the _links and the _embedded fields.
+     * Writes the body of a {@link Resource} which consists of the _links and the _embedded fields followed by the
+     * fields of the resource type as listed in its {@link SerializationPlan}. The fields are written using the
+     * configured {@link SerializerEngine}.
      * 
      * @param resource
      *            the resource to write
      * @param initialType
+     *            the type whose fields should be written
      * @throws IOException
      */
     private void writeResourceValue(final Object resource, final Class<?> initialType) throws IOException {
         // render _links and _embedded
-        Class<?> type = initialType;
         writeLinks((Resource) resource);
         writeEmbedded((Resource) resource);
-        while (!Resource.class.equals(type)) {
-            type = writeFieldsOfType(type, resource);
+        final ResourceSerializer generated;
+        if (config.serializerEngine == SerializerEngine.GENERATED
+                && (generated = ResourceSerializers.get(initialType)) != null) {
+            generated.writeFields(resource, fieldOutput);
+        } else if (config.serializerEngine != SerializerEngine.REFLECTION) {
+            MethodHandleSerializer.of(initialType).writeFields(this, json, config, resource);
+        } else {
+            for (final SerializationPlan.Property property : SerializationPlan.of(initialType).getProperties()) {
+                writeFieldValue(property, property.getValue(resource));
+            }
         }
     }
 
     /**
-     * Writes all declared fields of the specified type, reading the field values from the resource
+     * Writes the value of the field. The method creates a json output of fieldName : fieldValue, where fieldValue may
+     * be another object {...}, a primitive or an array[{},{}].
      * 
-     * @param type
-     *            the type whose declared fields should be written. Must not be null and must not be {@link Object}.
-     * @param resource
-     *            the resource that provides the values for the fields. Must not be null and must be of the same type as
-     *            type or a subtype of it.
-     * @return the supertype of type.
+     * @param property
+     *            the property describing the field
+     * @param fieldValue
+     *            the value to be written
      * @throws IOException
      */
-    @SuppressWarnings("rawtypes")
-    private Class writeFieldsOfType(final Class<?> type, final Object resource) throws IOException {
-
-        for (final Field f : type.getDeclaredFields()) {
-
-            final Class<?> fieldType = f.getType();
-            final String fieldName = f.getName();
-            final Object fieldValue = getFieldValue(f, resource);
-
-            writeFieldValue(fieldType, fieldName, fieldValue);
+    void writeFieldValue(final SerializationPlan.Property property, final Object fieldValue)
+            throws IOException {
+        if (fieldValue == SerializationPlan.NOT_AVAILABLE) {
+            // the field could not be read, regardless of its kind
+            writeObjectField(property.getName(), fieldValue);
+            return;
+        }
+        switch (property.getKind()) {
+        case COLLECTION:
+            writeCollectionField(property.getName(), (Collection<?>) fieldValue);
+            break;
+        case RESOURCE:
+            writeResourceField(property.getName(), fieldValue, property.getType());
+            break;
+        default:
+            writeObjectField(property.getName(), fieldValue);
+            break;
         }
-        return type.getSuperclass();
     }
 
     /**
-     * Writes the value of the field. The method creates a json output of fieldName : fieldValue, where fieldValue may
-     * be another object {...}, a primitive or an array[{},{}].
+     * Writes a field whose value is a collection as json array.
      * 
-     * @param fieldType
-     *            the type of the field
-     * @param fieldName
+     * @param name
      *            the name of the field
-     * @param fieldValue
-     *            the value to be written
+     * @param value
+     *            the collection to write, may be <code>null</code>
      * @throws IOException
      */
-    private void writeFieldValue(final Class<?> fieldType, final String fieldName, final Object fieldValue)
-            throws IOException {
-        if (fieldValue != null) {
-            writeNonNullFieldValue(fieldType, fieldName, fieldValue);
-        } else if (getOption(Option.WRITE_NULLS)) {
-            json.writeNullField(fieldName);
+    private void writeCollectionField(final SerializableString name, final Collection<?> value) throws IOException {
+        if (value != null) {
+            json.writeFieldName(name);
+            json.writeStartArray();
+            for (final Object object : value) {
+                writeObjectValue(object);
+            }
+            json.writeEndArray();
+        } else {
+            writeNullField(name);
         }
     }
 
-    private void writeNonNullFieldValue(final Class<?> fieldType, final String fieldName, final Object fieldValue)
+    /**
+     * Writes a field whose value is a resource, using the fields of the declared type.
+     * 
+     * @param name
+     *            the name of the field
+     * @param value
+     *            the resource to write, may be <code>null</code>
+     * @param declaredType
+     *            the declared type of the field
+     * @throws IOException
+     */
+    private void writeResourceField(final SerializableString name, final Object value, final Class<?> declaredType)
             throws IOException {
-        if (Collection.class.isAssignableFrom(fieldType)) {
-            json.writeArrayFieldStart(fieldName);
-            for (final Object object : (Collection<?>) fieldValue) {
-                writeObjectValue(object);
-            }
-            json.writeEndArray();
-        } else if (Resource.class.isAssignableFrom(fieldType)) {
-            json.writeObjectFieldStart(fieldName);
-            writeResourceValue(fieldValue, fieldType);
+        if (value != null) {
+            json.writeFieldName(name);
+            json.writeStartObject();
+            writeResourceValue(value, declaredType);
             json.writeEndObject();
         } else {
-            json.writeFieldName(fieldName);
-            json.writeObject(fieldValue);
+            writeNullField(name);
         }
     }
 
     /**
-     * Reads the value of a Java field.
+     * Writes a field whose value is written by the codec of the generator
      * 
-     * @param f
-     *            the field to read
-     * @param resource
-     *            the object from which the field should be read.
-     * @return the value of the field.
+     * @param name
+     *            the name of the field
+     * @param value
+     *            the value to write, may be <code>null</code>
+     * @throws IOException
      */
-    private Object getFieldValue(final Field f, final Object resource) {
-        Object fieldValue;
-        try {
-            f.setAccessible(true);
-            fieldValue = f.get(resource);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            LOG.error("Could not read field " + f.getName(), e);
-            fieldValue = "N/A";
+    private void writeObjectField(final SerializableString name, final Object value) throws IOException {
+        if (value != null) {
+            json.writeFieldName(name);
+            json.writeObject(value);
+        } else {
+            writeNullField(name);
+        }
+    }
+
+    /**
+     * Writes a field with a null value if Write_Nulls is enabled
+     * 
+     * @param name
+     *            the name of the field
+     * @throws IOException
+     */
+    private void writeNullField(final SerializableString name) throws IOException {
+        if (config.writeNulls) {
+            json.writeFieldName(name);
+            json.writeNull();
         }
-        return fieldValue;
     }
 
     /**
@@ -315,16 +504,40 @@ public class JsonHalWriter {
      */
     public void writeEmbedded(final Resource resource) throws IOException {
         final Set<String> rels = resource.getEmbeddedRels();
-        if (!rels.isEmpty() || (Boolean) getOption(Option.WRITE_EMPTY_EMBEDDED)) {
-            json.writeObjectFieldStart("_embedded");
+        if (hasSelectedRel(rels) || config.writeEmptyEmbedded) {
+            json.writeFieldName(HalKeys.EMBEDDED);
+            json.writeStartObject();
             for (final String rel : rels) {
-                writeEmbedded(rel, resource.getEmbedded(rel));
+                if (isSelectedRel(rel)) {
+                    writeEmbedded(rel, resource.iterateEmbedded(rel));
+                }
             }
             json.writeEndObject();
-            json.flush();
+            flushElement();
         }
     }
 
+    /**
+     * @param rels
+     *            the embedded relations of a resource
+     * @return <code>true</code> if any of the relations is selected by the {@link Option#EMBEDDED_RELS} option
+     */
+    private boolean hasSelectedRel(final Set<String> rels) {
+        if (config.embeddedRels == null) {
+            return !rels.isEmpty();
+        }
+        for (final String rel : rels) {
+            if (config.embeddedRels.contains(rel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSelectedRel(final String rel) {
+        return config.embeddedRels == null || config.embeddedRels.contains(rel);
+    }
+
     /**
      * Writes a set of {@link Link}s that share the same relation. If there is just one link contained in the list, it
      * is not written as an array, otherwise an array of links is created.
@@ -336,20 +549,44 @@ public class JsonHalWriter {
      * @throws IOException
      */
     public void writeEmbedded(final String rel, final List<Resource> resources) throws IOException {
+        writeEmbedded(rel, resources.iterator());
+    }
 
-        final boolean isArray = resources.size() > 1;
+    /**
+     * Writes the resources of a relation as they are provided by the iterator, so that no more than two resources
+     * have to be held in memory at any time. If the iterator provides just one resource, it is not written as an
+     * array, otherwise an array of resources is created.
+     * 
+     * @param rel
+     *            the relation of the resources
+     * @param resources
+     *            an iterator over the resources that all have the relation
+     * @throws IOException
+     */
+    public void writeEmbedded(final String rel, final Iterator<Resource> resources) throws IOException {
 
-        json.writeFieldName(rel);
+        writeRelName(rel);
+        if (!resources.hasNext()) {
+            json.writeStartArray();
+            json.writeEndArray();
+            flushElement();
+            return;
+        }
+        final Resource first = resources.next();
+        final boolean isArray = resources.hasNext();
         if (isArray) {
             json.writeStartArray();
         }
-        for (final Resource resource : resources) {
-            writeObjectValue(resource);
+        writeObjectValue(first);
+        flushEmbeddedItem();
+        while (resources.hasNext()) {
+            writeObjectValue(resources.next());
+            flushEmbeddedItem();
         }
         if (isArray) {
             json.writeEndArray();
         }
-        json.flush();
+        flushElement();
     }
 
     /**
@@ -363,12 +600,13 @@ public class JsonHalWriter {
 
         final Set<String> rels = resource.getLinkRels();
 
-        json.writeObjectFieldStart("_links");
+        json.writeFieldName(HalKeys.LINKS);
+        json.writeStartObject();
         for (final String rel : rels) {
             writeLink(rel, resource.getLinks(rel));
         }
         json.writeEndObject();
-        json.flush();
+        flushElement();
     }
 
     /**
@@ -385,26 +623,65 @@ public class JsonHalWriter {
 
         final boolean isArray = relLinks.size() > 1;
 
-        json.writeFieldName(rel);
+        writeRelName(rel);
         if (isArray) {
             json.writeStartArray();
         }
         for (final Link link : relLinks) {
             json.writeStartObject();
-            writeString("name", link.getName());
-            writeString("title", link.getTitle());
-            writeString("href", link.getHref());
-            writeString("hreflang", link.getHreflang());
-            writeString("type", link.getType());
-            writeString("profile", link.getProfile());
-            writeString("deprecation", link.getDeprecation());
-            writeBoolean("templated", link.isTemplated());
+            writeString(HalKeys.NAME, link.getName());
+            writeString(HalKeys.TITLE, link.getTitle());
+            writeString(HalKeys.HREF, link.getHref());
+            writeString(HalKeys.HREFLANG, link.getHreflang());
+            writeString(HalKeys.TYPE, link.getType());
+            writeString(HalKeys.PROFILE, link.getProfile());
+            writeString(HalKeys.DEPRECATION, link.getDeprecation());
+            writeBoolean(HalKeys.TEMPLATED, link.isTemplated());
             json.writeEndObject();
         }
         if (isArray) {
             json.writeEndArray();
         }
-        json.flush();
+        flushElement();
+    }
+
+    /**
+     * Writes the name of a relation, using the pre-encoded name if the relation is registered.
+     * 
+     * @param rel
+     *            the relation
+     * @throws IOException
+     */
+    void writeRelName(final String rel) throws IOException {
+        final SerializableString name = HalKeys.rel(rel);
+        if (name == null) {
+            json.writeFieldName(rel);
+        } else {
+            json.writeFieldName(name);
+        }
+    }
+
+    /**
+     * Flushes the generator if the {@link FlushPolicy#ELEMENT} policy is set.
+     * 
+     * @throws IOException
+     */
+    void flushElement() throws IOException {
+        if (config.flushPolicy == FlushPolicy.ELEMENT) {
+            json.flush();
+        }
+    }
+
+    /**
+     * Flushes the generator after an item embedded in the top-level resource has been written if the
+     * {@link FlushPolicy#EMBEDDED_ITEM} policy is set.
+     * 
+     * @throws IOException
+     */
+    private void flushEmbeddedItem() throws IOException {
+        if (depth <= 1 && config.flushPolicy == FlushPolicy.EMBEDDED_ITEM) {
+            json.flush();
+        }
     }
 
     /**
@@ -416,11 +693,12 @@ public class JsonHalWriter {
      *            the boolean field value to be written.
      * @throws IOException
      */
-    private void writeBoolean(final String name, final Boolean value) throws IOException {
+    private void writeBoolean(final SerializableString name, final Boolean value) throws IOException {
         if (value != null) {
-            json.writeBooleanField(name, value);
-        } else if (getOption(Option.WRITE_NULLS)) {
-            json.writeNullField(name);
+            json.writeFieldName(name);
+            json.writeBoolean(value);
+        } else {
+            writeNullField(name);
         }
     }
 
@@ -433,11 +711,12 @@ public class JsonHalWriter {
      *            the value of the string field
      * @throws IOException
      */
-    private void writeString(final String name, final String value) throws IOException {
+    private void writeString(final SerializableString name, final String value) throws IOException {
         if (value != null) {
-            json.writeStringField(name, value);
-        } else if (getOption(Option.WRITE_NULLS)) {
-            json.writeNullField(name);
+            json.writeFieldName(name);
+            json.writeString(value);
+        } else {
+            writeNullField(name);
         }
     }
 
@@ -452,6 +731,23 @@ public class JsonHalWriter {
     public void setOption(final Option option, final Object value) {
         option.validate(value);
         this.options.put(option, value);
+        if (option == Option.OUTPUT_PROFILE) {
+            ((OutputProfile) value).applyTo(json);
+        }
+        this.config = resolveConfig();
+    }
+
+    /**
+     * Resolves the current option values into a configuration for writing
+     * 
+     * @return the resolved configuration
+     */
+    private WriterConfig resolveConfig() {
+        return new WriterConfig((Boolean) getOption(Option.WRITE_NULLS),
+                (Boolean) getOption(Option.CLOSE_ON_WRITE_RESOURCE), (Boolean) getOption(Option.WRITE_EMPTY_EMBEDDED),
+                (FlushPolicy) getOption(Option.FLUSH_POLICY), (SerializerEngine) getOption(Option.SERIALIZER_ENGINE),
+                isSetOption(Option.EMBEDDED_RELS) ? new HashSet<String>((Set<String>) getOption(Option.EMBEDDED_RELS))
+                        : null);
     }
 
     /**
@@ -476,4 +772,85 @@ public class JsonHalWriter {
         // as all default options are set, the get(option) method will always return a non-null value
         return option.value(this.options.get(option));
     }
+
+    /**
+     * @return the generator this writer writes to
+     */
+    JsonGenerator generator() {
+        return json;
+    }
+
+    /**
+     * @return the configuration resolved from the current options
+     */
+    WriterConfig config() {
+        return config;
+    }
+
+    /**
+     * {@link FieldOutput} for generated serializers that writes the fields to the generator of this writer.
+     * 
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     * 
+     */
+    private final class GeneratorFieldOutput implements FieldOutput {
+
+        @Override
+        public void writeField(final SerializableString name, final int value) throws IOException {
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final long value) throws IOException {
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final float value) throws IOException {
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final double value) throws IOException {
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final boolean value) throws IOException {
+            json.writeFieldName(name);
+            json.writeBoolean(value);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final char value) throws IOException {
+            json.writeFieldName(name);
+            json.writeString(new char[] { value }, 0, 1);
+        }
+
+        @Override
+        public void writeField(final SerializableString name, final String value) throws IOException {
+            writeString(name, value);
+        }
+
+        @Override
+        public void writeCollectionField(final SerializableString name, final Collection<?> value)
+                throws IOException {
+            JsonHalWriter.this.writeCollectionField(name, value);
+        }
+
+        @Override
+        public void writeResourceField(final SerializableString name, final Object value, final Class<?> declaredType)
+                throws IOException {
+            JsonHalWriter.this.writeResourceField(name, value, declaredType);
+        }
+
+        @Override
+        public void writeObjectField(final SerializableString name, final Object value) throws IOException {
+            JsonHalWriter.this.writeObjectField(name, value);
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Factory to create {@link JsonHalWriter}s that share one configured {@link ObjectMapper}. The mapper is used to write
+ * all non-resource values and caches the serializers it creates, so sharing it among all writers keeps that cache warm.
+ * As the mapper is thread-safe once it is configured, the factory may be used by multiple threads, while each writer
+ * created by the factory must be used by a single thread only.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class JsonHalWriterFactory {
+
+    /**
+     * The mapper shared by all writers of this factory
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Creates a factory with a new {@link ObjectMapper} in default configuration.
+     */
+    public JsonHalWriterFactory() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Creates a factory whose writers use the given mapper
+     *
+     * @param mapper
+     *            the configured mapper. The mapper must not be reconfigured once writers have been created.
+     */
+    public JsonHalWriterFactory(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Creates a writer that writes to the specified {@link OutputStream}. The writer closes the stream after a resource
+     * has been written.
+     *
+     * @param outputStream
+     *            the output stream to which the json data is written
+     * @return a new writer
+     * @throws IOException
+     *             if the generator for the stream could not be created
+     */
+    public JsonHalWriter newWriter(final OutputStream outputStream) throws IOException {
+        return new JsonHalWriter(mapper.getFactory().createGenerator(outputStream), true, mapper);
+    }
+
+    /**
+     * Creates a writer that writes to the specified {@link Writer}. The writer closes the {@link Writer} after a
+     * resource has been written.
+     *
+     * @param writer
+     *            the writer to which the json data is written
+     * @return a new writer
+     * @throws IOException
+     *             if the generator for the writer could not be created
+     */
+    public JsonHalWriter newWriter(final Writer writer) throws IOException {
+        return new JsonHalWriter(mapper.getFactory().createGenerator(writer), true, mapper);
+    }
+
+    /**
+     * Creates a writer on top of an existing {@link JsonGenerator}. The writer does not close the generator after a
+     * resource has been written.
+     *
+     * @param generator
+     *            the generator to use
+     * @return a new writer
+     */
+    public JsonHalWriter newWriter(final JsonGenerator generator) {
+        return new JsonHalWriter(generator, false, mapper);
+    }
+
+    /**
+     * @return the mapper shared by the writers of this factory
+     */
+    public ObjectMapper getObjectMapper() {
+        return mapper;
+    }
+}
@@ -0,0 +1,64 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.util.AbstractList;
+
+import io.inkstand.halite.Resource;
+
+/**
+ * List of embedded resources that are parsed on first access. The list holds the byte ranges of the json objects of
+ * the resources within the buffer of the {@link JsonHalReader} and parses a resource when it is retrieved for the first
+ * time. Resources that are never retrieved are never parsed. <br>
+ * Note: The implementation is not thread safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+class LazyEmbeddedList extends AbstractList<Resource> {
+
+    private final JsonHalReader reader;
+    private final Class<?> type;
+    private final int[] starts;
+    private final int[] ends;
+    private final Resource[] resources;
+
+    /**
+     * Creates a lazy list
+     *
+     * @param reader
+     *            the reader to parse the resources
+     * @param type
+     *            the type of the resources
+     * @param starts
+     *            the offset of the first byte of each resource
+     * @param ends
+     *            the offset after the last byte of each resource
+     * @param size
+     *            the number of resources
+     */
+    LazyEmbeddedList(final JsonHalReader reader, final Class<?> type, final int[] starts, final int[] ends,
+            final int size) {
+        this.reader = reader;
+        this.type = type;
+        this.starts = starts;
+        this.ends = ends;
+        this.resources = new Resource[size];
+    }
+
+    @Override
+    public Resource get(final int index) {
+        if (resources[index] == null) {
+            try {
+                resources[index] = reader.readRange(type, starts[index], ends[index] - starts[index]);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not parse embedded resource " + index, e);
+            }
+        }
+        return resources[index];
+    }
+
+    @Override
+    public int size() {
+        return resources.length;
+    }
+}
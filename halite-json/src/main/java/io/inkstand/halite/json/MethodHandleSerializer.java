@@ -0,0 +1,393 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+
+/**
+ * Serializer for the fields of a resource type that reads the fields using {@link MethodHandle}s. For every field of
+ * the type's {@link SerializationPlan} a writer specialized for the declared field type is created. Fields of primitive
+ * types and Strings are read without boxing and written directly to the generator, without involving the codec of the
+ * generator. All other fields are written the same way as by the reflective serialization. If no method handle can be
+ * created for a field, the field is read using reflection. <br>
+ * The serializer is created once per type and cached in a {@link ClassValue}.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class MethodHandleSerializer {
+
+    /**
+     * Writer for a single field
+     */
+    abstract static class FieldWriter {
+
+        final SerializationPlan.Property property;
+        final SerializableString name;
+
+        FieldWriter(final SerializationPlan.Property property) {
+            this.property = property;
+            this.name = property.getName();
+        }
+
+        /**
+         * Writes the field of the resource
+         *
+         * @param writer
+         *            the writer to write non-primitive values
+         * @param json
+         *            the generator to write the primitive values to
+         * @param config
+         *            the configuration of the writer
+         * @param resource
+         *            the resource whose field should be written
+         * @throws IOException
+         */
+        abstract void write(JsonHalWriter writer, JsonGenerator json, WriterConfig config, Object resource)
+                throws IOException;
+
+        /**
+         * Writes a field that could not be read the same way as the reflective serialization does
+         *
+         * @param writer
+         *            the writer to write the field
+         * @param e
+         *            the cause of the failure
+         * @throws IOException
+         */
+        void readFailed(final JsonHalWriter writer, final Throwable e) throws IOException {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            writer.writeFieldValue(property, property.readFailed(e));
+        }
+    }
+
+    /**
+     * SLF4J Logger for this class
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandleSerializer.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<MethodHandleSerializer> SERIALIZERS = new ClassValue<MethodHandleSerializer>() {
+
+        @Override
+        protected MethodHandleSerializer computeValue(final Class<?> type) {
+            return new MethodHandleSerializer(SerializationPlan.of(type));
+        }
+    };
+
+    private final FieldWriter[] writers;
+
+    private MethodHandleSerializer(final SerializationPlan plan) {
+        final SerializationPlan.Property[] properties = plan.getProperties();
+        this.writers = new FieldWriter[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            writers[i] = newFieldWriter(properties[i]);
+        }
+    }
+
+    /**
+     * Provides the serializer for the specified type
+     *
+     * @param type
+     *            the type whose serializer should be returned
+     * @return the serializer of the type, created on first access
+     */
+    static MethodHandleSerializer of(final Class<?> type) {
+        return SERIALIZERS.get(type);
+    }
+
+    /**
+     * Writes all fields of the resource
+     *
+     * @param writer
+     *            the writer to write non-primitive values
+     * @param json
+     *            the generator to write the primitive values to
+     * @param config
+     *            the configuration of the writer
+     * @param resource
+     *            the resource whose fields should be written
+     * @throws IOException
+     */
+    void writeFields(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+            final Object resource) throws IOException {
+        for (final FieldWriter fieldWriter : writers) {
+            fieldWriter.write(writer, json, config, resource);
+        }
+    }
+
+    private static FieldWriter newFieldWriter(final SerializationPlan.Property property) {
+        final MethodHandle getter;
+        try {
+            getter = getter(property.getField());
+        } catch (final IllegalAccessException e) {
+            LOG.warn("Could not create method handle for field " + property.getField() + ", using reflection", e);
+            return new ReflectiveFieldWriter(property);
+        }
+        final Class<?> type = property.getType();
+        if (type == int.class || type == short.class || type == byte.class) {
+            return new IntFieldWriter(property, getter);
+        } else if (type == long.class) {
+            return new LongFieldWriter(property, getter);
+        } else if (type == double.class) {
+            return new DoubleFieldWriter(property, getter);
+        } else if (type == float.class) {
+            return new FloatFieldWriter(property, getter);
+        } else if (type == boolean.class) {
+            return new BooleanFieldWriter(property, getter);
+        } else if (type == char.class) {
+            return new CharFieldWriter(property, getter);
+        } else if (type == String.class) {
+            return new StringFieldWriter(property, getter);
+        }
+        return new ObjectFieldWriter(property, getter);
+    }
+
+    /**
+     * Creates a getter for the field that accepts the resource as Object and returns the field value as the field's
+     * type or, for non-primitive fields, as Object.
+     *
+     * @param field
+     *            the field to read. The field has to be accessible.
+     * @return the method handle to read the field
+     * @throws IllegalAccessException
+     *             if the field is not accessible
+     */
+    private static MethodHandle getter(final Field field) throws IllegalAccessException {
+        MethodHandle getter = LOOKUP.unreflectGetter(field);
+        if (Modifier.isStatic(field.getModifiers())) {
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+        }
+        final Class<?> type = field.getType();
+        final Class<?> returnType;
+        if (type == short.class || type == byte.class) {
+            returnType = int.class;
+        } else if (type.isPrimitive()) {
+            returnType = type;
+        } else {
+            returnType = Object.class;
+        }
+        return getter.asType(MethodType.methodType(returnType, Object.class));
+    }
+
+    private static final class IntFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        IntFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final int value;
+            try {
+                value = (int) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+    }
+
+    private static final class LongFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        LongFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final long value;
+            try {
+                value = (long) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+    }
+
+    private static final class DoubleFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        DoubleFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final double value;
+            try {
+                value = (double) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+    }
+
+    private static final class FloatFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        FloatFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final float value;
+            try {
+                value = (float) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeNumber(value);
+        }
+    }
+
+    private static final class BooleanFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        BooleanFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final boolean value;
+            try {
+                value = (boolean) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeBoolean(value);
+        }
+    }
+
+    private static final class CharFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        CharFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final char value;
+            try {
+                value = (char) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            json.writeFieldName(name);
+            json.writeString(new char[] { value }, 0, 1);
+        }
+    }
+
+    private static final class StringFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        StringFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final Object value;
+            try {
+                value = (Object) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            if (value != null) {
+                json.writeFieldName(name);
+                json.writeString((String) value);
+            } else if (config.writeNulls) {
+                json.writeFieldName(name);
+                json.writeNull();
+            }
+        }
+    }
+
+    private static final class ObjectFieldWriter extends FieldWriter {
+
+        private final MethodHandle getter;
+
+        ObjectFieldWriter(final SerializationPlan.Property property, final MethodHandle getter) {
+            super(property);
+            this.getter = getter;
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            final Object value;
+            try {
+                value = (Object) getter.invokeExact(resource);
+            } catch (final Throwable e) {
+                readFailed(writer, e);
+                return;
+            }
+            writer.writeFieldValue(property, value);
+        }
+    }
+
+    private static final class ReflectiveFieldWriter extends FieldWriter {
+
+        ReflectiveFieldWriter(final SerializationPlan.Property property) {
+            super(property);
+        }
+
+        @Override
+        void write(final JsonHalWriter writer, final JsonGenerator json, final WriterConfig config,
+                final Object resource) throws IOException {
+            writer.writeFieldValue(property, property.getValue(resource));
+        }
+    }
+}
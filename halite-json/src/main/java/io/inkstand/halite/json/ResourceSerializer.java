@@ -0,0 +1,33 @@
+package io.inkstand.halite.json;
+
+import java.io.IOException;
+
+/**
+ * Serializer that writes the fields of a specific {@link io.inkstand.halite.Resource} type. Implementations are
+ * generated at compile time for types annotated with {@link HalResource} and are registered in the
+ * <code>META-INF/services/io.inkstand.halite.json.ResourceSerializer</code> index. The _links and _embedded fields are
+ * written by the {@link JsonHalWriter}, the serializer writes the fields of the type and its supertypes in the order
+ * of the reflective serialization. <br>
+ * Implementations must be thread-safe.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public interface ResourceSerializer {
+
+    /**
+     * @return the resource type whose fields the serializer writes
+     */
+    Class<?> getType();
+
+    /**
+     * Writes the fields of the resource
+     *
+     * @param resource
+     *            the resource whose fields should be written. The resource is of the type of the serializer.
+     * @param out
+     *            the output to write the fields to
+     * @throws IOException
+     */
+    void writeFields(Object resource, FieldOutput out) throws IOException;
+}
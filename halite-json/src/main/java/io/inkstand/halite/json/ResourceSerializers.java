@@ -0,0 +1,170 @@
+package io.inkstand.halite.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the {@link ResourceSerializer}s generated at compile time. The serializers are looked up in the
+ * <code>META-INF/services/io.inkstand.halite.json.ResourceSerializer</code> index visible to the class loader of the
+ * resource type. The index of a class loader is parsed once and kept as set of the names of the serializers, so that
+ * neither the serializers nor the resource types are loaded before they are needed and the index does not prevent the
+ * class loader from being collected. The name of the serializer of a type is derived from the name of the type, a
+ * serializer is only loaded and instantiated if its name is listed in the index. The serializer of a type is cached in
+ * a {@link ClassValue}.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public final class ResourceSerializers {
+
+    /**
+     * SLF4J Logger for this class
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceSerializers.class);
+
+    /**
+     * Marker for types without a generated serializer, as a {@link ClassValue} can not hold <code>null</code>
+     */
+    private static final ResourceSerializer NONE = new ResourceSerializer() {
+
+        @Override
+        public Class<?> getType() {
+            return Void.class;
+        }
+
+        @Override
+        public void writeFields(final Object resource, final FieldOutput out) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final ClassValue<ResourceSerializer> SERIALIZERS = new ClassValue<ResourceSerializer>() {
+
+        @Override
+        protected ResourceSerializer computeValue(final Class<?> type) {
+            return lookup(type);
+        }
+    };
+
+    /**
+     * The location of the index of the generated serializers
+     */
+    private static final String INDEX_RESOURCE = "META-INF/services/" + ResourceSerializer.class.getName();
+
+    /**
+     * The suffix the annotation processor appends to the name of the resource type to name its serializer
+     */
+    private static final String SERIALIZER_SUFFIX = "_HalSerializer";
+
+    /**
+     * The names of the indexed serializers, parsed once per class loader
+     */
+    private static final Map<ClassLoader, Set<String>> INDEX = new WeakHashMap<>();
+
+    private ResourceSerializers() {
+    }
+
+    /**
+     * Provides the generated serializer for the specified type
+     *
+     * @param type
+     *            the resource type whose serializer should be returned
+     * @return the serializer or <code>null</code> if no serializer was generated for the type
+     */
+    public static ResourceSerializer get(final Class<?> type) {
+        final ResourceSerializer serializer = SERIALIZERS.get(type);
+        if (serializer == NONE) {
+            return null;
+        }
+        return serializer;
+    }
+
+    private static ResourceSerializer lookup(final Class<?> type) {
+        final ClassLoader cl = type.getClassLoader();
+        if (cl == null) {
+            // bootstrap types have no generated serializers
+            return NONE;
+        }
+        final String serializerName = serializerNameOf(type);
+        if (!indexOf(cl).contains(serializerName)) {
+            return NONE;
+        }
+        try {
+            final ResourceSerializer serializer = (ResourceSerializer) Class.forName(serializerName, true, cl)
+                    .getConstructor().newInstance();
+            if (serializer.getType() == type) {
+                return serializer;
+            }
+        } catch (final ReflectiveOperationException | ClassCastException | LinkageError e) {
+            LOG.warn("Could not load generated serializer for " + type.getName(), e);
+        }
+        return NONE;
+    }
+
+    /**
+     * Derives the name of the serializer the annotation processor generates for the type. The serializer is located
+     * in the package of the type, its simple name is the binary name of the type within the package with
+     * <code>$</code> replaced by <code>_</code> and followed by the {@link #SERIALIZER_SUFFIX}.
+     *
+     * @param type
+     *            the resource type
+     * @return the qualified name of the serializer
+     */
+    private static String serializerNameOf(final Class<?> type) {
+        final String name = type.getName();
+        final int separator = name.lastIndexOf('.') + 1;
+        return name.substring(0, separator) + name.substring(separator).replace('$', '_') + SERIALIZER_SUFFIX;
+    }
+
+    private static Set<String> indexOf(final ClassLoader cl) {
+        synchronized (INDEX) {
+            Set<String> index = INDEX.get(cl);
+            if (index == null) {
+                index = loadIndex(cl);
+                INDEX.put(cl, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Parses the names of the serializers of all indexes visible to the class loader. Comments and blank lines are
+     * skipped. Neither the serializers nor their resource types are loaded.
+     *
+     * @param cl
+     *            the class loader whose indexes should be parsed
+     * @return the names of the serializers
+     */
+    private static Set<String> loadIndex(final ClassLoader cl) {
+        final Set<String> index = new HashSet<>();
+        try {
+            final Enumeration<URL> resources = cl.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                final URL resource = resources.nextElement();
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(resource.openStream(), "UTF-8"))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        final int comment = line.indexOf('#');
+                        final String entry = (comment < 0 ? line : line.substring(0, comment)).trim();
+                        if (!entry.isEmpty()) {
+                            index.add(entry);
+                        }
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            LOG.warn("Could not read the index of the generated serializers", e);
+        }
+        return index;
+    }
+}
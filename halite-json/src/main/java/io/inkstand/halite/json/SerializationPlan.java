@@ -0,0 +1,240 @@
+package io.inkstand.halite.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.inkstand.halite.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * The serialization plan of a {@link Resource} type. The plan contains an accessor for every declared field of the
+ * type and its supertypes up to, but not including, {@link Resource}. The fields of the type itself come first,
+ * followed by the fields of its supertypes. The plan is computed once per type and cached in a {@link ClassValue} so
+ * that it does not prevent the type from being unloaded.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class SerializationPlan {
+
+    /**
+     * Classification of a field value that determines how the value is written
+     *
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     *
+     */
+    enum ValueKind {
+        /**
+         * The field is a {@link Collection} and is written as json array.
+         */
+        COLLECTION,
+        /**
+         * The field is a {@link Resource} and is written with its _links and _embedded fields
+         */
+        RESOURCE,
+        /**
+         * Any other field value that is written by the codec of the generator
+         */
+        OBJECT;
+
+        static ValueKind of(final Class<?> type) {
+            if (Collection.class.isAssignableFrom(type)) {
+                return COLLECTION;
+            } else if (Resource.class.isAssignableFrom(type)) {
+                return RESOURCE;
+            }
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Accessor for a single field of a resource.
+     *
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     *
+     */
+    static final class Property {
+
+        private final Field field;
+        private final SerializableString name;
+        private final ValueKind kind;
+
+        Property(final Field field) {
+            this.field = field;
+            this.field.setAccessible(true);
+            this.name = new SerializedString(field.getName());
+            this.kind = ValueKind.of(field.getType());
+        }
+
+        /**
+         * @return the field name, pre-encoded for the json output
+         */
+        SerializableString getName() {
+            return name;
+        }
+
+        /**
+         * @return the declared type of the field
+         */
+        Class<?> getType() {
+            return field.getType();
+        }
+
+        /**
+         * @return the generic type of the field
+         */
+        Type getGenericType() {
+            return field.getGenericType();
+        }
+
+        /**
+         * @return <code>true</code> if the field is an instance field that can be set when reading a resource
+         */
+        boolean isWritable() {
+            return !Modifier.isStatic(field.getModifiers());
+        }
+
+        /**
+         * @return the kind of the value
+         */
+        ValueKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the field this accessor reads
+         */
+        Field getField() {
+            return field;
+        }
+
+        /**
+         * Reads the value of the field.
+         *
+         * @param resource
+         *            the object from which the field should be read.
+         * @return the value of the field or {@link SerializationPlan#NOT_AVAILABLE} if the field could not be read
+         */
+        Object getValue(final Object resource) {
+            try {
+                return field.get(resource);
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                return readFailed(e);
+            }
+        }
+
+        /**
+         * Logs that the field could not be read. All serializer engines handle a failed read this way, so that they
+         * produce the same output.
+         *
+         * @param e
+         *            the cause of the failure
+         * @return {@link SerializationPlan#NOT_AVAILABLE} as value of the field
+         */
+        Object readFailed(final Throwable e) {
+            LOG.error("Could not read field " + field.getName(), e);
+            return NOT_AVAILABLE;
+        }
+
+        /**
+         * Sets the value of the field.
+         * 
+         * @param resource
+         *            the object whose field should be set
+         * @param value
+         *            the value to set
+         * @throws IllegalArgumentException
+         *             if the value is not compatible with the field
+         */
+        void setValue(final Object resource, final Object value) {
+            try {
+                field.set(resource, value);
+            } catch (final IllegalAccessException e) {
+                throw new IllegalArgumentException("Could not set field " + field.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * SLF4J Logger for this class
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SerializationPlan.class);
+
+    /**
+     * The value of a field that could not be read, which is written as "N/A". The instance is distinct from any
+     * string literal, so that it is recognized by identity.
+     */
+    static final String NOT_AVAILABLE = new String("N/A"); // NOSONAR
+
+    private static final ClassValue<SerializationPlan> PLANS = new ClassValue<SerializationPlan>() {
+
+        @Override
+        protected SerializationPlan computeValue(final Class<?> type) {
+            return new SerializationPlan(type);
+        }
+    };
+
+    private final Property[] properties;
+
+    private final Map<String, Property> propertiesByName;
+
+    private SerializationPlan(final Class<?> initialType) {
+        final List<Property> props = new ArrayList<>();
+        final Map<String, Property> byName = new HashMap<>();
+        Class<?> type = initialType;
+        while (type != null && !Resource.class.equals(type)) {
+            for (final Field f : type.getDeclaredFields()) {
+                final Property property = new Property(f);
+                props.add(property);
+                // fields of subtypes hide the fields of their supertypes with the same name
+                if (!byName.containsKey(f.getName())) {
+                    byName.put(f.getName(), property);
+                }
+            }
+            type = type.getSuperclass();
+        }
+        this.properties = props.toArray(new Property[props.size()]);
+        this.propertiesByName = byName;
+    }
+
+    /**
+     * Provides the serialization plan for the specified type
+     *
+     * @param type
+     *            the type whose plan should be returned
+     * @return the plan of the type, created on first access
+     */
+    static SerializationPlan of(final Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * @return the accessors of all fields to be written in the order they have to be written. The array is shared and
+     *         must not be modified.
+     */
+    Property[] getProperties() {
+        return properties;
+    }
+
+    /**
+     * Provides the accessor of the field with the given name
+     * 
+     * @param name
+     *            the name of the field
+     * @return the accessor or <code>null</code> if the type has no such field
+     */
+    Property getProperty(final String name) {
+        return propertiesByName.get(name);
+    }
+}
@@ -0,0 +1,38 @@
+package io.inkstand.halite.json;
+
+import java.util.Set;
+
+import io.inkstand.halite.json.JsonHalWriter.FlushPolicy;
+import io.inkstand.halite.json.JsonHalWriter.SerializerEngine;
+
+/**
+ * The resolved configuration of a {@link JsonHalWriter}. The configuration is created from the writer's
+ * {@link JsonHalWriter.Option}s whenever an option is set, so that writing a resource does not require to look up and
+ * validate the options for every written value.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class WriterConfig {
+
+    final boolean writeNulls;
+    final boolean closeOnWriteResource;
+    final boolean writeEmptyEmbedded;
+    final FlushPolicy flushPolicy;
+    final SerializerEngine serializerEngine;
+    /**
+     * The embedded relations to write or <code>null</code> if all relations are written
+     */
+    final Set<String> embeddedRels;
+
+    WriterConfig(final boolean writeNulls, final boolean closeOnWriteResource, final boolean writeEmptyEmbedded,
+            final FlushPolicy flushPolicy, final SerializerEngine serializerEngine, final Set<String> embeddedRels) {
+        this.writeNulls = writeNulls;
+        this.closeOnWriteResource = closeOnWriteResource;
+        this.writeEmptyEmbedded = writeEmptyEmbedded;
+        this.flushPolicy = flushPolicy;
+        this.serializerEngine = serializerEngine;
+        this.embeddedRels = embeddedRels;
+    }
+
+}
@@ -0,0 +1,204 @@
+package io.inkstand.halite.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
+import io.inkstand.halite.json.JsonHalWriterTest.ResourcePojo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HalStreamWriterTest {
+
+    private ByteArrayOutputStream expected;
+    private JsonHalWriter reference;
+
+    private ByteArrayOutputStream actual;
+    private JsonHalWriter writer;
+    private HalStreamWriter subject;
+
+    @Before
+    public void setUp() throws Exception {
+        final JsonFactory factory = new JsonFactory();
+        this.expected = new ByteArrayOutputStream();
+        this.reference = new JsonHalWriter(factory.createGenerator(expected));
+        this.actual = new ByteArrayOutputStream();
+        this.writer = new JsonHalWriter(factory.createGenerator(actual));
+        this.subject = new HalStreamWriter(writer);
+    }
+
+    private void setOption(final JsonHalWriter.Option option, final Object value) {
+        reference.setOption(option, value);
+        writer.setOption(option, value);
+    }
+
+    private void assertSameOutput(final Resource resource) throws IOException {
+        reference.writeObjectValue(resource);
+        assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+    }
+
+    @Test
+    public void testLinksOnly() throws Exception {
+        subject.startResource().link(HAL.SELF, "resource").endResource();
+
+        assertSameOutput(HAL.newResource("resource"));
+    }
+
+    @Test
+    public void testMultipleLinksPerRel_groupedInInsertionOrder() throws Exception {
+        final Resource resource = HAL.newResource("resource");
+        resource.addLink("item", "a");
+        resource.addLink(HAL.newLink("next", "n").title("Next"));
+        resource.addLink("item", "b");
+
+        subject.startResource().link(HAL.SELF, "resource").link("item", "a")
+                .link(HAL.newLink("next", "n").title("Next")).link("item", "b").endResource();
+
+        assertSameOutput(resource);
+    }
+
+    @Test
+    public void testEmbedded_singleMultipleAndNested() throws Exception {
+        final Resource resource = HAL.newResource("resource");
+        resource.embed("single", HAL.newResource("s"));
+        resource.embed("multi", HAL.newResource("m1"), HAL.newResource("m2").embed("nested", HAL.newResource("n")),
+                HAL.newResource("m3"));
+
+        subject.startResource().link(HAL.SELF, "resource");
+        subject.startEmbedded("single").startResource().link(HAL.SELF, "s").endResource().endEmbedded();
+        subject.startEmbedded("multi");
+        subject.startResource().link(HAL.SELF, "m1").endResource();
+        subject.startResource().link(HAL.SELF, "m2");
+        subject.startEmbedded("nested").startResource().link(HAL.SELF, "n").endResource().endEmbedded();
+        subject.endResource();
+        subject.startResource().link(HAL.SELF, "m3").endResource();
+        subject.endEmbedded().endResource();
+
+        assertSameOutput(resource);
+    }
+
+    @Test
+    public void testEmbedded_firstResourceWithNestedRelations() throws Exception {
+        final Resource resource = HAL.newResource("resource");
+        resource.embed("item", HAL.newResource("i1").embed("nested", HAL.newResource("a"), HAL.newResource("b")));
+
+        subject.startResource().link(HAL.SELF, "resource").startEmbedded("item");
+        subject.startResource().link(HAL.SELF, "i1").startEmbedded("nested");
+        subject.startResource().link(HAL.SELF, "a").endResource();
+        subject.startResource().link(HAL.SELF, "b").endResource();
+        subject.endEmbedded().endResource();
+        subject.endEmbedded().endResource();
+
+        assertSameOutput(resource);
+    }
+
+    @Test
+    public void testProperties() throws Exception {
+        final ResourcePojo pojo = new ResourcePojo();
+        pojo.setName("test");
+        pojo.setSize(123);
+        pojo.setScale(1.5);
+        pojo.embed("item", HAL.newResource("i"));
+
+        subject.startResource().link(HAL.SELF, "pojo");
+        subject.startEmbedded("item").startResource().link(HAL.SELF, "i").endResource().endEmbedded();
+        subject.property("name", "test").property("size", 123).property("scale", 1.5).property("option", null);
+        subject.endResource();
+
+        assertSameOutput(pojo);
+    }
+
+    @Test
+    public void testOptions_compactWriteNullsAndEmptyEmbedded() throws Exception {
+        setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+        setOption(JsonHalWriter.Option.WRITE_NULLS, true);
+        setOption(JsonHalWriter.Option.WRITE_EMPTY_EMBEDDED, true);
+        final ResourcePojo pojo = new ResourcePojo();
+        pojo.setName("test");
+
+        subject.startResource().link(HAL.SELF, "pojo");
+        subject.property("name", "test").property("size", 0).property("scale", 0.0).property("option", null);
+        subject.endResource();
+
+        assertSameOutput(pojo);
+    }
+
+    @Test
+    public void testOptions_embeddedRels() throws Exception {
+        setOption(JsonHalWriter.Option.EMBEDDED_RELS, new HashSet<>(Arrays.asList("item")));
+        final Resource resource = HAL.newResource("resource");
+        resource.embed("skipped", HAL.newResource("s"));
+        resource.embed("item", HAL.newResource("i"));
+
+        subject.startResource().link(HAL.SELF, "resource");
+        subject.startEmbedded("skipped").startResource().link(HAL.SELF, "s");
+        subject.startEmbedded("nested").startResource().endResource().endEmbedded();
+        subject.endResource().endEmbedded();
+        subject.startEmbedded("item").startResource().link(HAL.SELF, "i").endResource().endEmbedded();
+        subject.endResource();
+
+        assertSameOutput(resource);
+    }
+
+    @Test
+    public void testEmptyRelation() throws Exception {
+        final Resource resource = HAL.newResource("resource");
+        resource.embedStream("item", Collections.<Resource> emptyList());
+
+        subject.startResource().link(HAL.SELF, "resource").startEmbedded("item").endEmbedded().endResource();
+
+        assertSameOutput(resource);
+    }
+
+    @Test
+    public void testLargeRelation() throws Exception {
+        subject.startResource().link(HAL.SELF, "resource").startEmbedded("item");
+        for (int i = 0; i < 10000; i++) {
+            subject.startResource().link(HAL.SELF, String.valueOf(i)).property("index", i).endResource();
+        }
+        subject.endEmbedded().endResource();
+
+        final String output = actual.toString("UTF-8");
+        assertTrue(output.contains("\"href\" : \"9999\""));
+        assertTrue(output.contains("\"index\" : 9999"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLinkAfterEmbedded() throws Exception {
+        subject.startResource().startEmbedded("item").endEmbedded().link(HAL.SELF, "resource");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEmbeddedAfterProperty() throws Exception {
+        subject.startResource().property("name", "value").startEmbedded("item");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRelationTwice() throws Exception {
+        subject.startResource().startEmbedded("item").endEmbedded().startEmbedded("item");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResourceInResource() throws Exception {
+        subject.startResource().startResource();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndResourceInRelation() throws Exception {
+        subject.startResource().startEmbedded("item").endResource();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPropertyWithoutResource() throws Exception {
+        subject.property("name", "value");
+    }
+}
@@ -0,0 +1,247 @@
+package io.inkstand.halite.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+public class JsonHalReaderTest {
+
+    @Test
+    public void testRead_links() throws Exception {
+        final Resource resource = read("{'_links':{'self':{'href':'test'},"
+                + "'item':[{'href':'a','name':'first','title':'A','hreflang':'en','type':'text/plain',"
+                + "'profile':'p','deprecation':'d','templated':true},{'href':'b'}]}}");
+
+        assertEquals("test", resource.getURI().toString());
+        assertEquals(2, resource.getLinks("item").size());
+        final Link link = resource.getLink("item", "first");
+        assertNotNull(link);
+        assertEquals("item", link.getRel());
+        assertEquals("a", link.getHref());
+        assertEquals("A", link.getTitle());
+        assertEquals("en", link.getHreflang());
+        assertEquals("text/plain", link.getType());
+        assertEquals("p", link.getProfile());
+        assertEquals("d", link.getDeprecation());
+        assertTrue(link.isTemplated());
+        assertEquals("b", resource.getLink("item").getHref());
+        assertNull(resource.getLink("item").isTemplated());
+    }
+
+    @Test
+    public void testRead_embeddedSingleAndArray() throws Exception {
+        final Resource resource = read("{'_links':{'self':{'href':'test'}},'_embedded':{"
+                + "'single':{'_links':{'self':{'href':'s'}}},"
+                + "'multi':[{'_links':{'self':{'href':'m1'}}},{'_links':{'self':{'href':'m2'}}}]}}");
+
+        assertEquals(1, resource.getEmbedded("single").size());
+        assertEquals("s", resource.getEmbedded("single").get(0).getURI().toString());
+        assertEquals(2, resource.getEmbedded("multi").size());
+        assertEquals("m2", resource.getEmbedded("multi").get(1).getURI().toString());
+    }
+
+    @Test
+    public void testRead_selectedEmbeddedRels_othersSkipped() throws Exception {
+        final JsonHalReader reader = new JsonHalReader(new StringReader(json("{'_links':{'self':{'href':'test'}},"
+                + "'_embedded':{'skipped':[{'_links':{'self':{'href':'x'}},'deep':{'a':[1,2,{'b':3}]}}],"
+                + "'read':{'_links':{'self':{'href':'r'}}}},'unknown':{'nested':[1,2]}}")));
+        reader.setEmbeddedRels("read");
+
+        final Resource resource = reader.read();
+
+        assertTrue(resource.getEmbedded("skipped").isEmpty());
+        assertEquals(1, resource.getEmbedded("read").size());
+        assertEquals("test", resource.getURI().toString());
+    }
+
+    @Test
+    public void testRead_subtype_fieldsMapped() throws Exception {
+        final TestResource expected = new TestResource("test");
+        expected.text = "text";
+        expected.number = 42;
+        expected.flag = true;
+        expected.aChar = 'x';
+        expected.values = Arrays.asList("a", "b");
+        expected.child = new TestResource("child");
+        expected.child.text = "childText";
+        expected.children = Arrays.asList(new TestResource("c1"), new TestResource("c2"));
+        expected.embed("item", new TestResource("item"));
+
+        final JsonHalReader reader = new JsonHalReader(new ByteArrayInputStream(write(expected)));
+        reader.setEmbeddedType("item", TestResource.class);
+        final TestResource actual = reader.read(TestResource.class);
+
+        assertEquals("test", actual.getURI().toString());
+        assertEquals("text", actual.text);
+        assertEquals(42, actual.number);
+        assertTrue(actual.flag);
+        assertEquals('x', actual.aChar);
+        assertEquals(Arrays.asList("a", "b"), actual.values);
+        assertEquals("child", actual.child.getURI().toString());
+        assertEquals("childText", actual.child.text);
+        assertEquals(2, actual.children.size());
+        assertEquals("c2", actual.children.get(1).getURI().toString());
+        assertTrue(actual.getEmbedded("item").get(0) instanceof TestResource);
+    }
+
+    @Test
+    public void testRead_roundTrip_sameOutput() throws Exception {
+        final TestResource expected = new TestResource("test");
+        expected.text = "text";
+        expected.child = new TestResource("child");
+        expected.addLink("other", "http://other").name("o").title("Other");
+        expected.embed("item", new TestResource("item1"), new TestResource("item2"));
+        expected.embed("single", new Resource("single"));
+
+        final byte[] written = write(expected);
+        final JsonHalReader reader = new JsonHalReader(new ByteArrayInputStream(written));
+        reader.setEmbeddedType("item", TestResource.class);
+
+        assertEquals(new String(written, "UTF-8"), new String(write(reader.read(TestResource.class)), "UTF-8"));
+    }
+
+    @Test
+    public void testRead_nullValues() throws Exception {
+        final TestResource resource = new JsonHalReader(new StringReader(json(
+                "{'_links':{'self':{'href':'test'}},'text':null,'number':null,'child':null}"))).read(TestResource.class);
+
+        assertNull(resource.text);
+        assertEquals(0, resource.number);
+        assertNull(resource.child);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testRead_linkWithoutHref() throws Exception {
+        read("{'_links':{'self':{'title':'test'}}}");
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testRead_noObject() throws Exception {
+        read("['test']");
+    }
+
+    @Test
+    public void testRead_lazyEmbedded_onlyAccessedResourcesParsed() throws Exception {
+        final Resource resource = new Resource("test");
+        for (int i = 0; i < 1000; i++) {
+            resource.embed("item", new CountingResource("item" + i));
+        }
+        final JsonHalReader reader = new JsonHalReader(write(resource));
+        reader.setEmbeddedType("item", CountingResource.class).setLazyEmbedded(true);
+        CountingResource.created = 0;
+
+        final Resource actual = reader.read();
+
+        assertEquals(0, CountingResource.created);
+        assertEquals(1000, actual.getEmbedded("item").size());
+        assertEquals("item500", actual.getEmbedded("item").get(500).getURI().toString());
+        assertEquals(1, CountingResource.created);
+        assertSame(actual.getEmbedded("item").get(500), actual.getEmbedded("item").get(500));
+        assertEquals(1, CountingResource.created);
+    }
+
+    @Test
+    public void testRead_lazyEmbedded_sameOutputAsEager() throws Exception {
+        final TestResource expected = new TestResource("test");
+        expected.text = "text";
+        final TestResource nested = new TestResource("nested");
+        nested.embed("inner", new Resource("inner1"), new Resource("inner2"));
+        expected.embed("item", nested, new TestResource("item2"));
+        expected.embed("single", new Resource("single"));
+        final byte[] data = write(expected);
+        // the json is read from a range within a larger array
+        final byte[] buffer = new byte[data.length + 20];
+        System.arraycopy(data, 0, buffer, 10, data.length);
+
+        final JsonHalReader reader = new JsonHalReader(buffer, 10, data.length);
+        reader.setEmbeddedType("item", TestResource.class).setLazyEmbedded(true);
+        final TestResource actual = reader.read(TestResource.class);
+
+        assertEquals(2, actual.getEmbedded("item").get(0).getEmbedded("inner").size());
+        assertEquals(new String(data, "UTF-8"), new String(write(actual), "UTF-8"));
+    }
+
+    @Test
+    public void testRead_lazyEmbedded_prettyPrinted() throws Exception {
+        final JsonHalReader reader = new JsonHalReader(json("{ '_links' : { 'self' : { 'href' : 'test' } },\n"
+                + "  '_embedded' : {\n    'single' :\n  { '_links' : { 'self' : { 'href' : 's' } } },\n"
+                + "    'multi' : [ { '_links' : { 'self' : { 'href' : 'm1' } } } ,\n"
+                + "     { '_links' : { 'self' : { 'href' : 'm2' } } } ] } }").getBytes("UTF-8"));
+        reader.setLazyEmbedded(true);
+
+        final Resource resource = reader.read();
+
+        assertEquals("s", resource.getEmbedded("single").get(0).getURI().toString());
+        assertEquals("m2", resource.getEmbedded("multi").get(1).getURI().toString());
+        assertEquals("m1", resource.getEmbedded("multi").get(0).getURI().toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSetLazyEmbedded_noByteArray() throws Exception {
+        new JsonHalReader(new StringReader("{}")).setLazyEmbedded(true);
+    }
+
+    private Resource read(final String json) throws Exception {
+        return new JsonHalReader(new StringReader(json(json))).read();
+    }
+
+    private String json(final String json) {
+        return json.replace('\'', '"');
+    }
+
+    private byte[] write(final Resource resource) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(out);
+        writer.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+        writer.write(resource);
+        return out.toByteArray();
+    }
+
+    static class CountingResource extends Resource {
+
+        static int created;
+
+        CountingResource() {
+            created++;
+        }
+
+        CountingResource(final String uri) {
+            super(uri);
+        }
+    }
+
+    static class TestResource extends Resource {
+
+        static final String CONSTANT = "constant";
+
+        String text;
+        int number;
+        boolean flag;
+        char aChar;
+        List<String> values;
+        TestResource child;
+        List<TestResource> children;
+
+        TestResource() {
+        }
+
+        TestResource(final String uri) {
+            super(uri);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.inkstand.halite.json;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+public class JsonHalWriterFactoryTest {
+
+    /**
+     * strict mode has to be disabled for jacoco builds, otherwise the tests will fail
+     */
+    private static final boolean STRICT_MODE = !Boolean.getBoolean("tests.json.strict.validation.disabled");
+
+    private ObjectMapper mapper;
+    private JsonHalWriterFactory subject;
+
+    @Before
+    public void setUp() throws Exception {
+        this.mapper = new ObjectMapper();
+        this.subject = new JsonHalWriterFactory(mapper);
+    }
+
+    @Test
+    public void testGetObjectMapper() throws Exception {
+        assertSame(mapper, subject.getObjectMapper());
+    }
+
+    @Test
+    public void testNewWriter_outputStream() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        final JsonHalWriter writer = subject.newWriter(outputStream);
+        writer.write(HAL.newResource("test"));
+
+        assertTrue((Boolean) writer.getOption(JsonHalWriter.Option.CLOSE_ON_WRITE_RESOURCE));
+        JSONAssert.assertEquals("{\"_links\":{\"self\":{\"href\":\"test\"}}}", outputStream.toString(),
+                STRICT_MODE);
+    }
+
+    @Test
+    public void testNewWriter_writer() throws Exception {
+        final StringWriter out = new StringWriter();
+
+        final JsonHalWriter writer = subject.newWriter(out);
+        writer.write(HAL.newResource("test"));
+
+        assertTrue((Boolean) writer.getOption(JsonHalWriter.Option.CLOSE_ON_WRITE_RESOURCE));
+        JSONAssert.assertEquals("{\"_links\":{\"self\":{\"href\":\"test\"}}}", out.toString(), STRICT_MODE);
+    }
+
+    @Test
+    public void testNewWriter_generator() throws Exception {
+        final JsonGenerator generator = mapper.getFactory().createGenerator(new ByteArrayOutputStream());
+
+        final JsonHalWriter writer = subject.newWriter(generator);
+
+        assertFalse((Boolean) writer.getOption(JsonHalWriter.Option.CLOSE_ON_WRITE_RESOURCE));
+        assertSame(mapper, generator.getCodec());
+    }
+
+    @Test
+    public void testNewWriter_configuredMapperUsedForFields() throws Exception {
+        this.mapper.enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final EnumResource resource = new EnumResource();
+
+        subject.newWriter(outputStream).write(resource);
+
+        JSONAssert.assertEquals("{\"_links\":{\"self\":{\"href\":\"enum\"}},\"unit\":1}", outputStream.toString(),
+                STRICT_MODE);
+    }
+
+    public static enum Unit {
+        METER, SECOND
+    }
+
+    public static class EnumResource extends Resource {
+
+        private final Unit unit = Unit.SECOND;
+
+        public EnumResource() {
+            super("enum");
+        }
+
+        public Unit getUnit() {
+            return unit;
+        }
+    }
+}
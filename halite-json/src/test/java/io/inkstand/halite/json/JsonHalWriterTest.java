@@ -1,15 +1,23 @@
 package io.inkstand.halite.json;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlType;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -519,6 +527,69 @@ public class JsonHalWriterTest {
         assertJsonDataEquals(expected);
     }
 
+    @Test
+    public void testWrite_flushPolicy_endOfDocument() throws Exception {
+        final FlushCountingOutputStream out = new FlushCountingOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(new JsonFactory().createGenerator(out));
+
+        writer.write(createEmbeddingResource());
+
+        assertEquals(1, out.flushes);
+    }
+
+    @Test
+    public void testWrite_flushPolicy_embeddedItem() throws Exception {
+        final FlushCountingOutputStream out = new FlushCountingOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(new JsonFactory().createGenerator(out));
+        writer.setOption(JsonHalWriter.Option.FLUSH_POLICY, JsonHalWriter.FlushPolicy.EMBEDDED_ITEM);
+
+        writer.write(createEmbeddingResource());
+
+        // one flush per top-level embedded item and one at the end of the document
+        assertEquals(4, out.flushes);
+    }
+
+    @Test
+    public void testWrite_flushPolicy_element() throws Exception {
+        final FlushCountingOutputStream out = new FlushCountingOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(new JsonFactory().createGenerator(out));
+        writer.setOption(JsonHalWriter.Option.FLUSH_POLICY, JsonHalWriter.FlushPolicy.ELEMENT);
+
+        writer.write(createEmbeddingResource());
+
+        assertTrue(out.flushes > 4);
+    }
+
+    @Test
+    public void testWrite_outputProfile_pretty() throws Exception {
+        final Resource res = HAL.newResource("r\u00e9source");
+
+        this.subject.write(res);
+
+        assertTrue(getData().contains("\n"));
+        assertTrue(getData().contains("r\\u00E9source"));
+    }
+
+    @Test
+    public void testWrite_outputProfile_compact() throws Exception {
+        final Resource res = HAL.newResource("r\u00e9source");
+        this.subject.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+
+        this.subject.write(res);
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"r\\u00E9source\"}}}", getData());
+    }
+
+    @Test
+    public void testWrite_outputProfile_compactUtf8() throws Exception {
+        final Resource res = HAL.newResource("r\u00e9source");
+        this.subject.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT_UTF8);
+
+        this.subject.write(res);
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"r\u00e9source\"}}}", this.outputStream.toString("UTF-8"));
+    }
+
     @Test
     public void testSetOption_validOption() throws Exception {
         this.subject.setOption(JsonHalWriter.Option.WRITE_NULLS, Boolean.TRUE);
@@ -543,6 +614,9 @@ public class JsonHalWriterTest {
         assertTrue(this.subject.isSetOption(JsonHalWriter.Option.WRITE_NULLS));
         assertTrue(this.subject.isSetOption(JsonHalWriter.Option.WRITE_EMPTY_EMBEDDED));
         assertTrue(this.subject.isSetOption(JsonHalWriter.Option.CLOSE_ON_WRITE_RESOURCE));
+        assertTrue(this.subject.isSetOption(JsonHalWriter.Option.FLUSH_POLICY));
+        assertTrue(this.subject.isSetOption(JsonHalWriter.Option.OUTPUT_PROFILE));
+        assertTrue(this.subject.isSetOption(JsonHalWriter.Option.SERIALIZER_ENGINE));
     }
 
     /**
@@ -561,6 +635,11 @@ public class JsonHalWriterTest {
         assertFalse((Boolean) this.subject.getOption(JsonHalWriter.Option.WRITE_NULLS));
         assertFalse((Boolean) this.subject.getOption(JsonHalWriter.Option.WRITE_EMPTY_EMBEDDED));
         assertFalse((Boolean) this.subject.getOption(JsonHalWriter.Option.CLOSE_ON_WRITE_RESOURCE));
+        assertEquals(JsonHalWriter.FlushPolicy.END_OF_DOCUMENT,
+                this.subject.getOption(JsonHalWriter.Option.FLUSH_POLICY));
+        assertEquals(JsonHalWriter.OutputProfile.PRETTY, this.subject.getOption(JsonHalWriter.Option.OUTPUT_PROFILE));
+        assertEquals(JsonHalWriter.SerializerEngine.GENERATED,
+                this.subject.getOption(JsonHalWriter.Option.SERIALIZER_ENGINE));
     }
 
     /**
@@ -578,10 +657,110 @@ public class JsonHalWriterTest {
         return HAL.newLink(rel, href).name(name).title(title).type(type);
     }
 
+    @Test
+    public void testWriteObjectValue_embeddedLazy_resolvedWhenWritten() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final Resource res = createResource();
+        res.embedLazy("item", new CountingSource(calls, "lazy"));
+
+        assertEquals(0, calls.get());
+        this.subject.writeObjectValue(res);
+
+        assertEquals(1, calls.get());
+        assertJsonDataEquals("{'_links':{'self':{'href':'resource'}},"
+                + "'_embedded':{'item':{'_links':{'self':{'href':'lazy'}}}}}");
+    }
+
+    @Test
+    public void testWriteObjectValue_embeddedRelsSelected_othersNotResolved() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final Resource res = createResource();
+        res.embedLazy("skipped", new CountingSource(calls, "skipped"));
+        res.embed("item", createResource());
+        res.embedLazy("item", new CountingSource(new AtomicInteger(), "lazy"));
+        this.subject.setOption(JsonHalWriter.Option.EMBEDDED_RELS, new HashSet<>(Arrays.asList("item")));
+
+        this.subject.writeObjectValue(res);
+
+        assertEquals(0, calls.get());
+        assertJsonDataEquals("{'_links':{'self':{'href':'resource'}},'_embedded':{'item':["
+                + "{'_links':{'self':{'href':'resource'}}},{'_links':{'self':{'href':'lazy'}}}]}}");
+    }
+
+    @Test
+    public void testWriteObjectValue_noEmbeddedRelSelected() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final Resource res = createResource();
+        res.embedLazy("skipped", new CountingSource(calls, "skipped"));
+        this.subject.setOption(JsonHalWriter.Option.EMBEDDED_RELS, Collections.emptySet());
+
+        this.subject.writeObjectValue(res);
+
+        assertEquals(0, calls.get());
+        assertJsonDataEquals("{'_links':{'self':{'href':'resource'}}}");
+    }
+
+    @Test
+    public void testWriteObjectValue_embeddedStream_notRetained() throws Exception {
+        final int size = 100000;
+        final Resource res = createResource();
+        res.embedStream("item", new Iterator<Resource>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Resource next() {
+                return HAL.newResource(String.valueOf(next++));
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        this.subject.writeObjectValue(res);
+
+        final String json = getData().replaceAll("\\s", "").replace('"', '\'');
+        assertTrue(json.contains("'_embedded':{'item':[{'_links':{'self':{'href':'0'}}},"));
+        assertTrue(json.endsWith("{'_links':{'self':{'href':'99999'}}}]}}"));
+        try {
+            // the stream has been consumed by the writer and no resource was kept
+            res.getEmbedded("item").size();
+            fail("resources were retained");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().contains("item"));
+        }
+    }
+
+    @Test
+    public void testWriteObjectValue_embeddedStream_singleAndEmpty() throws Exception {
+        final Resource res = createResource();
+        res.embedStream("single", Collections.singletonList(createResource()));
+        res.embedStream("empty", Collections.<Resource> emptyList());
+
+        this.subject.writeObjectValue(res);
+
+        assertJsonDataEquals("{'_links':{'self':{'href':'resource'}},'_embedded':{"
+                + "'single':{'_links':{'self':{'href':'resource'}}},'empty':[]}}");
+    }
+
     private Resource createResource() {
         return HAL.newResource("resource");
     }
 
+    private Resource createEmbeddingResource() {
+        final Resource res = createResource();
+        res.embed("item", createResource(), createResource());
+        res.embed("other", createResource().embed("nested", createResource()));
+        return res;
+    }
+
     private SimplePojo createSimplePojo(final String name, final int size, final double scale) {
         final SimplePojo pojo = new SimplePojo();
         pojo.setName(name);
@@ -607,6 +786,19 @@ public class JsonHalWriterTest {
 
     }
 
+    /**
+     * Output stream that counts the flushes
+     */
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+        }
+    }
+
     /**
      * A Simple POJO used for testsing serialization of objects
      * 
@@ -797,4 +989,24 @@ public class JsonHalWriterTest {
 
     }
 
+    /**
+     * Source of a deferred resource that counts its calls
+     */
+    private static class CountingSource implements Callable<Resource> {
+
+        private final AtomicInteger calls;
+        private final String uri;
+
+        CountingSource(final AtomicInteger calls, final String uri) {
+            this.calls = calls;
+            this.uri = uri;
+        }
+
+        @Override
+        public Resource call() throws Exception {
+            calls.incrementAndGet();
+            return HAL.newResource(uri);
+        }
+    }
+
 }
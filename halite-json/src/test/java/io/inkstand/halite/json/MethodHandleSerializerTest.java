@@ -0,0 +1,121 @@
+package io.inkstand.halite.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import io.inkstand.halite.Resource;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class MethodHandleSerializerTest {
+
+    @Test
+    public void testOf_cached() throws Exception {
+        assertSame(MethodHandleSerializer.of(AllTypesResource.class),
+                MethodHandleSerializer.of(AllTypesResource.class));
+    }
+
+    @Test
+    public void testWriteFields_sameOutputAsReflection() throws Exception {
+        final AllTypesResource resource = new AllTypesResource();
+        resource.embed("child", new AllTypesResource());
+
+        assertEquals(write(resource, JsonHalWriter.SerializerEngine.REFLECTION, false),
+                write(resource, JsonHalWriter.SerializerEngine.METHOD_HANDLE, false));
+    }
+
+    @Test
+    public void testWriteFields_writeNulls_sameOutputAsReflection() throws Exception {
+        final AllTypesResource resource = new AllTypesResource();
+        resource.text = null;
+        resource.child = null;
+
+        assertEquals(write(resource, JsonHalWriter.SerializerEngine.REFLECTION, true),
+                write(resource, JsonHalWriter.SerializerEngine.METHOD_HANDLE, true));
+    }
+
+    @Test
+    public void testWriteFields_primitives() throws Exception {
+        final String actual = write(new AllTypesResource(), JsonHalWriter.SerializerEngine.METHOD_HANDLE, false);
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"all\"}},"
+                + "\"aByte\":1,\"aShort\":2,\"anInt\":3,\"aLong\":4,\"aFloat\":5.5,\"aDouble\":6.25,"
+                + "\"aBoolean\":true,\"aChar\":\"c\",\"text\":\"text\",\"boxed\":7,\"list\":[\"a\",\"b\"],"
+                + "\"child\":{\"_links\":{\"self\":{\"href\":\"child\"}}},\"CONSTANT\":\"constant\"}", actual);
+    }
+
+    @Test
+    public void testWriteFields_readFailure_sameOutputAsReflection() throws Exception {
+        final String reflection = writeUnreadable(false);
+
+        assertEquals(reflection, writeUnreadable(true));
+        assertTrue(reflection.contains("\"anInt\":\"N/A\""));
+        assertTrue(reflection.contains("\"list\":\"N/A\""));
+        assertTrue(reflection.contains("\"CONSTANT\":\"constant\""));
+    }
+
+    /**
+     * Writes the fields of an {@link AllTypesResource} from an object that is no such resource, so that reading any
+     * instance field fails
+     */
+    private String writeUnreadable(final boolean methodHandles) throws Exception {
+        final StringWriter out = new StringWriter();
+        final JsonGenerator json = new JsonFactory().createGenerator(out);
+        final JsonHalWriter writer = new JsonHalWriter(json);
+        writer.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+        final Object unreadable = new Object();
+        json.writeStartObject();
+        if (methodHandles) {
+            MethodHandleSerializer.of(AllTypesResource.class).writeFields(writer, json, writer.config(), unreadable);
+        } else {
+            for (final SerializationPlan.Property property : SerializationPlan.of(AllTypesResource.class)
+                    .getProperties()) {
+                writer.writeFieldValue(property, property.getValue(unreadable));
+            }
+        }
+        json.writeEndObject();
+        json.flush();
+        return out.toString();
+    }
+
+    private String write(final Resource resource, final JsonHalWriter.SerializerEngine engine,
+            final boolean writeNulls) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonHalWriter writer = new JsonHalWriter(out);
+        writer.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+        writer.setOption(JsonHalWriter.Option.SERIALIZER_ENGINE, engine);
+        writer.setOption(JsonHalWriter.Option.WRITE_NULLS, writeNulls);
+        writer.write(resource);
+        return out.toString("UTF-8");
+    }
+
+    public static class AllTypesResource extends Resource {
+
+        public AllTypesResource() {
+            super("all");
+        }
+
+        byte aByte = 1;
+        short aShort = 2;
+        int anInt = 3;
+        long aLong = 4;
+        float aFloat = 5.5f;
+        double aDouble = 6.25;
+        boolean aBoolean = true;
+        char aChar = 'c';
+        String text = "text";
+        Integer boxed = 7;
+        List<String> list = Arrays.asList("a", "b");
+        Resource child = new Resource("child");
+        static final String CONSTANT = "constant";
+    }
+}
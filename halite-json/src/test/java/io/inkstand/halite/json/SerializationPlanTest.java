@@ -0,0 +1,73 @@
+package io.inkstand.halite.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.inkstand.halite.Resource;
+
+import org.junit.Test;
+
+public class SerializationPlanTest {
+
+    @Test
+    public void testOf_cached() throws Exception {
+        assertSame(SerializationPlan.of(ChildResource.class), SerializationPlan.of(ChildResource.class));
+    }
+
+    @Test
+    public void testOf_resource_noProperties() throws Exception {
+        assertEquals(0, SerializationPlan.of(Resource.class).getProperties().length);
+    }
+
+    @Test
+    public void testGetProperties_typeFieldsBeforeSupertypeFields() throws Exception {
+        final SerializationPlan.Property[] properties = SerializationPlan.of(ChildResource.class).getProperties();
+
+        assertEquals(4, properties.length);
+        assertEquals("child", properties[0].getName().getValue());
+        assertEquals("items", properties[1].getName().getValue());
+        assertEquals("name", properties[2].getName().getValue());
+        assertEquals("size", properties[3].getName().getValue());
+    }
+
+    @Test
+    public void testGetProperties_valueKinds() throws Exception {
+        final SerializationPlan.Property[] properties = SerializationPlan.of(ChildResource.class).getProperties();
+
+        assertEquals(SerializationPlan.ValueKind.RESOURCE, properties[0].getKind());
+        assertEquals(SerializationPlan.ValueKind.COLLECTION, properties[1].getKind());
+        assertEquals(SerializationPlan.ValueKind.OBJECT, properties[2].getKind());
+        assertEquals(SerializationPlan.ValueKind.OBJECT, properties[3].getKind());
+    }
+
+    @Test
+    public void testGetValue() throws Exception {
+        final ChildResource resource = new ChildResource();
+        resource.name = "aName";
+        resource.size = 42;
+
+        final SerializationPlan.Property[] properties = SerializationPlan.of(ChildResource.class).getProperties();
+
+        assertEquals("aName", properties[2].getValue(resource));
+        assertEquals(42, properties[3].getValue(resource));
+    }
+
+    public static class ParentResource extends Resource {
+
+        public ParentResource() {
+            super("parent");
+        }
+
+        String name;
+        int size;
+    }
+
+    public static class ChildResource extends ParentResource {
+
+        Resource child;
+        List<String> items = new ArrayList<>();
+    }
+}
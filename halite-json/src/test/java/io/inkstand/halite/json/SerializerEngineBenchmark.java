@@ -0,0 +1,90 @@
+package io.inkstand.halite.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import io.inkstand.halite.Resource;
+
+/**
+ * Benchmark that compares the throughput of the {@link JsonHalWriter.SerializerEngine}s for a resource with many
+ * primitive fields. The benchmark is not run as part of the test suite, run its main method with the test classpath
+ * instead, i.e.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) io.inkstand.halite.json.SerializerEngineBenchmark
+ * </pre>
+ *
+ * Each engine is warmed up before it is measured, the measurement reports the average time per written resource of
+ * the fastest of several rounds.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public final class SerializerEngineBenchmark {
+
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 20000;
+
+    private SerializerEngineBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Resource resource = new PrimitivesResource();
+        for (int i = 0; i < 10; i++) {
+            resource.embed("item", new PrimitivesResource());
+        }
+        final JsonHalWriter.SerializerEngine[] engines = { JsonHalWriter.SerializerEngine.REFLECTION,
+                JsonHalWriter.SerializerEngine.METHOD_HANDLE };
+        for (final JsonHalWriter.SerializerEngine engine : engines) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(resource, engine);
+            }
+        }
+        for (final JsonHalWriter.SerializerEngine engine : engines) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; i++) {
+                best = Math.min(best, run(resource, engine));
+            }
+            System.out.println(engine + ": " + best / ITERATIONS + " ns/resource"); // NOSONAR
+        }
+    }
+
+    /**
+     * Writes the resource {@link #ITERATIONS} times
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    private static long run(final Resource resource, final JsonHalWriter.SerializerEngine engine)
+            throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            out.reset();
+            final JsonHalWriter writer = new JsonHalWriter(out);
+            writer.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, JsonHalWriter.OutputProfile.COMPACT);
+            writer.setOption(JsonHalWriter.Option.SERIALIZER_ENGINE, engine);
+            writer.write(resource);
+        }
+        return System.nanoTime() - start;
+    }
+
+    static class PrimitivesResource extends Resource {
+
+        int count = 42;
+        long total = 123456789L;
+        double ratio = 0.75;
+        boolean active = true;
+        int a = 1;
+        int b = 2;
+        int c = 3;
+        long d = 4;
+        double e = 5.5;
+        String name = "name";
+
+        PrimitivesResource() {
+            super("primitives");
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package io.inkstand.halite.rs;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import io.inkstand.halite.Resource;
+import io.inkstand.halite.xml.XmlHalWriter;
 
 /**
  * {@link MessageBodyWriter} to write halite {@link Resource}s in a JAX-RS service response.
@@ -20,6 +25,11 @@ import io.inkstand.halite.Resource;
  */
 public abstract class HaliteMessageBodyWriter<R extends Resource> implements MessageBodyWriter<R> {
 
+    /**
+     * Registry of the JAXBContexts shared among all writers, keyed by the compiled package list
+     */
+    private static final JAXBContextRegistry CONTEXT_REGISTRY = new JAXBContextRegistry();
+
     private String compiledPackageList;
     private Collection<MediaType> compiledMediaTypeList;
 
@@ -70,7 +80,95 @@ public abstract class HaliteMessageBodyWriter<R extends Resource> implements Mes
     }
 
     /**
-     * Creates a new JAXBContext for the given model packages.
+     * Provides the pool of marshallers and unmarshallers of the JAXBContext for the model packages. Use the pool
+     * instead of creating a marshaller per response, the built-in writers borrow their marshallers from it whenever
+     * a resource has to be marshalled by JAXB (see {@link #isMarshallerRequired(Resource)}). The pool is kept in the
+     * context registry and shared with all writers using the same package list and marshaller properties. It is
+     * created on first access with the size and properties provided by {@link #getMarshallerPoolSize()} and
+     * {@link #getMarshallerProperties()}.
+     * @return
+     *  the shared marshaller pool for the model packages
+     * @throws JAXBException
+     *  if no context could be created for the model packages
+     */
+    protected MarshallerPool getMarshallerPool() throws JAXBException {
+        return CONTEXT_REGISTRY.getMarshallerPool(getJAXBModelPackage(), new JAXBContextRegistry.ContextFactory() {
+
+            @Override
+            public JAXBContext newContext() throws JAXBException {
+                return newJAXBContext();
+            }
+        }, getMarshallerPoolSize(), getMarshallerProperties());
+    }
+
+    /**
+     * Provides the maximum number of idle marshallers and unmarshallers that are kept for reuse. The default is twice
+     * the number of available processors. Override the method to adjust the pool size to the number of request
+     * threads.
+     * @return
+     *  the capacity of the marshaller pool
+     */
+    protected int getMarshallerPoolSize() {
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    /**
+     * Override this method to provide the properties the pooled marshallers are configured with, i.e.
+     * {@link javax.xml.bind.Marshaller#JAXB_FORMATTED_OUTPUT} or {@link javax.xml.bind.Marshaller#JAXB_ENCODING}.
+     * @return
+     *  an empty map
+     */
+    protected Map<String, ?> getMarshallerProperties() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Checks if the resource has to be written as xml by a JAXB marshaller instead of the {@link XmlHalWriter}. This
+     * is the case if custom model packages are configured, as their models are bound by the JAXBContext, or if the
+     * {@link XmlHalWriter} does not support the type of the resource, i.e. because it uses JAXB adapters or element
+     * wrappers.
+     * @param resource
+     *  the resource to write
+     * @return
+     *  <code>true</code> if the resource has to be marshalled by JAXB
+     */
+    protected boolean isMarshallerRequired(final Resource resource) {
+        return !getCustomModelPackages().isEmpty() || !XmlHalWriter.isSupported(resource.getClass());
+    }
+
+    /**
+     * Marshals the resource as xml to the output stream using a marshaller borrowed from the
+     * {@link #getMarshallerPool()}. A marshaller that failed is not returned to the pool.
+     * @param resource
+     *  the resource to marshal
+     * @param outputStream
+     *  the stream to write the xml to
+     * @throws WebApplicationException
+     *  if the resource could not be marshalled
+     */
+    protected void marshal(final Resource resource, final OutputStream outputStream) {
+        try {
+            final MarshallerPool pool = getMarshallerPool();
+            final Marshaller marshaller = pool.borrowMarshaller();
+            marshaller.marshal(resource, outputStream);
+            pool.releaseMarshaller(marshaller);
+        } catch (final JAXBException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+    /**
+     * @return
+     *  the registry holding the shared JAXBContexts. The registry provides statistics about the created
+     *  and reused contexts.
+     */
+    public static JAXBContextRegistry getContextRegistry() {
+        return CONTEXT_REGISTRY;
+    }
+
+    /**
+     * Creates a new JAXBContext for the given model packages. The method is invoked once per package list, the
+     * created context is kept in the registry and shared by the {@link #getMarshallerPool()}.
      * @return
      *  a new instance of a JAXBContext
      * @throws JAXBException
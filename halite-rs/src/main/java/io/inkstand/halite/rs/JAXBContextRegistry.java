@@ -0,0 +1,175 @@
+package io.inkstand.halite.rs;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Registry that holds one {@link JAXBContext} per context path (the colon separated list of model packages). Creating
+ * a {@link JAXBContext} is expensive, but the context itself is thread-safe, so the registry builds it once and shares
+ * it among all threads. Per request only a {@link javax.xml.bind.Marshaller} is needed, which is borrowed from the
+ * {@link MarshallerPool} of the context. The registry holds the pools along with the contexts, keyed by the context path
+ * and the marshaller properties, so that all users of a context share its pooled marshallers. <br>
+ * The registry counts lookups that could be served from the registry (hits) and lookups that required a new context
+ * to be created (misses).
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class JAXBContextRegistry {
+
+    /**
+     * Factory to create a new {@link JAXBContext} in case the registry holds no context for a context path.
+     *
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     *
+     */
+    public interface ContextFactory {
+
+        /**
+         * Creates a new {@link JAXBContext}.
+         *
+         * @return the new context
+         * @throws JAXBException
+         *             if the context could not be created
+         */
+        JAXBContext newContext() throws JAXBException;
+    }
+
+    private final ConcurrentMap<String, JAXBContext> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * The marshaller pools, keyed by the context path and the properties of the marshallers
+     */
+    private final ConcurrentMap<List<Object>, MarshallerPool> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Retrieves the context for the given context path. If the registry holds no context for the path, a new context
+     * is created using the factory and registered for subsequent lookups. Concurrent lookups of the same path create
+     * the context only once.
+     *
+     * @param contextPath
+     *            the colon separated list of model packages
+     * @param factory
+     *            the factory to create the context if it is not yet registered
+     * @return the context for the context path
+     * @throws JAXBException
+     *             if the context could not be created. Failed creations are not registered so that subsequent lookups
+     *             will try again.
+     */
+    public JAXBContext getContext(final String contextPath, final ContextFactory factory) throws JAXBException {
+        JAXBContext context = contexts.get(contextPath);
+        if (context != null) {
+            hits.incrementAndGet();
+            return context;
+        }
+        synchronized (contexts) {
+            context = contexts.get(contextPath);
+            if (context == null) {
+                misses.incrementAndGet();
+                context = factory.newContext();
+                contexts.put(contextPath, context);
+            } else {
+                hits.incrementAndGet();
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Retrieves the marshaller pool of the context for the given context path. The pool is created along with the
+     * context if the registry holds no pool for the path and properties yet, and is shared by all subsequent lookups
+     * with the same path and properties. The capacity only applies when the pool is created.
+     *
+     * @param contextPath
+     *            the colon separated list of model packages
+     * @param factory
+     *            the factory to create the context if it is not yet registered
+     * @param capacity
+     *            the maximum number of idle marshallers and of idle unmarshallers kept in a new pool
+     * @param properties
+     *            the properties to set on each marshaller of the pool
+     * @return the marshaller pool of the context
+     * @throws JAXBException
+     *             if the context could not be created
+     */
+    public MarshallerPool getMarshallerPool(final String contextPath, final ContextFactory factory,
+            final int capacity, final Map<String, ?> properties) throws JAXBException {
+        final List<Object> key = Arrays.<Object> asList(contextPath, properties.isEmpty() ? Collections.emptyMap()
+                : new HashMap<String, Object>(properties));
+        final MarshallerPool pool = pools.get(key);
+        if (pool != null) {
+            return pool;
+        }
+        final JAXBContext context = getContext(contextPath, factory);
+        synchronized (contexts) {
+            MarshallerPool newPool = pools.get(key);
+            if (newPool == null) {
+                newPool = new MarshallerPool(context, capacity, properties);
+                pools.put(key, newPool);
+            }
+            return newPool;
+        }
+    }
+
+    /**
+     * Checks if the registry holds a context for the given context path
+     *
+     * @param contextPath
+     *            the colon separated list of model packages
+     * @return <code>true</code> if a context is registered for the path
+     */
+    public boolean contains(final String contextPath) {
+        return contexts.containsKey(contextPath);
+    }
+
+    /**
+     * Removes all contexts and marshaller pools from the registry and resets the statistics.
+     */
+    public void clear() {
+        synchronized (contexts) {
+            contexts.clear();
+            pools.clear();
+            hits.set(0);
+            misses.set(0);
+        }
+    }
+
+    /**
+     * @return the number of contexts held by the registry
+     */
+    public int size() {
+        return contexts.size();
+    }
+
+    /**
+     * @return the number of lookups that were served with an already registered context
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that required a new context to be created
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JAXBContextRegistry [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+}
@@ -0,0 +1,235 @@
+package io.inkstand.halite.rs;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * A bounded pool of {@link Marshaller}s and {@link Unmarshaller}s of a {@link JAXBContext}. The context is thread-safe
+ * and shared, while marshallers and unmarshallers are not and must not be used by more than one thread at a time. The
+ * pool therefore hands out a marshaller or unmarshaller per request, which is confined to the borrowing thread until
+ * it is released. Marshallers are configured with the properties of the pool once when they are created, so that
+ * neither creation nor property setup is paid per request. <br>
+ * Returned instances are cleared of their listener and event handler and kept for reuse as long as the pool has
+ * capacity left, otherwise they are discarded. Other settings such as properties, schema or adapters must not be
+ * changed by the borrower. If the pool is empty, a new instance is created, so borrowing never blocks. <br>
+ * The pool counts the borrowed, released and created instances per kind.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class MarshallerPool {
+
+    private final JAXBContext context;
+
+    /**
+     * The properties each marshaller is configured with
+     */
+    private final Map<String, Object> properties;
+
+    private final BlockingQueue<Marshaller> idleMarshallers;
+
+    private final BlockingQueue<Unmarshaller> idleUnmarshallers;
+
+    private final AtomicLong marshallerBorrows = new AtomicLong();
+    private final AtomicLong marshallerReleases = new AtomicLong();
+    private final AtomicLong marshallerCreations = new AtomicLong();
+    private final AtomicLong unmarshallerBorrows = new AtomicLong();
+    private final AtomicLong unmarshallerReleases = new AtomicLong();
+    private final AtomicLong unmarshallerCreations = new AtomicLong();
+
+    /**
+     * Creates a pool for marshallers without additional properties
+     *
+     * @param context
+     *            the context to create the marshallers and unmarshallers from
+     * @param capacity
+     *            the maximum number of idle marshallers and of idle unmarshallers kept in the pool
+     */
+    public MarshallerPool(final JAXBContext context, final int capacity) {
+        this(context, capacity, Collections.<String, Object> emptyMap());
+    }
+
+    /**
+     * Creates a pool for marshallers with the given properties
+     *
+     * @param context
+     *            the context to create the marshallers and unmarshallers from
+     * @param capacity
+     *            the maximum number of idle marshallers and of idle unmarshallers kept in the pool
+     * @param properties
+     *            the properties to set on each marshaller, i.e. {@link Marshaller#JAXB_FORMATTED_OUTPUT} or
+     *            {@link Marshaller#JAXB_ENCODING}. The properties are copied.
+     */
+    public MarshallerPool(final JAXBContext context, final int capacity, final Map<String, ?> properties) {
+        this.context = context;
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(properties));
+        this.idleMarshallers = new ArrayBlockingQueue<>(capacity);
+        this.idleUnmarshallers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Borrows a marshaller from the pool. The marshaller must be returned using the
+     * {@link #releaseMarshaller(Marshaller)} method once the resource has been marshalled.
+     *
+     * @return a marshaller configured with the properties of the pool that is used by the calling thread exclusively
+     * @throws JAXBException
+     *             if a new marshaller could not be created or configured
+     */
+    public Marshaller borrowMarshaller() throws JAXBException {
+        marshallerBorrows.incrementAndGet();
+        final Marshaller marshaller = idleMarshallers.poll();
+        if (marshaller != null) {
+            return marshaller;
+        }
+        marshallerCreations.incrementAndGet();
+        final Marshaller newMarshaller = context.createMarshaller();
+        for (final Map.Entry<String, Object> property : properties.entrySet()) {
+            newMarshaller.setProperty(property.getKey(), property.getValue());
+        }
+        return newMarshaller;
+    }
+
+    /**
+     * Returns a marshaller to the pool. The listener and event handler of the marshaller are cleared. If the pool has
+     * no capacity left, the marshaller is discarded.
+     *
+     * @param marshaller
+     *            the marshaller to return
+     */
+    public void releaseMarshaller(final Marshaller marshaller) {
+        marshallerReleases.incrementAndGet();
+        marshaller.setListener(null);
+        try {
+            marshaller.setEventHandler(null);
+        } catch (final JAXBException e) { // NOSONAR
+            // the marshaller is in an unknown state and not reused
+            return;
+        }
+        idleMarshallers.offer(marshaller);
+    }
+
+    /**
+     * Borrows an unmarshaller from the pool. The unmarshaller must be returned using the
+     * {@link #releaseUnmarshaller(Unmarshaller)} method once the input has been unmarshalled.
+     *
+     * @return an unmarshaller that is used by the calling thread exclusively
+     * @throws JAXBException
+     *             if a new unmarshaller could not be created
+     */
+    public Unmarshaller borrowUnmarshaller() throws JAXBException {
+        unmarshallerBorrows.incrementAndGet();
+        final Unmarshaller unmarshaller = idleUnmarshallers.poll();
+        if (unmarshaller != null) {
+            return unmarshaller;
+        }
+        unmarshallerCreations.incrementAndGet();
+        return context.createUnmarshaller();
+    }
+
+    /**
+     * Returns an unmarshaller to the pool. The listener and event handler of the unmarshaller are cleared. If the
+     * pool has no capacity left, the unmarshaller is discarded.
+     *
+     * @param unmarshaller
+     *            the unmarshaller to return
+     */
+    public void releaseUnmarshaller(final Unmarshaller unmarshaller) {
+        unmarshallerReleases.incrementAndGet();
+        unmarshaller.setListener(null);
+        try {
+            unmarshaller.setEventHandler(null);
+        } catch (final JAXBException e) { // NOSONAR
+            // the unmarshaller is in an unknown state and not reused
+            return;
+        }
+        idleUnmarshallers.offer(unmarshaller);
+    }
+
+    /**
+     * @return the context of the pool
+     */
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the properties each marshaller is configured with
+     */
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return the number of idle marshallers currently held by the pool
+     */
+    public int getIdleMarshallerCount() {
+        return idleMarshallers.size();
+    }
+
+    /**
+     * @return the number of idle unmarshallers currently held by the pool
+     */
+    public int getIdleUnmarshallerCount() {
+        return idleUnmarshallers.size();
+    }
+
+    /**
+     * @return the number of marshallers borrowed from the pool
+     */
+    public long getMarshallerBorrowCount() {
+        return marshallerBorrows.get();
+    }
+
+    /**
+     * @return the number of marshallers returned to the pool
+     */
+    public long getMarshallerReleaseCount() {
+        return marshallerReleases.get();
+    }
+
+    /**
+     * @return the number of marshallers that had to be created because the pool held no idle marshaller
+     */
+    public long getMarshallerCreationCount() {
+        return marshallerCreations.get();
+    }
+
+    /**
+     * @return the number of unmarshallers borrowed from the pool
+     */
+    public long getUnmarshallerBorrowCount() {
+        return unmarshallerBorrows.get();
+    }
+
+    /**
+     * @return the number of unmarshallers returned to the pool
+     */
+    public long getUnmarshallerReleaseCount() {
+        return unmarshallerReleases.get();
+    }
+
+    /**
+     * @return the number of unmarshallers that had to be created because the pool held no idle unmarshaller
+     */
+    public long getUnmarshallerCreationCount() {
+        return unmarshallerCreations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MarshallerPool [marshallers: borrowed=" + getMarshallerBorrowCount() + ", released="
+                + getMarshallerReleaseCount() + ", created=" + getMarshallerCreationCount() + ", idle="
+                + getIdleMarshallerCount() + "; unmarshallers: borrowed=" + getUnmarshallerBorrowCount()
+                + ", released=" + getUnmarshallerReleaseCount() + ", created=" + getUnmarshallerCreationCount()
+                + ", idle=" + getIdleUnmarshallerCount() + "]";
+    }
+}
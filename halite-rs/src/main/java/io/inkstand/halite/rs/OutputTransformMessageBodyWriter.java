@@ -12,6 +12,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.util.JAXBSource;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Result;
@@ -27,13 +28,17 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import io.inkstand.halite.Resource;
+import io.inkstand.halite.xml.ResourceSAXSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * {@link MessageBodyWriter} that allows to transform the halite {@link Resource} to any representation using an
- * XSL transformation.
+ * XSL transformation. The resource is passed to the transformation as {@link ResourceSAXSource}, which reports the
+ * xml representation of the resource directly as SAX events. Resources that have to be written by JAXB, i.e. because
+ * custom model packages are configured, are passed as {@link JAXBSource} of a marshaller borrowed from the shared
+ * marshaller pool.
  * 
  * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
  *
@@ -45,7 +50,11 @@ public abstract class OutputTransformMessageBodyWriter extends HaliteMessageBody
      */
     private static final Logger LOG = LoggerFactory.getLogger(OutputTransformMessageBodyWriter.class);
 
-    private Transformer transformer;
+    /**
+     * Pool of transformers created from the compiled template. Transformers are not thread-safe, so each request
+     * borrows its own.
+     */
+    private TransformerPool transformers;
 
     @PostConstruct
     public void initializeTransformer() {
@@ -56,12 +65,12 @@ public abstract class OutputTransformMessageBodyWriter extends HaliteMessageBody
             final URL templateUrl = getTemplate();
             if (templateUrl == null) {
                 // identity transformer
-                this.transformer = factory.newTransformer();
+                this.transformers = new TransformerPool(factory, getTransformerPoolSize());
             } else {
                 // template transformer
                 final StreamSource templateSource = new StreamSource(templateUrl.openStream());
                 final Templates template = factory.newTemplates(templateSource);
-                this.transformer = template.newTransformer();
+                this.transformers = new TransformerPool(template, getTransformerPoolSize());
             }
 
         } catch (TransformerConfigurationException | TransformerFactoryConfigurationError
@@ -70,6 +79,23 @@ public abstract class OutputTransformMessageBodyWriter extends HaliteMessageBody
         }
     }
 
+    /**
+     * @return the pool of transformers, <code>null</code> before the writer has been initialized
+     */
+    TransformerPool getTransformerPool() {
+        return transformers;
+    }
+
+    /**
+     * Provides the maximum number of idle transformers that are kept for reuse. The default is twice the number of
+     * available processors. Override the method to adjust the pool size to the number of request threads.
+     * @return
+     *  the capacity of the transformer pool
+     */
+    protected int getTransformerPoolSize() {
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
     /**
      * Provides the URI resolver that is needed by the transformation to resolve externally referrences resources.
      * The default implementation provides a ClasspathUriResolver. Override the method to provide a custom {@link URIResolver}.
@@ -104,11 +130,23 @@ public abstract class OutputTransformMessageBodyWriter extends HaliteMessageBody
             throws IOException, WebApplicationException {
 
         try {
-            final Source input = new JAXBSource(newJAXBContext(), paramT);
             final Result result = new StreamResult(paramOutputStream);
-            this.transformer.transform(input, result);
-        } catch (JAXBException | TransformerException e) {
+            final Transformer transformer = this.transformers.borrow();
+            // a transformer or marshaller that failed is in an undefined state and is not reused
+            if (isMarshallerRequired(paramT)) {
+                final MarshallerPool marshallers = getMarshallerPool();
+                final Marshaller marshaller = marshallers.borrowMarshaller();
+                transformer.transform(new JAXBSource(marshaller, paramT), result);
+                marshallers.releaseMarshaller(marshaller);
+            } else {
+                final Source input = new ResourceSAXSource(paramT);
+                transformer.transform(input, result);
+            }
+            this.transformers.release(transformer);
+        } catch (final TransformerException e) {
             LOG.error("Could not produce result", e);
+        } catch (final JAXBException e) {
+            throw new WebApplicationException(e);
         }
 
     }
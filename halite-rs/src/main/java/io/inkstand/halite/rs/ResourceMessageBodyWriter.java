@@ -14,13 +14,17 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBException;
 
 import io.inkstand.halite.Resource;
 import io.inkstand.halite.json.JsonHalWriter;
+import io.inkstand.halite.json.JsonHalWriterFactory;
+import io.inkstand.halite.xml.XmlHalWriter;
 
 /**
- * JaxRS {@link MessageBodyWriter} to write {@link Resource} instances either as JSon or as XML.
+ * JaxRS {@link MessageBodyWriter} to write {@link Resource} instances either as JSon or as XML. The XML is written by
+ * the {@link XmlHalWriter} and therefore requires no JAXBContext, unless custom model packages are configured or the
+ * type of the resource depends on JAXB features the {@link XmlHalWriter} does not implement. Such resources are
+ * marshalled by a pooled JAXB marshaller.
  * 
  * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
  * 
@@ -29,6 +33,11 @@ import io.inkstand.halite.json.JsonHalWriter;
 @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 public class ResourceMessageBodyWriter extends HaliteMessageBodyWriter<Resource> {
 
+    /**
+     * Factory for the json writers, sharing one ObjectMapper for all responses
+     */
+    private final JsonHalWriterFactory jsonWriterFactory = new JsonHalWriterFactory();
+
     @Override
     protected Collection<MediaType> getSupportedMediaTypes() {
         return Arrays.asList(MediaType.APPLICATION_JSON_TYPE,MediaType.APPLICATION_XML_TYPE );
@@ -48,11 +57,17 @@ public class ResourceMessageBodyWriter extends HaliteMessageBodyWriter<Resource>
 
         switch (paramMediaType.toString()) {
         case MediaType.APPLICATION_JSON:
-            final JsonHalWriter json = new JsonHalWriter(paramOutputStream);
+            final JsonHalWriter json = getJsonWriterFactory().newWriter(paramOutputStream);
+            json.setOption(JsonHalWriter.Option.FLUSH_POLICY, getFlushPolicy());
+            json.setOption(JsonHalWriter.Option.OUTPUT_PROFILE, getOutputProfile());
             json.write(resource);
             break;
         case MediaType.APPLICATION_XML:
-            marshalResource(resource, paramOutputStream);
+            if (isMarshallerRequired(resource)) {
+                marshal(resource, paramOutputStream);
+            } else {
+                new XmlHalWriter(paramOutputStream).write(resource);
+            }
             break;
         default:
             throw new WebApplicationException(Status.UNSUPPORTED_MEDIA_TYPE);
@@ -61,17 +76,35 @@ public class ResourceMessageBodyWriter extends HaliteMessageBodyWriter<Resource>
     }
 
     /**
-     * Marshals the resource as XML to the given OutputStream
+     * Provides the factory to create the writers for json responses. Override this method to provide a factory with a
+     * custom configured ObjectMapper. The factory should be created once and not per call.
      * 
-     * @param resource
-     * @param paramOutputStream
+     * @return the factory for json writers
      */
-    private void marshalResource(final Resource resource, final OutputStream paramOutputStream) {
-        try {
-            newJAXBContext().createMarshaller().marshal(resource, paramOutputStream);
-        } catch (final JAXBException e) {
-            throw new WebApplicationException(e);
-        }
+    protected JsonHalWriterFactory getJsonWriterFactory() {
+        return jsonWriterFactory;
+    }
+
+    /**
+     * Provides the policy that defines when the json output is flushed to the response stream. The default is to
+     * flush only at the end of the document, which suits high throughput servers. Override the method to stream large
+     * responses, i.e. using {@link JsonHalWriter.FlushPolicy#EMBEDDED_ITEM}.
+     * 
+     * @return the flush policy for json responses
+     */
+    protected JsonHalWriter.FlushPolicy getFlushPolicy() {
+        return JsonHalWriter.FlushPolicy.END_OF_DOCUMENT;
+    }
+
+    /**
+     * Provides the profile for formatting the json output. The default is the indented output the writer has always
+     * produced. Override the method to return {@link JsonHalWriter.OutputProfile#COMPACT_UTF8} for the smallest
+     * responses without whitespace and escapes.
+     * 
+     * @return the output profile for json responses
+     */
+    protected JsonHalWriter.OutputProfile getOutputProfile() {
+        return JsonHalWriter.OutputProfile.PRETTY;
     }
 
 }
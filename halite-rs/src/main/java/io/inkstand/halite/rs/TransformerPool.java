@@ -0,0 +1,124 @@
+package io.inkstand.halite.rs;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * A bounded pool of {@link Transformer}s. A {@link Transformer} is not thread-safe and must not be used by more than
+ * one thread at a time, while the compiled {@link Templates} are. The pool therefore keeps the {@link Templates} as
+ * the shared artifact and hands out a {@link Transformer} per request. Returned transformers are cleared of their
+ * parameters and kept for reuse as long as the pool has capacity left, otherwise they are discarded. A transformer
+ * whose transformation failed is in an undefined state and must not be returned to the pool. If the pool is empty, a
+ * new transformer is created, so borrowing never blocks.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class TransformerPool {
+
+    /**
+     * The compiled templates to create the transformers from. If no templates are set, identity transformers are
+     * created by the factory.
+     */
+    private final Templates templates;
+
+    /**
+     * The factory to create identity transformers
+     */
+    private final TransformerFactory factory;
+
+    private final BlockingQueue<Transformer> idle;
+
+    /**
+     * Creates a pool for transformers of the given templates
+     *
+     * @param templates
+     *            the compiled templates from which the transformers are created
+     * @param capacity
+     *            the maximum number of idle transformers kept in the pool
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive
+     */
+    public TransformerPool(final Templates templates, final int capacity) {
+        this(templates, null, capacity);
+    }
+
+    /**
+     * Creates a pool for identity transformers
+     *
+     * @param factory
+     *            the factory to create the identity transformers
+     * @param capacity
+     *            the maximum number of idle transformers kept in the pool
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive
+     */
+    public TransformerPool(final TransformerFactory factory, final int capacity) {
+        this(null, factory, capacity);
+    }
+
+    private TransformerPool(final Templates templates, final TransformerFactory factory, final int capacity) {
+        this.templates = templates;
+        this.factory = factory;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the transformer pool must be positive, but was "
+                    + capacity);
+        }
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Borrows a transformer from the pool. The transformer must be returned using the {@link #release(Transformer)}
+     * method once the transformation is done.
+     *
+     * @return a transformer that is used by the calling thread exclusively
+     * @throws TransformerConfigurationException
+     *             if a new transformer could not be created
+     */
+    public Transformer borrow() throws TransformerConfigurationException {
+        final Transformer transformer = idle.poll();
+        if (transformer != null) {
+            return transformer;
+        }
+        return newTransformer();
+    }
+
+    /**
+     * Returns a transformer to the pool. The parameters of the transformer are cleared. A full reset is not done as
+     * it would drop the {@link javax.xml.transform.URIResolver} inherited from the factory. If the pool has no
+     * capacity left, the transformer is discarded. Only transformers that completed their transformation may be
+     * returned, a transformer whose transformation failed must be dropped by the borrower instead.
+     *
+     * @param transformer
+     *            the transformer to return
+     */
+    public void release(final Transformer transformer) {
+        if (templates != null) {
+            // identity transformers have no parameters and fail on clearing them on some JREs
+            transformer.clearParameters();
+        }
+        idle.offer(transformer);
+    }
+
+    /**
+     * @return the number of idle transformers currently held by the pool
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private Transformer newTransformer() throws TransformerConfigurationException {
+        if (templates != null) {
+            return templates.newTransformer();
+        }
+        // the factory is not guaranteed to be thread-safe
+        synchronized (factory) {
+            return factory.newTransformer();
+        }
+    }
+}
@@ -3,13 +3,16 @@ package io.inkstand.halite.rs;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
@@ -17,6 +20,7 @@ import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collection;
 
+import io.inkstand.halite.HAL;
 import io.inkstand.halite.Resource;
 import org.junit.Before;
 import org.junit.Test;
@@ -81,6 +85,56 @@ public class HaliteMessageBodyWriterTest {
         assertNotNull(subject.newJAXBContext());
     }
     
+    @Test
+    public void testGetMarshallerPool_contextShared() throws Exception {
+        final JAXBContext context = subject.getMarshallerPool().getContext();
+        assertNotNull(context);
+        assertSame(context, subject.getMarshallerPool().getContext());
+        assertTrue(HaliteMessageBodyWriter.getContextRegistry().contains("io.inkstand.halite"));
+    }
+
+    @Test
+    public void testGetMarshallerPool_shared() throws Exception {
+        final MarshallerPool pool = subject.getMarshallerPool();
+        assertNotNull(pool);
+        assertSame(pool, subject.getMarshallerPool());
+        assertSame(pool, new HaliteMessageBodyWriter<Resource>() {
+
+            @Override
+            public void writeTo(Resource t, Class<?> type, Type genericType, Annotation[] annotations,
+                    MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+                    throws IOException, WebApplicationException {
+            }
+        }.getMarshallerPool());
+        assertTrue(pool.getProperties().isEmpty());
+    }
+
+    @Test
+    public void testIsMarshallerRequired() throws Exception {
+        assertFalse(subject.isMarshallerRequired(HAL.newResource("test")));
+        assertTrue(extSubject.isMarshallerRequired(HAL.newResource("test")));
+    }
+
+    @Test
+    public void testMarshal_pooledMarshallerReused() throws Exception {
+        final MarshallerPool pool = subject.getMarshallerPool();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.marshal(HAL.newResource("first"), out);
+        final long created = pool.getMarshallerCreationCount();
+        final long released = pool.getMarshallerReleaseCount();
+
+        subject.marshal(HAL.newResource("second"), out);
+
+        assertEquals(created, pool.getMarshallerCreationCount());
+        assertEquals(released + 1, pool.getMarshallerReleaseCount());
+        assertTrue(out.toString("UTF-8").contains("href=\"second\""));
+    }
+
+    @Test(expected=JAXBException.class)
+    public void testGetMarshallerPool_withExtendedModel_invalidPackage() throws Exception {
+        extSubject.getMarshallerPool();
+    }
+
     @Test(expected=JAXBException.class)
     public void testNewJAXBContext_withExtendedModel_invalidPackage() throws Exception {
         assertNotNull(extSubject.newJAXBContext());
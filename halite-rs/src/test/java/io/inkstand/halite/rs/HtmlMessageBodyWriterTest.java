@@ -1,12 +1,33 @@
 package io.inkstand.halite.rs;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
 
 import org.junit.Before;
 import org.junit.Test;
 
 public class HtmlMessageBodyWriterTest {
 
+    private static final int THREADS = 16;
+    private static final int RENDERS_PER_THREAD = 50;
+
     private HtmlMessageBodyWriter subject;
 
     @Before
@@ -24,4 +45,65 @@ public class HtmlMessageBodyWriterTest {
         assertNotNull(subject.getTemplate());
     }
 
+    /**
+     * Renders resources from many threads at once using the same writer. Each rendering must produce the same output
+     * as a rendering of the same resource in a single thread.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testWriteTo_concurrentRendering() throws Exception {
+        this.subject.initializeTransformer();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<List<String>>() {
+
+                    @Override
+                    public List<String> call() throws Exception {
+                        start.await();
+                        final List<String> outputs = new ArrayList<>();
+                        for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+                            outputs.add(render(createResource(thread, i)));
+                        }
+                        return outputs;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (int t = 0; t < THREADS; t++) {
+                final List<String> outputs = results.get(t).get(60, TimeUnit.SECONDS);
+                for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+                    final String actual = outputs.get(i);
+                    assertTrue(actual, actual.contains(uri(t, i)));
+                    assertEquals(render(createResource(t, i)), actual);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String uri(final int thread, final int index) {
+        return "http://test/thread" + thread + "/item" + index;
+    }
+
+    private Resource createResource(final int thread, final int index) {
+        final Resource resource = HAL.newResource(uri(thread, index));
+        resource.addLink(HAL.NEXT, uri(thread, index + 1)).title("Next " + index);
+        resource.embed("child", HAL.newResource(uri(thread, index) + "/child"));
+        return resource;
+    }
+
+    private String render(final Resource resource) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.subject.writeTo(resource, Resource.class, Resource.class, new Annotation[0], MediaType.TEXT_HTML_TYPE,
+                null, outputStream);
+        return outputStream.toString("UTF-8");
+    }
+
 }
@@ -0,0 +1,108 @@
+package io.inkstand.halite.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JAXBContextRegistryTest {
+
+    private JAXBContextRegistry subject;
+    private int created;
+
+    @Before
+    public void setUp() throws Exception {
+        this.subject = new JAXBContextRegistry();
+        this.created = 0;
+    }
+
+    private JAXBContextRegistry.ContextFactory factory(final String contextPath) {
+        return new JAXBContextRegistry.ContextFactory() {
+
+            @Override
+            public JAXBContext newContext() throws JAXBException {
+                created++;
+                return JAXBContext.newInstance(contextPath);
+            }
+        };
+    }
+
+    @Test
+    public void testGetContext_createdOnce() throws Exception {
+        final JAXBContext first = subject.getContext("io.inkstand.halite", factory("io.inkstand.halite"));
+        final JAXBContext second = subject.getContext("io.inkstand.halite", factory("io.inkstand.halite"));
+
+        assertSame(first, second);
+        assertEquals(1, created);
+        assertEquals(1, subject.size());
+        assertEquals(1, subject.getMissCount());
+        assertEquals(1, subject.getHitCount());
+        assertTrue(subject.contains("io.inkstand.halite"));
+    }
+
+    @Test
+    public void testGetContext_failedCreationNotRegistered() throws Exception {
+        try {
+            subject.getContext("io.inkstand", factory("io.inkstand"));
+            fail("JAXBException expected");
+        } catch (final JAXBException e) {
+            // expected, the package contains no model
+        }
+        assertFalse(subject.contains("io.inkstand"));
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void testGetMarshallerPool_sharedPerContextPath() throws Exception {
+        final Map<String, Object> none = Collections.emptyMap();
+        final MarshallerPool first = subject.getMarshallerPool("io.inkstand.halite", factory("io.inkstand.halite"), 1,
+                none);
+        final MarshallerPool second = subject.getMarshallerPool("io.inkstand.halite",
+                factory("io.inkstand.halite"), 2, none);
+
+        assertSame(first, second);
+        assertSame(subject.getContext("io.inkstand.halite", factory("io.inkstand.halite")), first.getContext());
+        assertEquals(1, created);
+    }
+
+    @Test
+    public void testGetMarshallerPool_differentProperties() throws Exception {
+        final MarshallerPool plain = subject.getMarshallerPool("io.inkstand.halite", factory("io.inkstand.halite"),
+                1, Collections.<String, Object> emptyMap());
+        final MarshallerPool formatted = subject.getMarshallerPool("io.inkstand.halite",
+                factory("io.inkstand.halite"), 1, Collections.singletonMap(Marshaller.JAXB_FORMATTED_OUTPUT,
+                        Boolean.TRUE));
+
+        assertNotSame(plain, formatted);
+        assertSame(plain.getContext(), formatted.getContext());
+        assertEquals(Boolean.TRUE, formatted.getProperties().get(Marshaller.JAXB_FORMATTED_OUTPUT));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        final MarshallerPool pool = subject.getMarshallerPool("io.inkstand.halite", factory("io.inkstand.halite"), 1,
+                Collections.<String, Object> emptyMap());
+
+        subject.clear();
+
+        assertNotSame(pool, subject.getMarshallerPool("io.inkstand.halite", factory("io.inkstand.halite"), 1,
+                Collections.<String, Object> emptyMap()));
+        subject.clear();
+        assertEquals(0, subject.size());
+        assertEquals(0, subject.getHitCount());
+        assertEquals(0, subject.getMissCount());
+    }
+
+}
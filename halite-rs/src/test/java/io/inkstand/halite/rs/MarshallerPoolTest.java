@@ -0,0 +1,109 @@
+package io.inkstand.halite.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MarshallerPoolTest {
+
+    private JAXBContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        this.context = JAXBContext.newInstance(Resource.class);
+    }
+
+    @Test
+    public void testBorrowMarshaller_emptyPool_newMarshaller() throws Exception {
+        final MarshallerPool subject = new MarshallerPool(context, 2);
+
+        final Marshaller first = subject.borrowMarshaller();
+        final Marshaller second = subject.borrowMarshaller();
+
+        assertNotNull(first);
+        assertNotSame(first, second);
+        assertEquals(2, subject.getMarshallerBorrowCount());
+        assertEquals(2, subject.getMarshallerCreationCount());
+    }
+
+    @Test
+    public void testReleaseMarshaller_reused() throws Exception {
+        final MarshallerPool subject = new MarshallerPool(context, 2);
+        final Marshaller marshaller = subject.borrowMarshaller();
+        marshaller.setListener(new Marshaller.Listener() {
+        });
+
+        subject.releaseMarshaller(marshaller);
+
+        assertEquals(1, subject.getIdleMarshallerCount());
+        final Marshaller reused = subject.borrowMarshaller();
+        assertSame(marshaller, reused);
+        assertNull(reused.getListener());
+        assertEquals(0, subject.getIdleMarshallerCount());
+        assertEquals(2, subject.getMarshallerBorrowCount());
+        assertEquals(1, subject.getMarshallerReleaseCount());
+        assertEquals(1, subject.getMarshallerCreationCount());
+    }
+
+    @Test
+    public void testReleaseMarshaller_capacityExceeded_discarded() throws Exception {
+        final MarshallerPool subject = new MarshallerPool(context, 1);
+        final Marshaller first = subject.borrowMarshaller();
+        final Marshaller second = subject.borrowMarshaller();
+
+        subject.releaseMarshaller(first);
+        subject.releaseMarshaller(second);
+
+        assertEquals(1, subject.getIdleMarshallerCount());
+        assertEquals(2, subject.getMarshallerReleaseCount());
+    }
+
+    @Test
+    public void testBorrowMarshaller_properties() throws Exception {
+        final MarshallerPool subject = new MarshallerPool(context, 1, Collections.singletonMap(
+                Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        subject.borrowMarshaller().marshal(HAL.newResource("test"), out);
+
+        assertEquals(Boolean.TRUE, subject.getProperties().get(Marshaller.JAXB_FORMATTED_OUTPUT));
+        assertTrue(out.toString("UTF-8").contains("\n    <link"));
+    }
+
+    @Test
+    public void testBorrowUnmarshaller_reused() throws Exception {
+        final MarshallerPool subject = new MarshallerPool(context, 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Marshaller marshaller = subject.borrowMarshaller();
+        marshaller.marshal(HAL.newResource("test"), out);
+        subject.releaseMarshaller(marshaller);
+
+        final Unmarshaller unmarshaller = subject.borrowUnmarshaller();
+        final Resource resource = (Resource) unmarshaller.unmarshal(new ByteArrayInputStream(out.toByteArray()));
+        subject.releaseUnmarshaller(unmarshaller);
+
+        assertEquals("test", resource.getLink("self").getHref());
+        assertSame(unmarshaller, subject.borrowUnmarshaller());
+        assertEquals(2, subject.getUnmarshallerBorrowCount());
+        assertEquals(1, subject.getUnmarshallerReleaseCount());
+        assertEquals(1, subject.getUnmarshallerCreationCount());
+        assertEquals(0, subject.getIdleUnmarshallerCount());
+    }
+}
@@ -1,6 +1,7 @@
 package io.inkstand.halite.rs;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -15,9 +16,12 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
 
 import io.inkstand.halite.HAL;
 import io.inkstand.halite.Resource;
+import io.inkstand.halite.rs.model.Book;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -108,6 +112,97 @@ public class OutputTransformMessageBodyWriterTest {
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_identityTransformation_embedded()
+            throws Exception {
+
+        //prepare
+        this.subject.initializeTransformer();
+        final Resource resource = HAL.newResource("test");
+        resource.embed("item", HAL.newResource("child"));
+
+        //act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class),
+                any(MediaType.class), any(MultivaluedMap.class), outputStream);
+
+        // assert
+        final Document document = getDocument();
+
+        assertXpathEvaluatesTo("item", "/resource/embedded/@rel", document);
+        assertXpathEvaluatesTo("child", "/resource/embedded/link[@rel='self']/@href", document);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_failedTransformation_notPooled()
+            throws Exception {
+
+        //prepare
+        this.templateURL = OutputTransformMessageBodyWriterTest.class.getResource("failing.xsl");
+        this.subject.initializeTransformer();
+
+        //act
+        this.subject.writeTo(HAL.newResource("test"), any(Class.class), any(Type.class), any(Annotation[].class),
+                any(MediaType.class), any(MultivaluedMap.class), outputStream);
+
+        // assert
+        assertEquals(0, this.subject.getTransformerPool().getIdleCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_completedTransformation_pooled()
+            throws Exception {
+
+        //prepare
+        this.subject.initializeTransformer();
+
+        //act
+        this.subject.writeTo(HAL.newResource("test"), any(Class.class), any(Type.class), any(Annotation[].class),
+                any(MediaType.class), any(MultivaluedMap.class), outputStream);
+
+        // assert
+        assertEquals(1, this.subject.getTransformerPool().getIdleCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_customModelPackage_marshalled()
+            throws Exception {
+
+        //prepare
+        this.subject = new OutputTransformMessageBodyWriter() {
+
+            @Override
+            protected URL getTemplate() {
+                return null;
+            }
+
+            @Override
+            protected Collection<String> getCustomModelPackages() {
+                return Arrays.asList("io.inkstand.halite.rs.model");
+            }
+        };
+        this.subject.initializeTransformer();
+        final MarshallerPool marshallers = this.subject.getMarshallerPool();
+        final long borrowed = marshallers.getMarshallerBorrowCount();
+        final long released = marshallers.getMarshallerReleaseCount();
+
+        //act
+        this.subject.writeTo(new Book("Halite", "Gerald"), any(Class.class), any(Type.class),
+                any(Annotation[].class), any(MediaType.class), any(MultivaluedMap.class), outputStream);
+
+        // assert
+        final Document document = getDocument();
+
+        assertXpathEvaluatesTo("Halite", "/book/title", document);
+        assertXpathEvaluatesTo("Gerald", "/book/authors/author", document);
+        assertXpathEvaluatesTo("book", "/book/link[@rel='self']/@href", document);
+        assertEquals(borrowed + 1, marshallers.getMarshallerBorrowCount());
+        assertEquals(released + 1, marshallers.getMarshallerReleaseCount());
+    }
+
     /**
      * Retrieves the written Data as {@link Document}
      * 
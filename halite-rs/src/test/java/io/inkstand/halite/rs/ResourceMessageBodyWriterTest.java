@@ -11,15 +11,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import io.inkstand.halite.HAL;
 import io.inkstand.halite.Resource;
+import io.inkstand.halite.json.JsonHalWriter;
+import io.inkstand.halite.rs.model.Book;
 
 import org.json.JSONException;
 import org.junit.Before;
@@ -118,6 +126,39 @@ public class ResourceMessageBodyWriterTest {
         assertJsonDataEquals(expected);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Json_prettyOutputByDefault() throws Exception {
+        // prepare
+        final Resource resource = HAL.newResource("test");
+        final MediaType type = MediaType.APPLICATION_JSON_TYPE;
+        // act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+        // assert
+        assertTrue(getData().contains("\n"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Json_compactOutput() throws Exception {
+        // prepare
+        final Resource resource = HAL.newResource("test");
+        final MediaType type = MediaType.APPLICATION_JSON_TYPE;
+        this.subject = new ResourceMessageBodyWriter() {
+
+            @Override
+            protected JsonHalWriter.OutputProfile getOutputProfile() {
+                return JsonHalWriter.OutputProfile.COMPACT_UTF8;
+            }
+        };
+        // act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+        // assert
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"test\"}}}", getData());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testWriteTo_Xml() throws Exception {
@@ -136,6 +177,85 @@ public class ResourceMessageBodyWriterTest {
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Xml_embedded() throws Exception {
+        // prepare
+        final Resource resource = HAL.newResource("test").embed("item", HAL.newResource("a"), HAL.newResource("b"));
+        final MediaType type = MediaType.APPLICATION_XML_TYPE;
+        // act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+
+        final Document document = getDocument();
+
+        // assert
+        assertXpathEvaluatesTo("2", "count(/resource/embedded[@rel='item'])", document);
+        assertXpathEvaluatesTo("b", "/resource/embedded[2]/link[@rel='self']/@href", document);
+        assertXpathEvaluatesTo("test", "/resource/link[@rel='self']/@href", document);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Xml_customModelPackage_sameAsJAXB() throws Exception {
+        // prepare
+        final Book book = new Book("Halite", "Gerald", "Someone Else");
+        book.embed("related", new Book("Other"));
+        final MediaType type = MediaType.APPLICATION_XML_TYPE;
+        this.subject = new ResourceMessageBodyWriter() {
+
+            @Override
+            protected Collection<String> getCustomModelPackages() {
+                return Arrays.asList("io.inkstand.halite.rs.model");
+            }
+        };
+        final long borrowed = this.subject.getMarshallerPool().getMarshallerBorrowCount();
+
+        // act
+        this.subject.writeTo(book, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+
+        // assert
+        assertEquals(marshal(book, "io.inkstand.halite:io.inkstand.halite.rs.model"), getData());
+        assertEquals(borrowed + 1, this.subject.getMarshallerPool().getMarshallerBorrowCount());
+        assertXpathEvaluatesTo("Someone Else", "/book/authors/author[2]", getDocument());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Xml_unsupportedType_sameAsJAXB() throws Exception {
+        // prepare
+        final Resource resource = new Tagged();
+        final MediaType type = MediaType.APPLICATION_XML_TYPE;
+        final long borrowed = this.subject.getMarshallerPool().getMarshallerBorrowCount();
+
+        // act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+
+        // assert
+        assertEquals(marshal(resource, "io.inkstand.halite"), getData());
+        assertEquals(borrowed + 1, this.subject.getMarshallerPool().getMarshallerBorrowCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWriteTo_Xml_supportedType_notMarshalled() throws Exception {
+        // prepare
+        final Resource resource = HAL.newResource("test");
+        final MediaType type = MediaType.APPLICATION_XML_TYPE;
+        final long borrowed = this.subject.getMarshallerPool().getMarshallerBorrowCount();
+
+        // act
+        this.subject.writeTo(resource, any(Class.class), any(Type.class), any(Annotation[].class), type,
+                any(MultivaluedMap.class), outputStream);
+
+        // assert
+        // the XmlHalWriter omits the standalone declaration
+        assertEquals(marshal(resource, "io.inkstand.halite").replace(" standalone=\"yes\"", ""), getData());
+        assertEquals(borrowed, this.subject.getMarshallerPool().getMarshallerBorrowCount());
+    }
+
     @SuppressWarnings("unchecked")
     @Test(expected = WebApplicationException.class)
     public void testWriteTo_other() throws Exception {
@@ -172,6 +292,15 @@ public class ResourceMessageBodyWriterTest {
         return document;
     }
 
+    /**
+     * Marshals the resource with a new JAXBContext for the context path
+     */
+    protected String marshal(final Resource resource, final String contextPath) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JAXBContext.newInstance(contextPath).createMarshaller().marshal(resource, out);
+        return out.toString("UTF-8");
+    }
+
     protected void assertJsonDataEquals(final String expected) throws JSONException {
         final String actual = getData();
         LOG.info("Comparing expected {} with actual {}", expected, actual);
@@ -179,4 +308,16 @@ public class ResourceMessageBodyWriterTest {
         JSONAssert.assertEquals(expected, actual, STRICT_MODE);
     }
 
+    @XmlRootElement(name = "tagged")
+    public static class Tagged extends Resource {
+
+        @XmlElementWrapper(name = "tags")
+        @XmlElement(name = "tag")
+        public String[] tags = { "a", "b" };
+
+        public Tagged() {
+            super("tagged");
+        }
+    }
+
 }
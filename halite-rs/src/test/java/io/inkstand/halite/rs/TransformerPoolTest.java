@@ -0,0 +1,90 @@
+package io.inkstand.halite.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransformerPoolTest {
+
+    private TransformerFactory factory;
+    private Templates templates;
+
+    @Before
+    public void setUp() throws Exception {
+        this.factory = TransformerFactory.newInstance();
+        this.templates = factory.newTemplates(new StreamSource(TransformerPoolTest.class
+                .getResourceAsStream("test.xsl")));
+    }
+
+    @Test
+    public void testBorrow_emptyPool_newTransformer() throws Exception {
+        final TransformerPool subject = new TransformerPool(templates, 2);
+
+        final Transformer first = subject.borrow();
+        final Transformer second = subject.borrow();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testRelease_reused() throws Exception {
+        final TransformerPool subject = new TransformerPool(templates, 2);
+        final Transformer transformer = subject.borrow();
+        transformer.setParameter("test", "value");
+
+        subject.release(transformer);
+
+        assertEquals(1, subject.getIdleCount());
+        final Transformer reused = subject.borrow();
+        assertSame(transformer, reused);
+        assertEquals(null, reused.getParameter("test"));
+        assertEquals(0, subject.getIdleCount());
+    }
+
+    @Test
+    public void testRelease_capacityExceeded_discarded() throws Exception {
+        final TransformerPool subject = new TransformerPool(templates, 1);
+        final Transformer first = subject.borrow();
+        final Transformer second = subject.borrow();
+
+        subject.release(first);
+        subject.release(second);
+
+        assertEquals(1, subject.getIdleCount());
+    }
+
+    @Test
+    public void testBorrow_identityTransformer() throws Exception {
+        final TransformerPool subject = new TransformerPool(factory, 1);
+        final StringWriter writer = new StringWriter();
+
+        subject.borrow().transform(new StreamSource(new StringReader("<a/>")), new StreamResult(writer));
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><a/>", writer.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNew_zeroCapacity() throws Exception {
+        new TransformerPool(templates, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNew_negativeCapacity() throws Exception {
+        new TransformerPool(factory, -1);
+    }
+}
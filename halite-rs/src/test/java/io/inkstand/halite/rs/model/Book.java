@@ -0,0 +1,49 @@
+package io.inkstand.halite.rs.model;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.inkstand.halite.Resource;
+
+/**
+ * Custom model resource for testing the writers with custom model packages.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+@XmlRootElement(name = "book")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class Book extends Resource {
+
+    @XmlElement
+    private String title;
+
+    @XmlElementWrapper(name = "authors")
+    @XmlElement(name = "author")
+    private final List<String> authors = new ArrayList<>();
+
+    public Book() {
+        super("book");
+    }
+
+    public Book(final String title, final String... authors) {
+        super("book");
+        this.title = title;
+        for (final String author : authors) {
+            this.authors.add(author);
+        }
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+}
@@ -0,0 +1,12 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet version="1.0"
+	xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+<!--
+Template for testing a transformation that fails
+ -->
+
+<xsl:template match="/">
+	<xsl:message terminate="yes">failed</xsl:message>
+</xsl:template>
+
+</xsl:stylesheet>
@@ -0,0 +1,368 @@
+package io.inkstand.halite.xml;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * An {@link XMLStreamWriter} that reports the written xml as SAX events to a {@link ContentHandler}. A start element is
+ * reported once its attributes and namespace declarations are complete, that is when the next content or element is
+ * written. Namespace declarations are reported as prefix mappings and, if requested, as xmlns attributes. <br>
+ * The writer supports the operations used by the {@link XmlHalWriter}, DTDs, comments and entity references are
+ * ignored as they have no counterpart in a {@link ContentHandler}.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+class ContentHandlerWriter implements XMLStreamWriter {
+
+    private static final String CDATA = "CDATA";
+
+    private final ContentHandler handler;
+
+    /**
+     * Flag to indicate the namespace declarations are reported as xmlns attributes as well
+     */
+    private final boolean namespaceAttributes;
+
+    private final NamespaceSupport namespaces = new NamespaceSupport();
+
+    /**
+     * The qualified names of the open elements, each as uri, local name and qName
+     */
+    private final Deque<String[]> elements = new ArrayDeque<>();
+
+    /**
+     * The prefixes declared by the open elements, to be reported as ended with the element
+     */
+    private final Deque<List<String>> prefixes = new ArrayDeque<>();
+
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    /**
+     * The element that has been started but not yet reported
+     */
+    private String[] pending;
+
+    /**
+     * Flag to indicate the pending element is empty and ends when it is reported
+     */
+    private boolean pendingEmpty;
+
+    private NamespaceContext namespaceContext;
+
+    /**
+     * @param handler
+     *            the handler to report the events to
+     * @param namespaceAttributes
+     *            <code>true</code> if namespace declarations should be reported as xmlns attributes, as required by
+     *            the SAX feature <code>namespace-prefixes</code>
+     */
+    ContentHandlerWriter(final ContentHandler handler, final boolean namespaceAttributes) {
+        this.handler = handler;
+        this.namespaceAttributes = namespaceAttributes;
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        try {
+            handler.startDocument();
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeStartDocument(final String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    @Override
+    public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+        writeStartDocument();
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        flushPending();
+        while (!elements.isEmpty()) {
+            end();
+        }
+        try {
+            handler.endDocument();
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeStartElement(final String localName) throws XMLStreamException {
+        start(null, localName, localName, false);
+    }
+
+    @Override
+    public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        final String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("Namespace " + namespaceURI + " is not bound");
+        }
+        start(namespaceURI, localName, qName(prefix, localName), false);
+    }
+
+    @Override
+    public void writeStartElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(namespaceURI, localName, qName(prefix, localName), false);
+    }
+
+    @Override
+    public void writeEmptyElement(final String localName) throws XMLStreamException {
+        start(null, localName, localName, true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+        final String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("Namespace " + namespaceURI + " is not bound");
+        }
+        start(namespaceURI, localName, qName(prefix, localName), true);
+    }
+
+    @Override
+    public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI)
+            throws XMLStreamException {
+        start(namespaceURI, localName, qName(prefix, localName), true);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        flushPending();
+        end();
+    }
+
+    @Override
+    public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+        checkPending();
+        attributes.addAttribute("", localName, localName, CDATA, value);
+    }
+
+    @Override
+    public void writeAttribute(final String prefix, final String namespaceURI, final String localName,
+            final String value) throws XMLStreamException {
+        checkPending();
+        attributes.addAttribute(namespaceURI, localName, qName(prefix, localName), CDATA, value);
+    }
+
+    @Override
+    public void writeAttribute(final String namespaceURI, final String localName, final String value)
+            throws XMLStreamException {
+        final String prefix = getPrefix(namespaceURI);
+        if (prefix == null) {
+            throw new XMLStreamException("Namespace " + namespaceURI + " is not bound");
+        }
+        writeAttribute(prefix, namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+        checkPending();
+        final String nsPrefix = prefix == null || XMLConstants.XMLNS_ATTRIBUTE.equals(prefix) ? "" : prefix;
+        namespaces.declarePrefix(nsPrefix, namespaceURI);
+        prefixes.peek().add(nsPrefix);
+        if (namespaceAttributes) {
+            final String qName = nsPrefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE
+                    + ':' + nsPrefix;
+            attributes.addAttribute("", "", qName, CDATA, namespaceURI);
+        }
+    }
+
+    @Override
+    public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+        writeNamespace("", namespaceURI);
+    }
+
+    @Override
+    public void writeComment(final String data) throws XMLStreamException {
+        flushPending();
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target) throws XMLStreamException {
+        writeProcessingInstruction(target, "");
+    }
+
+    @Override
+    public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+        flushPending();
+        try {
+            handler.processingInstruction(target, data);
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public void writeCData(final String data) throws XMLStreamException {
+        writeCharacters(data);
+    }
+
+    @Override
+    public void writeDTD(final String dtd) throws XMLStreamException {
+        // DTDs are not reported to a content handler
+    }
+
+    @Override
+    public void writeEntityRef(final String name) throws XMLStreamException {
+        flushPending();
+    }
+
+    @Override
+    public void writeCharacters(final String text) throws XMLStreamException {
+        final char[] chars = text.toCharArray();
+        writeCharacters(chars, 0, chars.length);
+    }
+
+    @Override
+    public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+        flushPending();
+        try {
+            handler.characters(text, start, len);
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    @Override
+    public String getPrefix(final String uri) throws XMLStreamException {
+        final String prefix = namespaces.getPrefix(uri);
+        if (prefix == null && uri.equals(namespaces.getURI(""))) {
+            return "";
+        }
+        if (prefix == null && namespaceContext != null) {
+            return namespaceContext.getPrefix(uri);
+        }
+        return prefix;
+    }
+
+    @Override
+    public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+        namespaces.declarePrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(final String uri) throws XMLStreamException {
+        namespaces.declarePrefix("", uri);
+    }
+
+    @Override
+    public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+        this.namespaceContext = context;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return namespaceContext;
+    }
+
+    @Override
+    public Object getProperty(final String name) {
+        throw new IllegalArgumentException("Property " + name + " is not supported");
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        // events are reported immediately
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        // there is no underlying output to close
+    }
+
+    private void start(final String uri, final String localName, final String qName, final boolean empty)
+            throws XMLStreamException {
+        flushPending();
+        namespaces.pushContext();
+        prefixes.push(new ArrayList<String>(2));
+        this.pending = new String[] { uri, localName, qName };
+        this.pendingEmpty = empty;
+    }
+
+    /**
+     * Reports the pending element if there is one
+     */
+    private void flushPending() throws XMLStreamException {
+        if (pending != null) {
+            report();
+        }
+    }
+
+    /**
+     * Reports the pending element with its prefix mappings and attributes. An empty element is ended immediately.
+     */
+    private void report() throws XMLStreamException {
+        final String[] element = pending;
+        final boolean empty = pendingEmpty;
+        this.pending = null;
+        if (element[0] == null) {
+            // the default namespace may have been declared by the element itself
+            element[0] = namespaceOf("");
+        }
+        try {
+            for (final String prefix : prefixes.peek()) {
+                handler.startPrefixMapping(prefix, namespaces.getURI(prefix));
+            }
+            handler.startElement(element[0], element[1], element[2], attributes);
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+        attributes.clear();
+        elements.push(element);
+        if (empty) {
+            end();
+        }
+    }
+
+    private void end() throws XMLStreamException {
+        if (elements.isEmpty()) {
+            throw new XMLStreamException("No element to end");
+        }
+        final String[] element = elements.pop();
+        try {
+            handler.endElement(element[0], element[1], element[2]);
+            for (final String prefix : prefixes.pop()) {
+                handler.endPrefixMapping(prefix);
+            }
+        } catch (final SAXException e) {
+            throw new XMLStreamException(e);
+        }
+        namespaces.popContext();
+    }
+
+    private void checkPending() throws XMLStreamException {
+        if (pending == null) {
+            throw new XMLStreamException("Attributes and namespaces must be written directly after a start element");
+        }
+    }
+
+    private String namespaceOf(final String prefix) {
+        final String uri = namespaces.getURI(prefix);
+        return uri == null ? "" : uri;
+    }
+
+    private static String qName(final String prefix, final String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+}
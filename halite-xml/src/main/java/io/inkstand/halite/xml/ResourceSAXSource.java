@@ -0,0 +1,26 @@
+package io.inkstand.halite.xml;
+
+import javax.xml.transform.sax.SAXSource;
+
+import io.inkstand.halite.Resource;
+
+import org.xml.sax.InputSource;
+
+/**
+ * A {@link SAXSource} of a halite {@link Resource}. The source can be used as input for a transformation like a
+ * <code>JAXBSource</code> but reports the resource using a {@link ResourceXMLReader}, so that neither a JAXBContext
+ * nor a marshaller is involved. The resource is reported each time the source is read.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class ResourceSAXSource extends SAXSource {
+
+    /**
+     * @param resource
+     *            the resource to be read from the source
+     */
+    public ResourceSAXSource(final Resource resource) {
+        super(new ResourceXMLReader(resource), new InputSource());
+    }
+}
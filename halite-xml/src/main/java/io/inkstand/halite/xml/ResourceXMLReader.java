@@ -0,0 +1,185 @@
+package io.inkstand.halite.xml;
+
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+
+import io.inkstand.halite.Resource;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+
+/**
+ * An {@link XMLReader} that reports a halite {@link Resource} as SAX events instead of parsing a document. The reader
+ * walks the resource tree the same way the {@link XmlHalWriter} does and reports the infoset of the xml the writer
+ * would produce, so that a consumer of SAX events, such as an XSL transformation, reads the resource without the
+ * resource being marshalled or serialized first. <br>
+ * The input source passed to the parse methods is ignored, the reader always reports the resource it has been created
+ * for. The reader supports the SAX features <code>namespaces</code>, which is always enabled, and
+ * <code>namespace-prefixes</code>. Like the writer, the reader may be restricted to a selection of embedded relations.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class ResourceXMLReader implements XMLReader {
+
+    private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+    private static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+    private final Resource resource;
+
+    private ContentHandler contentHandler;
+    private DTDHandler dtdHandler;
+    private EntityResolver entityResolver;
+    private ErrorHandler errorHandler;
+
+    /**
+     * Flag to indicate namespace declarations are reported as xmlns attributes
+     */
+    private boolean namespacePrefixes;
+
+    /**
+     * The embedded relations to be reported or <code>null</code> if all relations are reported
+     */
+    private String[] embeddedRels;
+
+    /**
+     * @param resource
+     *            the resource to report
+     */
+    public ResourceXMLReader(final Resource resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Selects the embedded relations to be reported. The embedded resources of all other relations are skipped
+     * without retrieving them, see {@link XmlHalWriter#setEmbeddedRels(String...)}. By default, all relations are
+     * reported.
+     *
+     * @param rels
+     *            the relations to report. If no relation is specified, no embedded resources are reported.
+     * @return this reader
+     */
+    public ResourceXMLReader setEmbeddedRels(final String... rels) {
+        this.embeddedRels = rels.clone();
+        return this;
+    }
+
+    @Override
+    public boolean getFeature(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (NAMESPACES.equals(name)) {
+            return true;
+        }
+        if (NAMESPACE_PREFIXES.equals(name)) {
+            return namespacePrefixes;
+        }
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setFeature(final String name, final boolean value) throws SAXNotRecognizedException,
+            SAXNotSupportedException {
+        if (NAMESPACES.equals(name)) {
+            if (!value) {
+                throw new SAXNotSupportedException("Namespaces can not be disabled");
+            }
+        } else if (NAMESPACE_PREFIXES.equals(name)) {
+            this.namespacePrefixes = value;
+        } else {
+            throw new SAXNotRecognizedException(name);
+        }
+    }
+
+    @Override
+    public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws SAXNotRecognizedException,
+            SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setEntityResolver(final EntityResolver resolver) {
+        this.entityResolver = resolver;
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    @Override
+    public void setDTDHandler(final DTDHandler handler) {
+        this.dtdHandler = handler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler(final ContentHandler handler) {
+        this.contentHandler = handler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler(final ErrorHandler handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    /**
+     * Reports the resource to the content handler. The input source is ignored.
+     */
+    @Override
+    public void parse(final InputSource input) throws IOException, SAXException {
+        parse();
+    }
+
+    /**
+     * Reports the resource to the content handler. The system id is ignored.
+     */
+    @Override
+    public void parse(final String systemId) throws IOException, SAXException {
+        parse();
+    }
+
+    private void parse() throws IOException, SAXException {
+        if (contentHandler == null) {
+            throw new IllegalStateException("No content handler set");
+        }
+        try {
+            final XmlHalWriter writer = new XmlHalWriter(new ContentHandlerWriter(contentHandler, namespacePrefixes));
+            if (embeddedRels != null) {
+                writer.setEmbeddedRels(embeddedRels);
+            }
+            writer.write(resource);
+        } catch (final IOException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof XMLStreamException && cause.getCause() instanceof SAXException) {
+                throw (SAXException) cause.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package io.inkstand.halite.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+/**
+ * A reader that reads a halite {@link Resource} from xml using an {@link XMLStreamReader}. The reader reads the format
+ * written by the {@link XmlHalWriter} and by JAXB marshalling of a resource. It consumes the xml event by event and
+ * creates the resource, its {@link Link}s and embedded resources in a single pass without building a DOM or
+ * unmarshalling into an intermediate JAXB model, so that the memory required to read a document is dominated by the
+ * resources that are read. <br>
+ * If the resource is read into a subtype of {@link Resource}, the attributes and elements of the subtype are read into
+ * its properties as defined by its JAXB annotations. Attributes and elements without matching property are skipped,
+ * as are the embedded resources of relations that are not selected for reading. Embedded resources are read as
+ * {@link Resource} unless another type is set for their relation, an xsi:type in the document is not evaluated. The
+ * resources are created using the no-arg constructor of their type, which should not add any links as all links are
+ * read from the xml. <br>
+ * Note: The implementation is not thread safe. Use a separate reader per thread.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class XmlHalReader {
+
+    /**
+     * Factory to create the stream readers. The factory does neither support DTDs nor external entities and is
+     * thread-safe once configured.
+     */
+    private static final XMLInputFactory FACTORY;
+
+    static {
+        FACTORY = XMLInputFactory.newInstance();
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * The no-arg constructors of the resource and collection types, made accessible once per type
+     */
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+
+        @Override
+        protected Constructor<?> computeValue(final Class<?> type) {
+            try {
+                final Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (final NoSuchMethodException e) {
+                throw new IllegalArgumentException("Type " + type.getName() + " has no no-arg constructor", e);
+            }
+        }
+    };
+
+    /**
+     * The reader to read xml
+     */
+    private final XMLStreamReader xml;
+
+    /**
+     * The input to close after a resource has been read. If <code>null</code>, neither the input nor the stream reader
+     * are closed.
+     */
+    private final Closeable input;
+
+    /**
+     * The types to read the embedded resources of a relation into
+     */
+    private final Map<String, Class<? extends Resource>> embeddedTypes = new HashMap<>();
+
+    /**
+     * The embedded relations to read. If <code>null</code>, all relations are read.
+     */
+    private Set<String> embeddedRels;
+
+    private XmlHalReader(final XMLStreamReader reader, final Closeable input) {
+        this.xml = reader;
+        this.input = input;
+    }
+
+    /**
+     * Constructor for creating a reader on top of an existing {@link XMLStreamReader}. The stream reader is not closed
+     * after a resource has been read.
+     *
+     * @param reader
+     *            the stream reader to use
+     */
+    public XmlHalReader(final XMLStreamReader reader) {
+        this(reader, null);
+    }
+
+    /**
+     * Constructor for reading xml from the {@link InputStream}. The encoding is detected from the xml declaration.
+     * The stream is closed after the resource has been read.
+     *
+     * @param inputStream
+     *            the stream from which the xml is read
+     * @throws IOException
+     *             if no stream reader could be created for the stream
+     */
+    public XmlHalReader(final InputStream inputStream) throws IOException {
+        this(createReader(inputStream), inputStream);
+    }
+
+    /**
+     * Constructor for reading xml from the {@link Reader}. The reader is closed after the resource has been read.
+     *
+     * @param reader
+     *            the reader from which the xml is read
+     * @throws IOException
+     *             if no stream reader could be created for the reader
+     */
+    public XmlHalReader(final Reader reader) throws IOException {
+        this(createReader(reader), reader);
+    }
+
+    private static XMLStreamReader createReader(final InputStream inputStream) throws IOException {
+        try {
+            return FACTORY.createXMLStreamReader(inputStream);
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not create xml reader", e);
+        }
+    }
+
+    private static XMLStreamReader createReader(final Reader reader) throws IOException {
+        try {
+            return FACTORY.createXMLStreamReader(reader);
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not create xml reader", e);
+        }
+    }
+
+    /**
+     * Sets the type into which the embedded resources of a relation are read.
+     *
+     * @param rel
+     *            the relation of the embedded resources
+     * @param type
+     *            the type of the resources. The type needs a no-arg constructor, which may be non-public.
+     * @return this reader
+     */
+    public XmlHalReader setEmbeddedType(final String rel, final Class<? extends Resource> type) {
+        this.embeddedTypes.put(rel, type);
+        return this;
+    }
+
+    /**
+     * Selects the embedded relations to be read. The embedded resources of all other relations are skipped without
+     * creating any objects for them. By default, all relations are read.
+     *
+     * @param rels
+     *            the relations to read. If no relation is specified, no embedded resources are read.
+     * @return this reader
+     */
+    public XmlHalReader setEmbeddedRels(final String... rels) {
+        this.embeddedRels = new HashSet<>(Arrays.asList(rels));
+        return this;
+    }
+
+    /**
+     * Reads a {@link Resource}.
+     *
+     * @return the resource that has been read
+     * @throws IOException
+     *             if basic IO operations or the xml parsing failed.
+     */
+    public Resource read() throws IOException {
+        return read(Resource.class);
+    }
+
+    /**
+     * Reads a resource of the specified type. The root element may have any name.
+     *
+     * @param type
+     *            the type of the resource. The type needs a no-arg constructor, which may be non-public.
+     * @return the resource that has been read
+     * @throws IOException
+     *             if basic IO operations or the xml parsing failed.
+     */
+    public <T extends Resource> T read(final Class<T> type) throws IOException {
+        try {
+            while (xml.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                xml.next();
+            }
+            return type.cast(readResource(type));
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not read resource", e);
+        } finally {
+            if (input != null) {
+                close();
+            }
+        }
+    }
+
+    private void close() throws IOException {
+        try {
+            xml.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not close xml reader", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Reads the element of a resource. The reader has to be positioned at the start of the element. When the method
+     * returns, the reader is positioned at the end of the element.
+     *
+     * @param type
+     *            the type of the resource to create
+     * @return the resource
+     * @throws XMLStreamException
+     */
+    private Resource readResource(final Class<?> type) throws XMLStreamException {
+        final Resource resource = newResource(type);
+        final XmlPlan plan = XmlPlan.of(type);
+        for (int i = 0, count = xml.getAttributeCount(); i < count; i++) {
+            final XmlPlan.Property property = plan.getAttribute(xml.getAttributeName(i));
+            if (property != null && property.isWritable()) {
+                property.setValue(resource, parse(xml.getAttributeValue(i), property.getType()));
+            }
+        }
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            final QName name = xml.getName();
+            if (XmlNames.LINK.equals(name)) {
+                resource.addLink(readLink());
+            } else if (XmlNames.EMBEDDED.equals(name)) {
+                readEmbedded(resource);
+            } else {
+                final XmlPlan.Property property = plan.getElement(name);
+                if (property == null) {
+                    skipElement();
+                } else {
+                    readElement(resource, property);
+                }
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Reads a link element. When the method returns, the reader is positioned at the end of the element.
+     *
+     * @return the link
+     * @throws XMLStreamException
+     */
+    private Link readLink() throws XMLStreamException {
+        final String rel = xml.getAttributeValue(null, XmlNames.REL);
+        final String href = xml.getAttributeValue(null, XmlNames.HREF);
+        if (rel == null || href == null) {
+            throw new XMLStreamException("Link requires rel and href", xml.getLocation());
+        }
+        final String templated = xml.getAttributeValue(null, XmlNames.TEMPLATED);
+        final Link link = new Link(rel, href).name(xml.getAttributeValue(null, XmlNames.NAME))
+                .title(xml.getAttributeValue(null, XmlNames.TITLE))
+                .hreflang(xml.getAttributeValue(null, XmlNames.HREFLANG))
+                .type(xml.getAttributeValue(null, XmlNames.TYPE))
+                .profile(xml.getAttributeValue(null, XmlNames.PROFILE))
+                .deprecation(xml.getAttributeValue(null, XmlNames.DEPRECATION))
+                .templated(templated == null ? null : (Boolean) parse(templated, Boolean.class));
+        skipElement();
+        return link;
+    }
+
+    /**
+     * Reads an embedded element into the resource unless its relation is not selected, in which case the element is
+     * skipped. When the method returns, the reader is positioned at the end of the element.
+     *
+     * @param resource
+     *            the resource to embed the resource into
+     * @throws XMLStreamException
+     */
+    private void readEmbedded(final Resource resource) throws XMLStreamException {
+        final String rel = xml.getAttributeValue(null, XmlNames.REL);
+        if (rel == null) {
+            throw new XMLStreamException("Embedded resource requires rel", xml.getLocation());
+        }
+        if (embeddedRels != null && !embeddedRels.contains(rel)) {
+            skipElement();
+            return;
+        }
+        resource.embed(rel, readResource(getEmbeddedType(rel)));
+    }
+
+    /**
+     * Reads the element of a property of a resource type. The items of a collection are read one element at a time
+     * and added to the collection of the resource, which is created if the property has no value yet.
+     *
+     * @param resource
+     *            the resource whose property is set
+     * @param property
+     *            the property of the element
+     * @throws XMLStreamException
+     */
+    private void readElement(final Resource resource, final XmlPlan.Property property) throws XMLStreamException {
+        if ("true".equals(xml.getAttributeValue(XmlNames.XSI_NAMESPACE, XmlNames.XSI_NIL))) {
+            if (property.getKind() != XmlPlan.ValueKind.COLLECTION && property.isWritable()
+                    && !property.getType().isPrimitive()) {
+                property.setValue(resource, null);
+            }
+            skipElement();
+            return;
+        }
+        switch (property.getKind()) {
+        case COLLECTION:
+            readItem(resource, property);
+            break;
+        case RESOURCE:
+            if (property.isWritable()) {
+                property.setValue(resource, readResource(property.getType()));
+            } else {
+                skipElement();
+            }
+            break;
+        default:
+            if (property.isWritable()) {
+                property.setValue(resource, parse(xml.getElementText(), property.getType()));
+            } else {
+                skipElement();
+            }
+            break;
+        }
+    }
+
+    private void readItem(final Resource resource, final XmlPlan.Property property) throws XMLStreamException {
+        @SuppressWarnings("unchecked")
+        Collection<Object> collection = (Collection<Object>) property.getValue(resource);
+        if (collection == null) {
+            if (!property.isWritable()) {
+                skipElement();
+                return;
+            }
+            collection = newCollection(property.getType());
+            property.setValue(resource, collection);
+        }
+        final Class<?> elementType = getElementType(property.getGenericType());
+        if (Resource.class.isAssignableFrom(elementType)) {
+            collection.add(readResource(elementType));
+        } else {
+            collection.add(parse(xml.getElementText(), elementType));
+        }
+    }
+
+    /**
+     * Skips the current element including all its content. The reader has to be positioned at the start of the
+     * element. When the method returns, the reader is positioned at the end of the element.
+     *
+     * @throws XMLStreamException
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parses a value and reports a value that can not be parsed with the location in the document
+     */
+    private Object parse(final String text, final Class<?> type) throws XMLStreamException {
+        try {
+            return XmlValues.parse(text, type);
+        } catch (final IllegalArgumentException e) {
+            throw new XMLStreamException("Invalid value " + text, xml.getLocation(), e);
+        }
+    }
+
+    private Class<?> getEmbeddedType(final String rel) {
+        final Class<?> type = embeddedTypes.get(rel);
+        if (type == null) {
+            return Resource.class;
+        }
+        return type;
+    }
+
+    private Class<?> getElementType(final Type collectionType) {
+        if (collectionType instanceof ParameterizedType) {
+            final Type[] args = ((ParameterizedType) collectionType).getActualTypeArguments();
+            if (args.length == 1 && args[0] instanceof Class) {
+                return (Class<?>) args[0];
+            }
+        }
+        return String.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> newCollection(final Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (Set.class.isAssignableFrom(type)) {
+                return new LinkedHashSet<>();
+            }
+            return new ArrayList<>();
+        }
+        return (Collection<Object>) newInstance(type);
+    }
+
+    private Resource newResource(final Class<?> type) {
+        if (!Resource.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Type " + type.getName() + " is no resource");
+        }
+        return (Resource) newInstance(type);
+    }
+
+    private Object newInstance(final Class<?> type) {
+        try {
+            return CONSTRUCTORS.get(type).newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not create instance of " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package io.inkstand.halite.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+/**
+ * A writer that writes a halite {@link Resource} as xml to an {@link XMLStreamWriter}. The writer produces the same
+ * document as JAXB marshalling of the resource: a root element in the halite namespace, followed by an
+ * <code>embedded</code> element per embedded resource and a <code>link</code> element per link, each with a
+ * <code>rel</code> attribute, followed by the attributes and elements of potential JAXB classes that extend the
+ * {@link Resource}. The attributes and elements of such classes are determined once per class from their JAXB
+ * annotations, so neither a JAXBContext nor a marshaller is required. Unlike a marshaller, the writer writes all
+ * subclasses of {@link Resource} with their properties, regardless of whether the classes are known to a context.
+ * Properties of other classes than resources are written with their own attributes and elements. <br>
+ * The writer implements the JAXB annotations that define names, namespaces and order of attributes and elements, but
+ * no adapters, element wrappers, element references or similar customizations. A resource whose type, or the type of
+ * one of its properties, depends on such features is not written but fails with an {@link IOException}. Use
+ * {@link #isSupported(Class)} to decide whether a resource type has to be written by a JAXB marshaller instead. <br>
+ * The embedded resources are written using {@link Resource#iterateEmbedded(String)} so that streamed relations are
+ * not held in memory. The embedded relations to be written can be selected, the embedded resources of all other
+ * relations are skipped without retrieving them. <br>
+ * Each namespace other than the halite namespace is bound to a prefix of its own the first time it is used and
+ * declared once on that element, descendant elements reuse the declaration. <br>
+ * Note: The implementation is not thread safe. Use a separate writer per thread.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+public class XmlHalWriter {
+
+    /**
+     * The prefix of namespaces other than the halite namespace, followed by a number starting with
+     * {@link #FIRST_OTHER_PREFIX}
+     */
+    private static final String OTHER_PREFIX = "ns";
+
+    private static final int FIRST_OTHER_PREFIX = 3;
+
+    /**
+     * A namespace declared by an open element
+     */
+    private static final class Binding {
+
+        private final String namespace;
+        private final String prefix;
+
+        /**
+         * The depth of the element that declares the namespace
+         */
+        private final int depth;
+
+        /**
+         * Flag to indicate the prefix is a numbered prefix
+         */
+        private final boolean numbered;
+
+        Binding(final String namespace, final String prefix, final int depth, final boolean numbered) {
+            this.namespace = namespace;
+            this.prefix = prefix;
+            this.depth = depth;
+            this.numbered = numbered;
+        }
+    }
+
+    /**
+     * Factory to create the stream writers. The factory is thread-safe once configured.
+     */
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+    /**
+     * The writer to write xml
+     */
+    private final XMLStreamWriter xml;
+
+    /**
+     * The embedded relations to be written or <code>null</code> if all relations are written
+     */
+    private Set<String> embeddedRels;
+
+    /**
+     * The namespaces declared by the open elements, the innermost declaration last
+     */
+    private final List<Binding> bindings = new ArrayList<>();
+
+    /**
+     * The number of open elements
+     */
+    private int depth;
+
+    /**
+     * The number of declared namespaces that are bound to a numbered prefix
+     */
+    private int otherPrefixes;
+
+    /**
+     * Constructor for creating a writer on top of an existing {@link XMLStreamWriter}. The stream writer must not
+     * repair namespaces.
+     *
+     * @param writer
+     *            the stream writer to use
+     */
+    public XmlHalWriter(final XMLStreamWriter writer) {
+        this.xml = writer;
+    }
+
+    /**
+     * Constructor for writing UTF-8 encoded xml to the {@link OutputStream}. The stream is not closed by the writer.
+     *
+     * @param outputStream
+     *            the output stream to which the xml is written
+     * @throws IOException
+     *             if no stream writer could be created for the stream
+     */
+    public XmlHalWriter(final OutputStream outputStream) throws IOException {
+        try {
+            this.xml = FACTORY.createXMLStreamWriter(outputStream, "UTF-8");
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not create xml writer", e);
+        }
+    }
+
+    /**
+     * Constructor for writing xml to the {@link Writer}. The writer is not closed by this writer.
+     *
+     * @param writer
+     *            the writer to which the xml is written
+     * @throws IOException
+     *             if no stream writer could be created for the writer
+     */
+    public XmlHalWriter(final Writer writer) throws IOException {
+        try {
+            this.xml = FACTORY.createXMLStreamWriter(writer);
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not create xml writer", e);
+        }
+    }
+
+    /**
+     * Checks if the writer writes resources of the type as JAXB does. The types of the embedded resources and of the
+     * resources that are property values are not known in advance and are checked when the resources are written.
+     *
+     * @param type
+     *            the type of the resource
+     * @return <code>true</code> if neither the type nor the declared types of its properties depend on JAXB features
+     *         the writer does not implement
+     */
+    public static boolean isSupported(final Class<?> type) {
+        return XmlPlan.of(type).isSupported();
+    }
+
+    /**
+     * Selects the embedded relations to be written. The embedded resources of all other relations are skipped without
+     * retrieving them, so that deferred embedded resources of these relations are never created. The selection applies
+     * to all written resources. By default, all relations are written.
+     *
+     * @param rels
+     *            the relations to write. If no relation is specified, no embedded resources are written.
+     * @return this writer
+     */
+    public XmlHalWriter setEmbeddedRels(final String... rels) {
+        this.embeddedRels = new HashSet<>(Arrays.asList(rels));
+        return this;
+    }
+
+    /**
+     * Writes the resource as xml document and flushes the output.
+     *
+     * @param resource
+     *            the resource to write
+     * @throws IOException
+     *             if the xml could not be written
+     */
+    public void write(final Resource resource) throws IOException {
+        try {
+            xml.writeStartDocument("UTF-8", "1.0");
+            writeResourceElement(resource);
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (final XMLStreamException e) {
+            throw new IOException("Could not write resource", e);
+        }
+    }
+
+    /**
+     * Writes the resource as root element without starting a document
+     *
+     * @param resource
+     *            the resource to write
+     * @throws XMLStreamException
+     */
+    void writeResourceElement(final Resource resource) throws XMLStreamException {
+        final XmlPlan plan = planOf(resource.getClass());
+        bindings.clear();
+        depth = 0;
+        otherPrefixes = 0;
+        startElement(plan.getElementName());
+        if (!plan.isRootElement() && !Resource.class.equals(resource.getClass())) {
+            writeType(plan.getTypeName());
+        }
+        writeBody(resource, plan, null);
+        endElement();
+    }
+
+    /**
+     * Writes a resource as child element
+     *
+     * @param name
+     *            the name of the element
+     * @param resource
+     *            the resource to write
+     * @param rel
+     *            the relation of the resource or <code>null</code> if it is not embedded
+     * @param declaredType
+     *            the type of the resource declared by the schema. If the resource is of another type, the type is
+     *            written as xsi:type.
+     * @throws XMLStreamException
+     */
+    private void writeResource(final QName name, final Resource resource, final String rel,
+            final Class<?> declaredType) throws XMLStreamException {
+        final XmlPlan plan = planOf(resource.getClass());
+        startElement(name);
+        if (!declaredType.equals(resource.getClass())) {
+            writeType(plan.getTypeName());
+        }
+        writeBody(resource, plan, rel);
+        endElement();
+    }
+
+    /**
+     * Writes a value of another class than a resource as child element
+     *
+     * @param name
+     *            the name of the element
+     * @param bean
+     *            the value to write
+     * @param declaredType
+     *            the type of the value declared by the schema. If the value is of another type, the type is written as
+     *            xsi:type.
+     * @throws XMLStreamException
+     */
+    private void writeBean(final QName name, final Object bean, final Class<?> declaredType)
+            throws XMLStreamException {
+        final XmlPlan plan = planOf(bean.getClass());
+        startElement(name);
+        if (!declaredType.equals(bean.getClass())) {
+            writeType(plan.getTypeName());
+        }
+        writeAttributes(bean, plan);
+        for (final XmlPlan.Property property : plan.getElements()) {
+            writeElement(property, property.getValue(bean));
+        }
+        endElement();
+    }
+
+    /**
+     * Provides the plan of a type that is written
+     *
+     * @throws XMLStreamException
+     *             if the type is not supported
+     */
+    private static XmlPlan planOf(final Class<?> type) throws XMLStreamException {
+        final XmlPlan plan = XmlPlan.of(type);
+        if (!plan.isSupported()) {
+            final String feature = plan.getUnsupportedFeature();
+            throw new XMLStreamException("Type " + type.getName() + " can only be written by JAXB"
+                    + (feature == null ? ", one of its properties is not supported" : ", " + feature
+                            + " is not supported"));
+        }
+        return plan;
+    }
+
+    private void writeAttributes(final Object bean, final XmlPlan plan) throws XMLStreamException {
+        for (final XmlPlan.Property property : plan.getAttributes()) {
+            final Object value = property.getValue(bean);
+            if (value != null) {
+                writeAttribute(property.getName(), print(value));
+            }
+        }
+    }
+
+    /**
+     * Writes the attributes and the content of a resource
+     */
+    private void writeBody(final Resource resource, final XmlPlan plan, final String rel) throws XMLStreamException {
+        writeAttributes(resource, plan);
+        if (rel != null) {
+            xml.writeAttribute(XmlNames.REL, rel);
+        }
+        for (final String embeddedRel : resource.getEmbeddedRels()) {
+            if (embeddedRels != null && !embeddedRels.contains(embeddedRel)) {
+                continue;
+            }
+            final Iterator<Resource> embedded = resource.iterateEmbedded(embeddedRel);
+            while (embedded.hasNext()) {
+                writeResource(XmlNames.EMBEDDED, embedded.next(), embeddedRel, Resource.class);
+            }
+        }
+        for (final String linkRel : resource.getLinkRels()) {
+            for (final Link link : resource.getLinks(linkRel)) {
+                writeLink(link);
+            }
+        }
+        for (final XmlPlan.Property property : plan.getElements()) {
+            writeElement(property, property.getValue(resource));
+        }
+    }
+
+    /**
+     * Writes a link element with all attributes of the link that are set
+     *
+     * @param link
+     *            the link to write
+     * @throws XMLStreamException
+     */
+    private void writeLink(final Link link) throws XMLStreamException {
+        xml.writeEmptyElement(XmlNames.LINK.getLocalPart());
+        writeAttribute(XmlNames.REL, link.getRel());
+        writeAttribute(XmlNames.HREF, link.getHref());
+        writeAttribute(XmlNames.HREFLANG, link.getHreflang());
+        writeAttribute(XmlNames.PROFILE, link.getProfile());
+        writeAttribute(XmlNames.DEPRECATION, link.getDeprecation());
+        writeAttribute(XmlNames.NAME, link.getName());
+        if (link.isTemplated() != null) {
+            xml.writeAttribute(XmlNames.TEMPLATED, link.isTemplated().toString());
+        }
+        writeAttribute(XmlNames.TYPE, link.getType());
+        writeAttribute(XmlNames.TITLE, link.getTitle());
+    }
+
+    /**
+     * Writes the element of a property of a resource type
+     *
+     * @param property
+     *            the property
+     * @param value
+     *            the value of the property
+     * @throws XMLStreamException
+     */
+    private void writeElement(final XmlPlan.Property property, final Object value) throws XMLStreamException {
+        final QName name = property.getName();
+        if (value == null) {
+            if (property.isNillable()) {
+                startElement(name);
+                xml.writeAttribute(declare(XmlNames.XSI_NAMESPACE), XmlNames.XSI_NAMESPACE, XmlNames.XSI_NIL,
+                        "true");
+                endElement();
+            }
+            return;
+        }
+        switch (property.getKind()) {
+        case COLLECTION:
+            final Class<?> itemType = property.getItemType();
+            final boolean beans = XmlPlan.ValueKind.of(itemType) == XmlPlan.ValueKind.BEAN;
+            for (final Object item : (Iterable<?>) value) {
+                if (item instanceof Resource) {
+                    writeResource(name, (Resource) item, null, itemType);
+                } else if (item != null && beans) {
+                    writeBean(name, item, itemType);
+                } else if (item != null) {
+                    writeValue(name, item);
+                }
+            }
+            break;
+        case RESOURCE:
+            writeResource(name, (Resource) value, null, property.getType());
+            break;
+        case BEAN:
+            writeBean(name, value, property.getType());
+            break;
+        default:
+            writeValue(name, value);
+            break;
+        }
+    }
+
+    private void writeValue(final QName name, final Object value) throws XMLStreamException {
+        startElement(name);
+        xml.writeCharacters(print(value));
+        endElement();
+    }
+
+    private static String print(final Object value) throws XMLStreamException {
+        try {
+            return XmlValues.print(value);
+        } catch (final IllegalArgumentException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    /**
+     * Starts an element and declares its namespace if it is not yet declared. The root element declares the halite
+     * namespace.
+     */
+    private void startElement(final QName name) throws XMLStreamException {
+        depth++;
+        final String namespace = name.getNamespaceURI();
+        if (namespace.isEmpty()) {
+            xml.writeStartElement(name.getLocalPart());
+            if (depth == 1) {
+                declare(XmlNames.NAMESPACE);
+            }
+            return;
+        }
+        final String declared = prefixOf(namespace);
+        final String prefix = declared == null ? bind(namespace) : declared;
+        xml.writeStartElement(prefix, name.getLocalPart(), namespace);
+        if (depth == 1 && !XmlNames.NAMESPACE.equals(namespace)) {
+            declare(XmlNames.NAMESPACE);
+        }
+        if (declared == null) {
+            xml.writeNamespace(prefix, namespace);
+        }
+    }
+
+    /**
+     * Ends the current element and the scope of the namespaces it declared
+     */
+    private void endElement() throws XMLStreamException {
+        xml.writeEndElement();
+        for (int i = bindings.size() - 1; i >= 0 && bindings.get(i).depth == depth; i--) {
+            if (bindings.remove(i).numbered) {
+                otherPrefixes--;
+            }
+        }
+        depth--;
+    }
+
+    /**
+     * Declares a namespace on the current element unless it is declared by the element or one of its ancestors
+     * already
+     *
+     * @param namespace
+     *            the namespace to declare
+     * @return the prefix the namespace is bound to
+     * @throws XMLStreamException
+     */
+    private String declare(final String namespace) throws XMLStreamException {
+        final String declared = prefixOf(namespace);
+        if (declared != null) {
+            return declared;
+        }
+        final String prefix = bind(namespace);
+        xml.writeNamespace(prefix, namespace);
+        return prefix;
+    }
+
+    /**
+     * Binds a namespace to a prefix in the scope of the current element without declaring it. The halite and the
+     * schema instance namespace are bound to their fixed prefixes, all other namespaces to a prefix that is not bound
+     * in the scope.
+     */
+    private String bind(final String namespace) {
+        final Binding binding;
+        if (XmlNames.NAMESPACE.equals(namespace)) {
+            binding = new Binding(namespace, XmlNames.PREFIX, depth, false);
+        } else if (XmlNames.XSI_NAMESPACE.equals(namespace)) {
+            binding = new Binding(namespace, XmlNames.XSI_PREFIX, depth, false);
+        } else {
+            binding = new Binding(namespace, OTHER_PREFIX + (FIRST_OTHER_PREFIX + otherPrefixes++), depth, true);
+        }
+        bindings.add(binding);
+        return binding.prefix;
+    }
+
+    /**
+     * @return the prefix the namespace is bound to in the scope of the current element or <code>null</code> if it is
+     *         not declared
+     */
+    private String prefixOf(final String namespace) {
+        for (int i = bindings.size() - 1; i >= 0; i--) {
+            final Binding binding = bindings.get(i);
+            if (binding.namespace.equals(namespace)) {
+                return binding.prefix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the xsi:type attribute for a resource whose type differs from the type declared by the schema
+     */
+    private void writeType(final QName typeName) throws XMLStreamException {
+        final String namespace = typeName.getNamespaceURI();
+        final String xsiPrefix = declare(XmlNames.XSI_NAMESPACE);
+        final String type;
+        if (namespace.isEmpty()) {
+            type = typeName.getLocalPart();
+        } else {
+            type = declare(namespace) + ':' + typeName.getLocalPart();
+        }
+        xml.writeAttribute(xsiPrefix, XmlNames.XSI_NAMESPACE, XmlNames.XSI_TYPE, type);
+    }
+
+    private void writeAttribute(final QName name, final String value) throws XMLStreamException {
+        final String namespace = name.getNamespaceURI();
+        if (namespace.isEmpty()) {
+            xml.writeAttribute(name.getLocalPart(), value);
+        } else {
+            xml.writeAttribute(declare(namespace), namespace, name.getLocalPart(), value);
+        }
+    }
+
+    private void writeAttribute(final String name, final String value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeAttribute(name, value);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.inkstand.halite.xml;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+/**
+ * The names of the xml+hal format as defined by the JAXB binding of {@link Resource} and {@link Link}. Only the root
+ * resource element is qualified with the halite namespace, the embedded resources, links and their attributes are
+ * unqualified.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class XmlNames {
+
+    static final String NAMESPACE = "http://inkstand.io/halite";
+
+    /**
+     * The prefix JAXB binds the halite namespace to
+     */
+    static final String PREFIX = "ns2";
+
+    static final QName RESOURCE = new QName(NAMESPACE, "resource", PREFIX);
+    static final QName EMBEDDED = new QName("embedded");
+    static final QName LINK = new QName("link");
+
+    static final String REL = "rel";
+    static final String HREF = "href";
+    static final String HREFLANG = "hreflang";
+    static final String PROFILE = "profile";
+    static final String DEPRECATION = "deprecation";
+    static final String NAME = "name";
+    static final String TEMPLATED = "templated";
+    static final String TYPE = "type";
+    static final String TITLE = "title";
+
+    static final String XSI_NAMESPACE = XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+    static final String XSI_PREFIX = "xsi";
+    static final String XSI_TYPE = "type";
+    static final String XSI_NIL = "nil";
+
+    private XmlNames() {
+    }
+}
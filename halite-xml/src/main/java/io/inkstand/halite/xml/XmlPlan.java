@@ -0,0 +1,749 @@
+package io.inkstand.halite.xml;
+
+import java.beans.Introspector;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.namespace.QName;
+
+import io.inkstand.halite.Resource;
+
+/**
+ * The xml plan of a {@link Resource} type. The plan names the element and the schema type of the resource type and
+ * contains an accessor for every attribute and element the JAXB binding of the type defines in addition to those of
+ * {@link Resource}. The plan follows the JAXB annotations and defaults of the type, its supertypes and their packages:
+ * <ul>
+ * <li>the properties are selected according to the {@link XmlAccessorType}, which is {@link XmlAccessType#PUBLIC_MEMBER}
+ * as inherited from {@link Resource} unless specified otherwise, and {@link XmlTransient} members are skipped</li>
+ * <li>properties are named by {@link XmlAttribute} and {@link XmlElement} or after the field or bean property</li>
+ * <li>the properties of supertypes come first, the properties of each type are ordered by the
+ * {@link XmlType#propOrder()}, alphabetically if the type is annotated with {@link XmlAccessOrder#ALPHABETICAL}, or
+ * otherwise as JAXB orders them by default, that is the fields in the order they are declared followed by the bean
+ * properties ordered by name</li>
+ * <li>properties of other classes than resources are written with the attributes and elements of their own plan</li>
+ * </ul>
+ * Types whose binding depends on JAXB features the plan does not implement, such as adapters, element wrappers or
+ * element references, or on properties of types that have no binding without such features, are marked as not
+ * {@link #isSupported() supported}. Such types have to be written by a JAXB marshaller. <br>
+ * The plan is computed once per type and cached in a {@link ClassValue} so that it does not prevent the type from
+ * being unloaded.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class XmlPlan {
+
+    /**
+     * The default value of the name and namespace attributes of the JAXB annotations
+     */
+    private static final String DEFAULT = "##default";
+
+    /**
+     * The package prefix of the JAXB annotations, including the adapter annotations
+     */
+    private static final String JAXB_ANNOTATIONS = "javax.xml.bind.annotation.";
+
+    /**
+     * The JAXB annotations of types and packages the plan implements
+     */
+    private static final Set<Class<?>> TYPE_ANNOTATIONS = new HashSet<Class<?>>(Arrays.asList(XmlRootElement.class,
+            XmlType.class, XmlAccessorType.class, XmlAccessorOrder.class, XmlSchema.class));
+
+    /**
+     * The JAXB annotations of fields and getters the plan implements
+     */
+    private static final Set<Class<?>> MEMBER_ANNOTATIONS = new HashSet<Class<?>>(Arrays.asList(XmlElement.class,
+            XmlAttribute.class, XmlTransient.class));
+
+    /**
+     * Classification of a property value that determines how the value is written
+     *
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     *
+     */
+    enum ValueKind {
+        /**
+         * The property is a {@link Collection}, each item is written as separate element.
+         */
+        COLLECTION,
+        /**
+         * The property is a {@link Resource} and is written with its links and embedded resources
+         */
+        RESOURCE,
+        /**
+         * The property is of a type that is bound to a simple schema type and is written as text
+         */
+        VALUE,
+        /**
+         * Any other property value that is written with the attributes and elements of the plan of its type
+         */
+        BEAN;
+
+        static ValueKind of(final Class<?> type) {
+            if (Collection.class.isAssignableFrom(type)) {
+                return COLLECTION;
+            } else if (Resource.class.isAssignableFrom(type)) {
+                return RESOURCE;
+            } else if (XmlValues.isSupported(type)) {
+                return VALUE;
+            }
+            return BEAN;
+        }
+    }
+
+    /**
+     * Accessor for a single attribute or element of a resource, reading either a field or a getter method and writing
+     * either the field or the setter method of the property.
+     *
+     * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+     *
+     */
+    static final class Property {
+
+        private final String propertyName;
+        private final QName name;
+        private final boolean attribute;
+        private final boolean nillable;
+        private final Class<?> type;
+        private final Type genericType;
+        private final ValueKind kind;
+        private final Class<?> itemType;
+        private final Field field;
+        private final Method getter;
+        private final Method setter;
+
+        Property(final String propertyName, final QName name, final boolean attribute, final boolean nillable,
+                final AccessibleObject member, final Method setter) {
+            this.propertyName = propertyName;
+            this.name = name;
+            this.attribute = attribute;
+            this.nillable = nillable;
+            if (member instanceof Field) {
+                this.field = (Field) member;
+                this.getter = null;
+                this.type = field.getType();
+                this.genericType = field.getGenericType();
+            } else {
+                this.field = null;
+                this.getter = (Method) member;
+                this.type = getter.getReturnType();
+                this.genericType = getter.getGenericReturnType();
+            }
+            member.setAccessible(true);
+            this.setter = setter;
+            if (setter != null) {
+                setter.setAccessible(true);
+            }
+            this.kind = ValueKind.of(type);
+            this.itemType = kind == ValueKind.COLLECTION ? itemTypeOf(genericType) : null;
+        }
+
+        /**
+         * @return the type of the items of a collection if it is declared as class, otherwise <code>null</code>
+         */
+        private static Class<?> itemTypeOf(final Type collectionType) {
+            if (collectionType instanceof ParameterizedType) {
+                final Type[] args = ((ParameterizedType) collectionType).getActualTypeArguments();
+                if (args.length == 1 && args[0] instanceof Class) {
+                    return (Class<?>) args[0];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the qualified name of the attribute or element
+         */
+        QName getName() {
+            return name;
+        }
+
+        /**
+         * @return <code>true</code> if the property is written as attribute
+         */
+        boolean isAttribute() {
+            return attribute;
+        }
+
+        /**
+         * @return <code>true</code> if a <code>null</code> value is written as nil element
+         */
+        boolean isNillable() {
+            return nillable;
+        }
+
+        /**
+         * @return the declared type of the property
+         */
+        Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return the declared generic type of the property
+         */
+        Type getGenericType() {
+            return genericType;
+        }
+
+        /**
+         * @return the kind of the value
+         */
+        ValueKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the declared type of the items if the property is a collection, otherwise <code>null</code>. The
+         *         type is <code>null</code> as well if the items are not declared by a class.
+         */
+        Class<?> getItemType() {
+            return itemType;
+        }
+
+        /**
+         * @return the type whose plan is used to write the value or the items of the property or <code>null</code> if
+         *         the property is written as text
+         */
+        private Class<?> getPlanType() {
+            if (kind == ValueKind.COLLECTION) {
+                return itemType == null || ValueKind.of(itemType) == ValueKind.VALUE ? null : itemType;
+            }
+            return kind == ValueKind.VALUE ? null : type;
+        }
+
+        /**
+         * Reads the value of the property.
+         *
+         * @param resource
+         *            the resource from which the property should be read.
+         * @return the value of the property
+         * @throws IllegalStateException
+         *             if the property could not be read
+         */
+        Object getValue(final Object resource) {
+            try {
+                if (field != null) {
+                    return field.get(resource);
+                }
+                return getter.invoke(resource);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not read property " + propertyName, e);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if the value of the property can be set, which is the case for non-final fields
+         *         and properties with a setter method
+         */
+        boolean isWritable() {
+            return field != null ? !Modifier.isFinal(field.getModifiers()) : setter != null;
+        }
+
+        /**
+         * Sets the value of the property.
+         *
+         * @param resource
+         *            the resource whose property should be set
+         * @param value
+         *            the value to set
+         * @throws IllegalStateException
+         *             if the property could not be set
+         */
+        void setValue(final Object resource, final Object value) {
+            try {
+                if (field != null) {
+                    field.set(resource, value);
+                } else {
+                    setter.invoke(resource, value);
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not write property " + propertyName, e);
+            }
+        }
+    }
+
+    private static final Comparator<Property> BY_NAME = new Comparator<Property>() {
+
+        @Override
+        public int compare(final Property p1, final Property p2) {
+            return p1.propertyName.compareTo(p2.propertyName);
+        }
+    };
+
+    private static final ClassValue<XmlPlan> PLANS = new ClassValue<XmlPlan>() {
+
+        @Override
+        protected XmlPlan computeValue(final Class<?> type) {
+            return new XmlPlan(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final QName elementName;
+
+    private final boolean rootElement;
+
+    private final QName typeName;
+
+    private final Property[] attributes;
+
+    private final Property[] elements;
+
+    private final Map<QName, Property> attributesByName = new HashMap<>();
+
+    private final Map<QName, Property> elementsByName = new HashMap<>();
+
+    /**
+     * The description of the feature of the type that the plan does not implement or <code>null</code> if the plan
+     * implements the binding of the type itself
+     */
+    private final String unsupportedFeature;
+
+    /**
+     * Flag to indicate that the type and the types of its properties are supported, determined on first access
+     */
+    private volatile Boolean supported;
+
+    private XmlPlan(final Class<?> type) {
+        this.type = type;
+        this.rootElement = type.isAnnotationPresent(XmlRootElement.class);
+        this.elementName = elementNameOf(type);
+        this.typeName = typeNameOf(type);
+
+        final LinkedList<Class<?>> hierarchy = new LinkedList<>();
+        for (Class<?> c = type; c != null && !Resource.class.equals(c) && !Object.class.equals(c); c = c
+                .getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        final List<Property> attrs = new ArrayList<>();
+        final List<Property> elems = new ArrayList<>();
+        for (final Class<?> c : hierarchy) {
+            for (final Property property : propertiesOf(c)) {
+                if (property.isAttribute()) {
+                    attrs.add(property);
+                } else {
+                    elems.add(property);
+                }
+            }
+        }
+        this.attributes = attrs.toArray(new Property[attrs.size()]);
+        this.elements = elems.toArray(new Property[elems.size()]);
+        for (final Property property : attrs) {
+            attributesByName.put(property.getName(), property);
+        }
+        for (final Property property : elems) {
+            elementsByName.put(property.getName(), property);
+        }
+        this.unsupportedFeature = unsupportedFeatureOf(hierarchy, attrs, elems);
+    }
+
+    /**
+     * Provides the xml plan for the specified type
+     *
+     * @param type
+     *            the type whose plan should be returned
+     * @return the plan of the type, created on first access
+     */
+    static XmlPlan of(final Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Checks if the plan writes the type as JAXB does. This is the case if neither the type nor the declared types of
+     * its properties, or of their properties, depend on JAXB features the plan does not implement. Resources of
+     * subtypes of the declared types are checked when they are written.
+     *
+     * @return <code>true</code> if the type is supported
+     */
+    boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            result = isSupported(new HashSet<Class<?>>());
+            supported = result;
+        }
+        return result;
+    }
+
+    private boolean isSupported(final Set<Class<?>> visited) {
+        if (unsupportedFeature != null) {
+            return false;
+        }
+        if (!visited.add(type)) {
+            return true;
+        }
+        for (final Property property : elements) {
+            final Class<?> planType = property.getPlanType();
+            if (planType != null && !of(planType).isSupported(visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the description of the feature the plan does not implement or <code>null</code> if the plan implements
+     *         the binding of the type itself. Features of the types of the properties are not described.
+     */
+    String getUnsupportedFeature() {
+        return unsupportedFeature;
+    }
+
+    /**
+     * @return the name of the root element of the type, which is defined by the {@link XmlRootElement} annotation of
+     *         the type or of its nearest annotated supertype
+     */
+    QName getElementName() {
+        return elementName;
+    }
+
+    /**
+     * @return <code>true</code> if the type itself is annotated as root element. If not, the type has to be written
+     *         with an xsi:type attribute when it is written as root element.
+     */
+    boolean isRootElement() {
+        return rootElement;
+    }
+
+    /**
+     * @return the name of the schema type, used as xsi:type
+     */
+    QName getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return the accessors of the attributes in the order they have to be written. The array is shared and must not
+     *         be modified.
+     */
+    Property[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return the accessors of the elements in the order they have to be written. The array is shared and must not be
+     *         modified.
+     */
+    Property[] getElements() {
+        return elements;
+    }
+
+    /**
+     * @param name
+     *            the qualified name of the attribute
+     * @return the accessor of the attribute with the given name or <code>null</code> if the type defines no such
+     *         attribute
+     */
+    Property getAttribute(final QName name) {
+        return attributesByName.get(name);
+    }
+
+    /**
+     * @param name
+     *            the qualified name of the element
+     * @return the accessor of the element with the given name or <code>null</code> if the type defines no such
+     *         element
+     */
+    Property getElement(final QName name) {
+        return elementsByName.get(name);
+    }
+
+    private static QName elementNameOf(final Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            final XmlRootElement root = c.getAnnotation(XmlRootElement.class);
+            if (root != null) {
+                final String name = DEFAULT.equals(root.name()) ? Introspector.decapitalize(c.getSimpleName()) : root
+                        .name();
+                final String namespace = DEFAULT.equals(root.namespace()) ? namespaceOf(c.getPackage()) : root
+                        .namespace();
+                return new QName(namespace, name);
+            }
+        }
+        return XmlNames.RESOURCE;
+    }
+
+    private static QName typeNameOf(final Class<?> type) {
+        final XmlType xmlType = type.getAnnotation(XmlType.class);
+        String name = Introspector.decapitalize(type.getSimpleName());
+        String namespace = namespaceOf(type.getPackage());
+        if (xmlType != null) {
+            if (!DEFAULT.equals(xmlType.name())) {
+                name = xmlType.name();
+            }
+            if (!DEFAULT.equals(xmlType.namespace())) {
+                namespace = xmlType.namespace();
+            }
+        }
+        return new QName(namespace, name);
+    }
+
+    private static String namespaceOf(final Package pkg) {
+        final XmlSchema schema = pkg == null ? null : pkg.getAnnotation(XmlSchema.class);
+        return schema == null ? "" : schema.namespace();
+    }
+
+    private static boolean isQualified(final Package pkg) {
+        final XmlSchema schema = pkg == null ? null : pkg.getAnnotation(XmlSchema.class);
+        return schema != null && schema.elementFormDefault() == XmlNsForm.QUALIFIED;
+    }
+
+    /**
+     * Determines how the members of the type are bound. An {@link XmlAccessorType} of the type itself takes precedence
+     * over the one of its package, which takes precedence over the one inherited from a supertype.
+     */
+    private static XmlAccessType accessTypeOf(final Class<?> type) {
+        for (final Annotation annotation : type.getDeclaredAnnotations()) {
+            if (annotation instanceof XmlAccessorType) {
+                return ((XmlAccessorType) annotation).value();
+            }
+        }
+        final Package pkg = type.getPackage();
+        if (pkg != null && pkg.isAnnotationPresent(XmlAccessorType.class)) {
+            return pkg.getAnnotation(XmlAccessorType.class).value();
+        }
+        final XmlAccessorType inherited = type.getAnnotation(XmlAccessorType.class);
+        return inherited == null ? XmlAccessType.PUBLIC_MEMBER : inherited.value();
+    }
+
+    /**
+     * Collects the properties declared by the type in the order they have to be written
+     */
+    private static List<Property> propertiesOf(final Class<?> type) {
+        final XmlAccessType access = accessTypeOf(type);
+        final List<Property> properties = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        for (final Field field : type.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || field.isSynthetic() || field.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            final boolean bound = isAnnotated(field) || access == XmlAccessType.FIELD
+                    && !Modifier.isTransient(modifiers) || access == XmlAccessType.PUBLIC_MEMBER
+                    && Modifier.isPublic(modifiers);
+            if (bound && names.add(field.getName())) {
+                properties.add(newProperty(type, field.getName(), field, null));
+            }
+        }
+        final List<Property> beanProperties = new ArrayList<>();
+        for (final Method getter : type.getDeclaredMethods()) {
+            final String propertyName = propertyNameOf(getter);
+            if (propertyName == null || getter.isAnnotationPresent(XmlTransient.class)) {
+                continue;
+            }
+            final Method setter = setterOf(type, getter);
+            final boolean bound = isAnnotated(getter) || setter != null
+                    && (access == XmlAccessType.PROPERTY || access == XmlAccessType.PUBLIC_MEMBER
+                            && isPublic(getter) && isPublic(setter));
+            if (bound && names.add(propertyName)) {
+                beanProperties.add(newProperty(type, propertyName, getter, setter));
+            }
+        }
+        // the order of the declared methods is not defined, JAXB orders the bean properties by name
+        Collections.sort(beanProperties, BY_NAME);
+        properties.addAll(beanProperties);
+        sort(type, properties);
+        return properties;
+    }
+
+    private static boolean isAnnotated(final AccessibleObject member) {
+        return member.isAnnotationPresent(XmlElement.class) || member.isAnnotationPresent(XmlAttribute.class);
+    }
+
+    private static boolean isPublic(final Member member) {
+        return Modifier.isPublic(member.getModifiers());
+    }
+
+    /**
+     * @return the name of the bean property if the method is a getter, otherwise <code>null</code>
+     */
+    private static String propertyNameOf(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic() || method.isBridge()
+                || method.getParameterTypes().length != 0 || method.getReturnType() == void.class) {
+            return null;
+        }
+        final String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2
+                && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private static Method setterOf(final Class<?> type, final Method getter) {
+        final String name = getter.getName();
+        final String setterName = "set" + name.substring(name.startsWith("is") ? 2 : 3);
+        try {
+            return type.getDeclaredMethod(setterName, getter.getReturnType());
+        } catch (final NoSuchMethodException e) { // NOSONAR
+            return null;
+        }
+    }
+
+    private static Property newProperty(final Class<?> type, final String propertyName,
+            final AccessibleObject member, final Method setter) {
+        final XmlAttribute attribute = member.getAnnotation(XmlAttribute.class);
+        if (attribute != null) {
+            final String name = DEFAULT.equals(attribute.name()) ? propertyName : attribute.name();
+            final String namespace = DEFAULT.equals(attribute.namespace()) ? "" : attribute.namespace();
+            return new Property(propertyName, new QName(namespace, name), true, false, member, setter);
+        }
+        final XmlElement element = member.getAnnotation(XmlElement.class);
+        String name = propertyName;
+        String namespace = isQualified(type.getPackage()) ? namespaceOf(type.getPackage()) : "";
+        boolean nillable = false;
+        if (element != null) {
+            if (!DEFAULT.equals(element.name())) {
+                name = element.name();
+            }
+            if (!DEFAULT.equals(element.namespace())) {
+                namespace = element.namespace();
+            }
+            nillable = element.nillable();
+        }
+        return new Property(propertyName, new QName(namespace, name), false, nillable, member, setter);
+    }
+
+    /**
+     * Orders the properties of a type by its {@link XmlType#propOrder()}, or alphabetically by name if the type or its
+     * package is annotated with {@link XmlAccessOrder#ALPHABETICAL}. Otherwise the properties are kept in the order
+     * they were collected. Properties missing in the order follow in the order they were collected.
+     */
+    private static void sort(final Class<?> type, final List<Property> properties) {
+        XmlAccessorOrder accessorOrder = type.getAnnotation(XmlAccessorOrder.class);
+        if (accessorOrder == null && type.getPackage() != null) {
+            accessorOrder = type.getPackage().getAnnotation(XmlAccessorOrder.class);
+        }
+        if (accessorOrder != null && accessorOrder.value() == XmlAccessOrder.ALPHABETICAL) {
+            Collections.sort(properties, BY_NAME);
+            return;
+        }
+        final XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType == null || xmlType.propOrder().length == 0 || "".equals(xmlType.propOrder()[0])) {
+            return;
+        }
+        final List<String> order = Arrays.asList(xmlType.propOrder());
+        Collections.sort(properties, new Comparator<Property>() {
+
+            @Override
+            public int compare(final Property p1, final Property p2) {
+                final int i1 = order.indexOf(p1.propertyName);
+                final int i2 = order.indexOf(p2.propertyName);
+                if (i1 < 0 || i2 < 0) {
+                    return i1 < 0 && i2 < 0 ? 0 : i1 < 0 ? 1 : -1;
+                }
+                return i1 - i2;
+            }
+        });
+    }
+
+    /**
+     * Determines the first feature of the types of the hierarchy and their properties that the plan does not
+     * implement
+     *
+     * @return the description of the feature or <code>null</code> if the plan implements all features
+     */
+    private static String unsupportedFeatureOf(final List<Class<?>> hierarchy, final List<Property> attributes,
+            final List<Property> elements) {
+        for (final Class<?> c : hierarchy) {
+            String feature = unsupportedAnnotationOf(c, TYPE_ANNOTATIONS);
+            if (feature == null && c.getPackage() != null) {
+                feature = unsupportedAnnotationOf(c.getPackage(), TYPE_ANNOTATIONS);
+            }
+            for (final Field field : c.getDeclaredFields()) {
+                if (feature == null) {
+                    feature = unsupportedMemberAnnotationOf(field);
+                }
+            }
+            for (final Method method : c.getDeclaredMethods()) {
+                if (feature == null) {
+                    feature = propertyNameOf(method) == null ? unsupportedAnnotationOf(method,
+                            Collections.<Class<?>> emptySet()) : unsupportedMemberAnnotationOf(method);
+                }
+            }
+            if (feature != null) {
+                return feature;
+            }
+        }
+        for (final Property property : attributes) {
+            if (property.getKind() != ValueKind.VALUE) {
+                return "attribute " + property.propertyName + " of type " + property.getType().getName();
+            }
+        }
+        for (final Property property : elements) {
+            final Class<?> valueType = property.getKind() == ValueKind.COLLECTION ? property.getItemType()
+                    : property.getType();
+            if (valueType == null || !isBindable(valueType)) {
+                return "element " + property.propertyName + " of type " + property.getGenericType();
+            }
+        }
+        return null;
+    }
+
+    private static String unsupportedMemberAnnotationOf(final AccessibleObject member) {
+        final XmlElement element = member.getAnnotation(XmlElement.class);
+        if (element != null && element.type() != XmlElement.DEFAULT.class) {
+            return "@XmlElement(type) of " + member;
+        }
+        return unsupportedAnnotationOf(member, MEMBER_ANNOTATIONS);
+    }
+
+    /**
+     * @return the description of the first JAXB annotation of the element that is not supported or <code>null</code>
+     *         if there is no such annotation
+     */
+    private static String unsupportedAnnotationOf(final AnnotatedElement element, final Set<Class<?>> supported) {
+        for (final Annotation annotation : element.getDeclaredAnnotations()) {
+            final Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.getName().startsWith(JAXB_ANNOTATIONS) && !supported.contains(annotationType)) {
+                return "@" + annotationType.getSimpleName() + " of " + element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if values of the declared type can be written without knowing their runtime type, which excludes
+     * abstract types, maps and arrays other than <code>byte[]</code>
+     */
+    private static boolean isBindable(final Class<?> type) {
+        if (ValueKind.of(type) != ValueKind.BEAN) {
+            return !Collection.class.isAssignableFrom(type);
+        }
+        return type != Object.class && !type.isArray() && !type.isInterface()
+                && !Modifier.isAbstract(type.getModifiers()) && !Map.class.isAssignableFrom(type);
+    }
+}
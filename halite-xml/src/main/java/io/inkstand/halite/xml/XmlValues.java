@@ -0,0 +1,213 @@
+package io.inkstand.halite.xml;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.UUID;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Conversion of property values into their lexical xml representation and back, following the conversions JAXB
+ * applies to the respective types. Only the types JAXB binds to a simple schema type without an adapter are supported,
+ * values of other types are rejected instead of being written by their {@link Object#toString()}.
+ *
+ * @author <a href="mailto:gerald.muecke@gmail.com">Gerald M&uuml;cke</a>
+ *
+ */
+final class XmlValues {
+
+    private XmlValues() {
+    }
+
+    /**
+     * Checks if values of the type are written as text
+     *
+     * @param type
+     *            the declared type of a value
+     * @return <code>true</code> if values of the type are printed and parsed by this class
+     */
+    static boolean isSupported(final Class<?> type) {
+        return type.isPrimitive() && type != void.class || type == String.class || type == Integer.class
+                || type == Long.class || type == Short.class || type == Byte.class || type == Boolean.class
+                || type == Double.class || type == Float.class || type == Character.class || type == BigDecimal.class
+                || type == BigInteger.class || type == Calendar.class || type == GregorianCalendar.class
+                || type == Date.class || XMLGregorianCalendar.class.isAssignableFrom(type) || type == byte[].class
+                || type == URI.class || type == UUID.class || type.isEnum();
+    }
+
+    /**
+     * Prints a value as text
+     *
+     * @param value
+     *            the value to print, must not be <code>null</code>
+     * @return the lexical representation of the value
+     * @throws IllegalArgumentException
+     *             if values of the type are not supported
+     */
+    static String print(final Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return printDouble(((Number) value).doubleValue(), value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Character) {
+            return String.valueOf((int) (Character) value);
+        }
+        if (value instanceof Calendar) {
+            return DatatypeConverter.printDateTime((Calendar) value);
+        }
+        if (value instanceof Date) {
+            final Calendar calendar = new GregorianCalendar();
+            calendar.setTime((Date) value);
+            return DatatypeConverter.printDateTime(calendar);
+        }
+        if (value instanceof XMLGregorianCalendar) {
+            return ((XMLGregorianCalendar) value).toXMLFormat();
+        }
+        if (value instanceof byte[]) {
+            return DatatypeConverter.printBase64Binary((byte[]) value);
+        }
+        if (value instanceof Enum) {
+            return printEnum((Enum<?>) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof Boolean || value instanceof URI
+                || value instanceof UUID) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException("Values of type " + value.getClass().getName() + " are not supported");
+    }
+
+    /**
+     * Parses the lexical representation of a value
+     *
+     * @param text
+     *            the text to parse
+     * @param type
+     *            the type of the value
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the text is no valid representation of a value of the type or the type is not supported
+     */
+    static Object parse(final String text, final Class<?> type) {
+        if (type == String.class || type == Object.class) {
+            return text;
+        }
+        final String value = text.trim();
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return "true".equals(value) || "1".equals(value);
+        }
+        if (type == double.class || type == Double.class) {
+            return parseDouble(value);
+        }
+        if (type == float.class || type == Float.class) {
+            return (float) parseDouble(value);
+        }
+        if (type == short.class || type == Short.class) {
+            return Short.valueOf(value);
+        }
+        if (type == byte.class || type == Byte.class) {
+            return Byte.valueOf(value);
+        }
+        if (type == char.class || type == Character.class) {
+            return (char) Integer.parseInt(value);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type == BigInteger.class) {
+            return new BigInteger(value);
+        }
+        if (type == Calendar.class || type == GregorianCalendar.class) {
+            return DatatypeConverter.parseDateTime(value);
+        }
+        if (type == Date.class) {
+            return DatatypeConverter.parseDateTime(value).getTime();
+        }
+        if (type == XMLGregorianCalendar.class) {
+            return parseCalendar(value);
+        }
+        if (type == byte[].class) {
+            return DatatypeConverter.parseBase64Binary(value);
+        }
+        if (type == URI.class) {
+            return URI.create(value);
+        }
+        if (type == UUID.class) {
+            return UUID.fromString(value);
+        }
+        if (type.isEnum()) {
+            return parseEnum(value, type);
+        }
+        throw new IllegalArgumentException("Values of type " + type.getName() + " are not supported");
+    }
+
+    private static double parseDouble(final String value) {
+        switch (value) {
+        case "INF":
+            return Double.POSITIVE_INFINITY;
+        case "-INF":
+            return Double.NEGATIVE_INFINITY;
+        default:
+            return Double.parseDouble(value);
+        }
+    }
+
+    private static XMLGregorianCalendar parseCalendar(final String value) {
+        try {
+            return DatatypeFactory.newInstance().newXMLGregorianCalendar(value);
+        } catch (final DatatypeConfigurationException e) {
+            throw new IllegalStateException("No datatype factory available", e);
+        }
+    }
+
+    private static Object parseEnum(final String value, final Class<?> type) {
+        for (final Object constant : type.getEnumConstants()) {
+            if (printEnum((Enum<?>) constant).equals(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No constant " + value + " in " + type.getName());
+    }
+
+    private static String printDouble(final double value, final Object boxed) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return "INF";
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return "-INF";
+        }
+        return String.valueOf(boxed);
+    }
+
+    private static String printEnum(final Enum<?> value) {
+        try {
+            final XmlEnumValue enumValue = value.getDeclaringClass().getField(value.name())
+                    .getAnnotation(XmlEnumValue.class);
+            return enumValue == null ? value.name() : enumValue.value();
+        } catch (final NoSuchFieldException e) { // NOSONAR
+            return value.name();
+        }
+    }
+}
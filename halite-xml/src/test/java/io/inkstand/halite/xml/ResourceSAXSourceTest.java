@@ -0,0 +1,134 @@
+package io.inkstand.halite.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.util.JAXBSource;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
+import io.inkstand.halite.xml.XmlHalWriterTest.Order;
+import io.inkstand.halite.xml.XmlHalWriterTest.TwoNamespaces;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ResourceSAXSourceTest {
+
+    private String transform(final Source source) throws Exception {
+        final StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(writer));
+        return writer.toString();
+    }
+
+    @Test
+    public void testTransform_sameAsJAXBSource() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.addLink(HAL.newLink("item", "a").title("Title <&>\"").templated(true));
+        resource.embed("item", HAL.newResource("e1").embed("nested", HAL.newResource("n")), HAL.newResource("e2"));
+
+        final String expected = transform(new JAXBSource(JAXBContext.newInstance(Resource.class), resource));
+
+        assertEquals(expected, transform(new ResourceSAXSource(resource)));
+    }
+
+    @Test
+    public void testTransform_subclass_sameAsJAXBSource() throws Exception {
+        final Order order = new Order();
+        order.setName("first");
+        order.setSize(3);
+        order.embed("other", new Order());
+
+        final String expected = transform(new JAXBSource(JAXBContext.newInstance(Resource.class, Order.class),
+                order));
+
+        assertEquals(expected, transform(new ResourceSAXSource(order)));
+    }
+
+    @Test
+    public void testTransform_twoForeignNamespaces() throws Exception {
+        final TwoNamespaces resource = new TwoNamespaces();
+        resource.embed("item", new TwoNamespaces());
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+
+        final String xml = transform(new ResourceSAXSource(resource));
+
+        XmlHalWriterTest.assertTwoNamespaces(factory.newDocumentBuilder().parse(
+                new InputSource(new StringReader(xml))));
+    }
+
+    @Test
+    public void testParse_namespacePrefixes() throws Exception {
+        final ResourceXMLReader reader = new ResourceXMLReader(HAL.newResource("test"));
+        final List<String> events = new ArrayList<>();
+        reader.setContentHandler(new DefaultHandler() {
+
+            @Override
+            public void startPrefixMapping(final String prefix, final String uri) {
+                events.add(prefix + "=" + uri);
+            }
+
+            @Override
+            public void startElement(final String uri, final String localName, final String qName,
+                    final Attributes attributes) {
+                events.add(uri + "|" + localName + "|" + qName + "|" + attributes.getLength());
+            }
+        });
+
+        assertTrue(reader.getFeature("http://xml.org/sax/features/namespaces"));
+        assertFalse(reader.getFeature("http://xml.org/sax/features/namespace-prefixes"));
+        reader.parse("ignored");
+        reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        reader.parse("ignored");
+
+        assertEquals(6, events.size());
+        assertEquals("ns2=http://inkstand.io/halite", events.get(0));
+        assertEquals("http://inkstand.io/halite|resource|ns2:resource|0", events.get(1));
+        assertEquals("|link|link|2", events.get(2));
+        assertEquals("http://inkstand.io/halite|resource|ns2:resource|1", events.get(4));
+    }
+
+    @Test
+    public void testParse_embeddedRels() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embed("item", HAL.newResource("item"));
+        resource.embed("other", HAL.newResource("other"));
+        final ResourceXMLReader reader = new ResourceXMLReader(resource).setEmbeddedRels("other");
+        final List<String> rels = new ArrayList<>();
+        reader.setContentHandler(new DefaultHandler() {
+
+            @Override
+            public void startElement(final String uri, final String localName, final String qName,
+                    final Attributes attributes) {
+                if ("embedded".equals(localName)) {
+                    rels.add(attributes.getValue("rel"));
+                }
+            }
+        });
+
+        reader.parse("ignored");
+
+        assertEquals(Arrays.asList("other"), rels);
+    }
+
+    @Test(expected = SAXNotRecognizedException.class)
+    public void testGetFeature_unknown() throws Exception {
+        new ResourceXMLReader(HAL.newResource("test")).getFeature("unknown");
+    }
+}
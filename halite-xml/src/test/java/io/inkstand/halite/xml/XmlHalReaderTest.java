@@ -0,0 +1,221 @@
+package io.inkstand.halite.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Link;
+import io.inkstand.halite.Resource;
+
+import org.junit.Test;
+
+public class XmlHalReaderTest {
+
+    private byte[] write(final Resource resource) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XmlHalWriter(out).write(resource);
+        return out.toByteArray();
+    }
+
+    private XmlHalReader reader(final byte[] data) throws IOException {
+        return new XmlHalReader(new ByteArrayInputStream(data));
+    }
+
+    @Test
+    public void testRead_linksAndEmbedded() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.addLink(HAL.newLink("item", "a").title("Title <&>\"").templated(true).name("nm").type("text/xml")
+                .hreflang("en").profile("p").deprecation("d"));
+        resource.embed("item", HAL.newResource("e1").embed("nested", HAL.newResource("n")), HAL.newResource("e2"));
+        final byte[] data = write(resource);
+
+        final Resource result = reader(data).read();
+
+        assertEquals("test", result.getLink("self").getHref());
+        final Link link = result.getLinks("item").get(0);
+        assertEquals("a", link.getHref());
+        assertEquals("Title <&>\"", link.getTitle());
+        assertEquals(Boolean.TRUE, link.isTemplated());
+        assertEquals("nm", link.getName());
+        assertEquals("text/xml", link.getType());
+        assertEquals("en", link.getHreflang());
+        assertEquals("p", link.getProfile());
+        assertEquals("d", link.getDeprecation());
+        final List<Resource> items = result.getEmbedded("item");
+        assertEquals(2, items.size());
+        assertEquals("n", items.get(0).getEmbedded("nested").get(0).getLink("self").getHref());
+        assertEquals("e2", items.get(1).getLink("self").getHref());
+        assertEquals(new String(data, "UTF-8"), new String(write(result), "UTF-8"));
+    }
+
+    @Test
+    public void testRead_jaxbMarshalled() throws Exception {
+        final Resource resource = HAL.newResource("test").embed("other", HAL.newResource("child"));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JAXBContext.newInstance(Resource.class).createMarshaller().marshal(resource, out);
+
+        final Resource result = reader(out.toByteArray()).read();
+
+        assertEquals("test", result.getLink("self").getHref());
+        assertEquals("child", result.getEmbedded("other").get(0).getLink("self").getHref());
+    }
+
+    @Test
+    public void testRead_subclass() throws Exception {
+        final Order order = new Order();
+        order.setName("first & <best>");
+        order.setSize(3);
+        order.getTags().addAll(Arrays.asList("a", "b"));
+        order.setCode("c1");
+        order.embed("other", new Order());
+        final byte[] data = write(order);
+
+        final Order result = reader(data).setEmbeddedType("other", Order.class).read(Order.class);
+
+        assertEquals("first & <best>", result.getName());
+        assertEquals(3, result.getSize());
+        assertNull(result.getPrice());
+        assertEquals(Arrays.asList("a", "b"), result.getTags());
+        assertEquals("c1", result.getCode());
+        assertTrue(result.getEmbedded("other").get(0) instanceof Order);
+        assertEquals(new String(data, "UTF-8"), new String(write(result), "UTF-8"));
+    }
+
+    @Test
+    public void testRead_nilAndUnknownElements() throws Exception {
+        final String data = "<ns2:resource xmlns:ns2=\"http://inkstand.io/halite\" "
+                + "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" unknown=\"x\">"
+                + "<other><link rel=\"self\" href=\"x\"/></other><link rel=\"self\" href=\"test\"/>"
+                + "<name xsi:nil=\"true\"/><size>2</size><price>INF</price></ns2:resource>";
+
+        final Order result = new XmlHalReader(new StringReader(data)).read(Order.class);
+
+        assertNull(result.getName());
+        assertEquals(2, result.getSize());
+        assertEquals(Double.valueOf(Double.POSITIVE_INFINITY), result.getPrice());
+        assertEquals(1, result.getLinks().size());
+        assertFalse(result.getEmbeddedRels().iterator().hasNext());
+    }
+
+    @Test
+    public void testRead_skipUnselectedRels() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embed("item", HAL.newResource("i1").embed("nested", HAL.newResource("n")));
+        resource.embed("other", HAL.newResource("o1"));
+        final byte[] data = write(resource);
+
+        final Resource result = reader(data).setEmbeddedRels("other").read();
+
+        assertTrue(result.getEmbedded("item").isEmpty());
+        assertEquals("o1", result.getEmbedded("other").get(0).getLink("self").getHref());
+        assertEquals("test", result.getLink("self").getHref());
+    }
+
+    @Test
+    public void testRead_largeDocument() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embedStream("item", new Iterator<Resource>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < 50000;
+            }
+
+            @Override
+            public Resource next() {
+                return HAL.newResource(String.valueOf(next++));
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        final byte[] data = write(resource);
+
+        final Resource all = reader(data).read();
+        final Resource none = reader(data).setEmbeddedRels().read();
+
+        final List<Resource> items = all.getEmbedded("item");
+        assertEquals(50000, items.size());
+        assertEquals("49999", items.get(49999).getLink("self").getHref());
+        assertTrue(none.getEmbedded("item").isEmpty());
+        assertEquals("test", none.getLink("self").getHref());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_linkWithoutHref() throws Exception {
+        new XmlHalReader(new StringReader("<resource><link rel=\"self\"/></resource>")).read();
+    }
+
+    @XmlRootElement(name = "order")
+    public static class Order extends Resource {
+
+        private String name;
+        private int size;
+        private Double price;
+        private String code;
+        private final List<String> tags = new ArrayList<>();
+
+        public Order() {
+            super();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(final int size) {
+            this.size = size;
+        }
+
+        @XmlElement(nillable = true)
+        public Double getPrice() {
+            return price;
+        }
+
+        public void setPrice(final Double price) {
+            this.price = price;
+        }
+
+        @XmlAttribute
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(final String code) {
+            this.code = code;
+        }
+
+        @XmlElement(name = "tag")
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package io.inkstand.halite.xml;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import io.inkstand.halite.HAL;
+import io.inkstand.halite.Resource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class XmlHalWriterTest {
+
+    private ByteArrayOutputStream outputStream;
+    private XmlHalWriter subject;
+
+    @Before
+    public void setUp() throws Exception {
+        this.outputStream = new ByteArrayOutputStream();
+        this.subject = new XmlHalWriter(outputStream);
+    }
+
+    /**
+     * Marshals the resource with JAXB. The declaration of the JAXB output is reduced to the declaration the stream
+     * writer is able to produce.
+     */
+    private String marshal(final Resource resource, final Class<?>... types) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JAXBContext.newInstance(types).createMarshaller().marshal(resource, out);
+        return out.toString("UTF-8").replace(" standalone=\"yes\"", "");
+    }
+
+    private String getData() throws Exception {
+        return outputStream.toString("UTF-8");
+    }
+
+    private Document getDocument() throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void testWrite_linksAndEmbedded_sameAsJAXB() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.addLink(HAL.newLink("item", "a").title("Title <&>\"").templated(true).name("nm").type("text/xml")
+                .hreflang("en").profile("p").deprecation("d"));
+        resource.embed("item", HAL.newResource("e1").embed("nested", HAL.newResource("n")), HAL.newResource("e2"));
+
+        subject.write(resource);
+
+        assertEquals(marshal(resource, Resource.class), getData());
+    }
+
+    @Test
+    public void testWrite_subclass_sameAsJAXB() throws Exception {
+        final Order order = new Order();
+        order.setName("first & <best>");
+        order.setSize(3);
+        order.embed("other", new Order());
+        order.embed("plain", HAL.newResource("plain"));
+
+        subject.write(order);
+
+        assertEquals(marshal(order, Resource.class, Order.class), getData());
+    }
+
+    @Test
+    public void testWrite_nestedBean_sameAsJAXB() throws Exception {
+        final Customer customer = new Customer();
+        customer.address = new Address("Main Street", "Springfield");
+        customer.previous.add(new Address("Old Road", "Shelbyville"));
+        customer.previous.add(new Address("Elm Street", "Ogdenville"));
+        customer.related.add(HAL.newResource("plain"));
+        customer.related.add(new Customer());
+
+        subject.write(customer);
+
+        assertEquals(marshal(customer, Resource.class, Customer.class), getData());
+    }
+
+    @Test
+    public void testWrite_noPropOrder_declarationOrder_sameAsJAXB() throws Exception {
+        final Unordered resource = new Unordered();
+
+        subject.write(resource);
+
+        assertEquals(marshal(resource, Resource.class, Unordered.class), getData());
+        assertTrue(getData().indexOf("<zeta>") < getData().indexOf("<alpha>"));
+    }
+
+    @Test
+    public void testWrite_alphabeticalOrder_sameAsJAXB() throws Exception {
+        final Alphabetical resource = new Alphabetical();
+
+        subject.write(resource);
+
+        assertEquals(marshal(resource, Resource.class, Alphabetical.class), getData());
+        assertTrue(getData().indexOf("<alpha>") < getData().indexOf("<zeta>"));
+    }
+
+    @Test
+    public void testIsSupported() throws Exception {
+        assertTrue(XmlHalWriter.isSupported(Resource.class));
+        assertTrue(XmlHalWriter.isSupported(Order.class));
+        assertTrue(XmlHalWriter.isSupported(Customer.class));
+        assertFalse(XmlHalWriter.isSupported(Wrapped.class));
+        assertFalse(XmlHalWriter.isSupported(Adapted.class));
+        assertFalse(XmlHalWriter.isSupported(AdaptedBeanHolder.class));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrite_elementWrapper_notSupported() throws Exception {
+        subject.write(new Wrapped());
+    }
+
+    @Test(expected = IOException.class)
+    public void testWrite_embeddedAdapter_notSupported() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embed("item", new Adapted());
+
+        subject.write(resource);
+    }
+
+    @Test
+    public void testWrite_subclassWithoutRootElement() throws Exception {
+        final Unrooted resource = new Unrooted();
+        resource.setValue(1.5);
+
+        subject.write(resource);
+
+        final Document document = getDocument();
+        assertEquals("ns2:resource", document.getDocumentElement().getTagName());
+        assertEquals("unrooted", document.getDocumentElement().getAttribute("xsi:type"));
+        assertXpathEvaluatesTo("1.5", "/resource/value", document);
+        assertEquals("true", ((Element) document.getElementsByTagName("empty").item(0)).getAttribute("xsi:nil"));
+    }
+
+    @Test
+    public void testWrite_streamedRelation() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embedStream("item", new Iterator<Resource>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < 1000;
+            }
+
+            @Override
+            public Resource next() {
+                return HAL.newResource(String.valueOf(next++));
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        subject.write(resource);
+
+        final Document document = getDocument();
+        assertXpathEvaluatesTo("1000", "count(/resource/embedded[@rel='item'])", document);
+        assertXpathEvaluatesTo("999", "/resource/embedded[1000]/link/@href", document);
+    }
+
+    @Test
+    public void testWrite_embeddedRels_unselectedNotResolved() throws Exception {
+        final Resource resource = HAL.newResource("test");
+        resource.embed("item", HAL.newResource("item"));
+        resource.embedLazy("other", new Callable<Resource>() {
+
+            @Override
+            public Resource call() throws Exception {
+                throw new AssertionError("unselected relation resolved");
+            }
+        });
+
+        subject.setEmbeddedRels("item").write(resource);
+
+        final Document document = getDocument();
+        assertXpathEvaluatesTo("1", "count(/resource/embedded)", document);
+        assertXpathEvaluatesTo("item", "/resource/embedded/link/@href", document);
+    }
+
+    @Test
+    public void testWrite_toWriter() throws Exception {
+        final StringWriter writer = new StringWriter();
+
+        new XmlHalWriter(writer).write(HAL.newResource("test"));
+
+        assertTrue(writer.toString().endsWith(
+                "<ns2:resource xmlns:ns2=\"http://inkstand.io/halite\"><link rel=\"self\" href=\"test\"/>"
+                        + "</ns2:resource>"));
+    }
+
+    @Test
+    public void testWrite_foreignNamespace_declaredOnce() throws Exception {
+        final SameNamespace resource = new SameNamespace();
+
+        subject.write(resource);
+
+        final String data = getData();
+        assertEquals(data.indexOf("xmlns:ns3="), data.lastIndexOf("xmlns:ns3="));
+        assertFalse(data.contains("xmlns:ns4="));
+        final Element root = getNamespaceAwareDocument().getDocumentElement();
+        assertEquals("1", root.getAttributeNS("urn:a", "first"));
+        assertEquals("2", root.getAttributeNS("urn:a", "second"));
+    }
+
+    @Test
+    public void testWrite_twoForeignNamespaces() throws Exception {
+        final TwoNamespaces resource = new TwoNamespaces();
+        resource.embed("item", new TwoNamespaces());
+
+        subject.write(resource);
+
+        assertTwoNamespaces(getNamespaceAwareDocument());
+    }
+
+    /**
+     * Asserts the document of a {@link TwoNamespaces} resource with an embedded {@link TwoNamespaces} resource
+     */
+    static void assertTwoNamespaces(final Document document) {
+        final Element root = document.getDocumentElement();
+        assertEquals("1", root.getAttributeNS("urn:a", "first"));
+        assertEquals("3", root.getAttributeNS("urn:b", "third"));
+        assertEquals("value", root.getElementsByTagNameNS("urn:b", "value").item(0).getTextContent());
+        assertEquals("nested", root.getElementsByTagNameNS("urn:a", "nested").item(0).getTextContent());
+        final Element embedded = (Element) root.getElementsByTagName("embedded").item(0);
+        assertEquals("1", embedded.getAttributeNS("urn:a", "first"));
+        assertEquals("3", embedded.getAttributeNS("urn:b", "third"));
+    }
+
+    private Document getNamespaceAwareDocument() throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @XmlRootElement(name = "order")
+    public static class Order extends Resource {
+
+        private String name;
+        private int size;
+        private Double price;
+        private final List<String> tags = new ArrayList<>();
+
+        public Order() {
+            super("order");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(final int size) {
+            this.size = size;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public void setPrice(final Double price) {
+            this.price = price;
+        }
+
+        @XmlAttribute
+        public String getCode() {
+            return "c1";
+        }
+
+        public void setCode(final String code) {
+            // the code is fixed
+        }
+
+        @XmlTransient
+        public String getInternal() {
+            return "internal";
+        }
+
+        public void setInternal(final String internal) {
+            // not bound
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public Resource getChild() {
+            return HAL.newResource("child");
+        }
+
+        public void setChild(final Resource child) {
+            // the child is fixed
+        }
+    }
+
+    @XmlRootElement(name = "same")
+    public static class SameNamespace extends Resource {
+
+        @XmlAttribute(namespace = "urn:a")
+        public String first = "1";
+
+        @XmlAttribute(namespace = "urn:a")
+        public String second = "2";
+
+        public SameNamespace() {
+            super("same");
+        }
+    }
+
+    @XmlRootElement(name = "two")
+    public static class TwoNamespaces extends Resource {
+
+        @XmlAttribute(namespace = "urn:a")
+        public String first = "1";
+
+        @XmlAttribute(namespace = "urn:b")
+        public String third = "3";
+
+        @XmlElement(namespace = "urn:b")
+        public String value = "value";
+
+        @XmlElement(namespace = "urn:a")
+        public String nested = "nested";
+
+        public TwoNamespaces() {
+            super("two");
+        }
+    }
+
+    @XmlRootElement(name = "customer")
+    public static class Customer extends Resource {
+
+        public Address address;
+
+        @XmlElement(name = "previous")
+        public final List<Address> previous = new ArrayList<>();
+
+        public final List<Resource> related = new ArrayList<>();
+
+        public char initial = 'c';
+
+        public Customer() {
+            super("customer");
+        }
+    }
+
+    public static class Address {
+
+        @XmlAttribute
+        public String city;
+
+        public String street;
+
+        public Address() {
+        }
+
+        Address(final String street, final String city) {
+            this.street = street;
+            this.city = city;
+        }
+    }
+
+    @XmlRootElement(name = "unordered")
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Unordered extends Resource {
+
+        String zeta = "z";
+        int middle = 1;
+        String alpha = "a";
+
+        public Unordered() {
+            super("unordered");
+        }
+    }
+
+    @XmlRootElement(name = "alphabetical")
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+    public static class Alphabetical extends Resource {
+
+        String zeta = "z";
+        int middle = 1;
+        String alpha = "a";
+
+        public Alphabetical() {
+            super("alphabetical");
+        }
+    }
+
+    @XmlRootElement(name = "wrapped")
+    public static class Wrapped extends Resource {
+
+        @XmlElementWrapper(name = "tags")
+        @XmlElement(name = "tag")
+        public List<String> tags = Arrays.asList("a", "b");
+
+        public Wrapped() {
+            super("wrapped");
+        }
+    }
+
+    @XmlRootElement(name = "adapted")
+    public static class Adapted extends Resource {
+
+        @XmlJavaTypeAdapter(UpperCaseAdapter.class)
+        public String value = "value";
+
+        public Adapted() {
+            super("adapted");
+        }
+    }
+
+    public static class UpperCaseAdapter extends XmlAdapter<String, String> {
+
+        @Override
+        public String unmarshal(final String value) {
+            return value.toLowerCase();
+        }
+
+        @Override
+        public String marshal(final String value) {
+            return value.toUpperCase();
+        }
+    }
+
+    /**
+     * Resource whose nested bean is not supported
+     */
+    @XmlRootElement(name = "holder")
+    public static class AdaptedBeanHolder extends Resource {
+
+        public AdaptedBean bean = new AdaptedBean();
+
+        public AdaptedBeanHolder() {
+            super("holder");
+        }
+    }
+
+    public static class AdaptedBean {
+
+        @XmlJavaTypeAdapter(UpperCaseAdapter.class)
+        public String value = "value";
+    }
+
+    public static class Unrooted extends Resource {
+
+        private double value;
+
+        @XmlElement(nillable = true)
+        public String empty;
+
+        public Unrooted() {
+            super("unrooted");
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(final double value) {
+            this.value = value;
+        }
+    }
+}